@@ -1,8 +1,18 @@
 package tech.linebyline.coverage.extension.core;
 
+import org.jacoco.core.data.ExecutionDataStore;
 import tech.linebyline.coverage.extension.core.configuration.ConfigurationManager;
+import tech.linebyline.coverage.extension.core.integration.DiffProvider;
+import tech.linebyline.coverage.extension.core.integration.ExecutionDataLoader;
 import tech.linebyline.coverage.extension.core.integration.GitInteractor;
+import tech.linebyline.coverage.extension.core.integration.GitProcessDiffProvider;
+import tech.linebyline.coverage.extension.core.integration.JGitDiffProvider;
 import tech.linebyline.coverage.extension.core.integration.JaCoCoInteractor;
+import tech.linebyline.coverage.extension.core.integration.PatchFileDiffProvider;
+import tech.linebyline.coverage.extension.core.integration.ProcessRunner;
+import tech.linebyline.coverage.extension.core.integration.StagedDiffProvider;
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
 import tech.linebyline.coverage.extension.core.model.CodeCoverage;
 import tech.linebyline.coverage.extension.core.model.Rule;
 import tech.linebyline.coverage.extension.core.model.RuleValidationResult;
@@ -10,9 +20,14 @@ import tech.linebyline.coverage.extension.core.services.RuleManager;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
-
-import static tech.linebyline.coverage.extension.core.integration.GitInteractor.getOverviewOfChangedFiles;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Main class that will check the code coverage.
@@ -42,11 +57,79 @@ public class CoverageChecker {
         this.configurationManager = configurationManager;
     }
 
+    /**
+     * Runs the checks of all the rules.
+     * <br></br>
+     * The diff and the JaCoCo analysis run at the same time and are only joined when the rules are checked, so the checks
+     * take as long as the slower of the two instead of both together. The analysis of the changed classes needs to know
+     * which files changed, so when there is no overall rule the analysis starts as soon as the changed files are known:
+     * from the diff of the changed lines when a rule needs those, otherwise from the cheaper overview of the changed files.
+     * Either way git runs a single diff. The exec files are read while the diff runs and are only filtered down to the
+     * changed classes once those are known, so only finding and analyzing the changed classes waits for the diff.
+     * @return the result per rule
+     * @throws IOException if the diff cannot be created or the coverage cannot be read
+     * @throws InterruptedException if the diff cannot be created
+     */
     public HashMap<Rule, RuleValidationResult> runChecks() throws IOException, InterruptedException {
         List<Rule> rules = getRuleManager().getRules();
+        String branchToCompare = getConfigurationManager().getBranchToCompare();
+        //the diff provider is created before the stages start, so they do not create one each
+        DiffProvider diffProvider = getDiffProvider();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "coverage-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            //the changed files and lines are taken from one diff, no matter how many rules need them
+            CompletableFuture<ChangeSet> changesStage = null;
+            if(requiresChangedLines(rules) && (getChangedFiles() == null || getChangedLines() == null)){
+                changesStage = supplyAsync(() -> diffProvider.getChanges(branchToCompare), executor);
+            }
 
-        JaCoCoInteractor jaCoCoInteractor = new JaCoCoInteractor(getConfigurationManager().getJacocoExecFile(), getConfigurationManager().getClassPath(),
-                getConfigurationManager().getSourcePaths(), getConfigurationManager().getProjectBaseDir());
+            //only an overall rule needs all the classes to be analyzed, the other rules only look at the changed classes
+            CompletableFuture<Set<File>> changedFilesToAnalyzeStage = CompletableFuture.completedFuture(null);
+            if(!requiresFullAnalysis(rules)){
+                if(getChangedFiles() != null){
+                    changedFilesToAnalyzeStage = CompletableFuture.completedFuture(getChangedFiles());
+                }else if(changesStage != null){
+                    changedFilesToAnalyzeStage = changesStage.thenApply(ChangeSet::getChangedFiles);
+                }else{
+                    changedFilesToAnalyzeStage = supplyAsync(() -> diffProvider.getOverviewOfChangedFiles(branchToCompare), executor);
+                }
+            }
+
+            //the exec files do not depend on the diff, so they are read at the same time
+            ExecutionDataLoader executionDataLoader = new ExecutionDataLoader();
+            CompletableFuture<ExecutionDataStore> executionDataStage = CompletableFuture.completedFuture(null);
+            List<File> jacocoExecFiles = getConfigurationManager().getJacocoExecFiles();
+            if(!changedFilesToAnalyzeStage.isDone() && !jacocoExecFiles.isEmpty()){
+                executionDataStage = supplyAsync(() -> executionDataLoader.load(jacocoExecFiles, getConfigurationManager().getAnalysisThreads()), executor);
+            }
+
+            CompletableFuture<JaCoCoInteractor> analysisStage = changedFilesToAnalyzeStage.thenCombine(executionDataStage,
+                    (changedFilesToAnalyze, executionData) -> supplyAsync(() -> new JaCoCoInteractor(getConfigurationManager(), changedFilesToAnalyze, executionDataLoader, executionData), executor))
+                    .thenCompose(stage -> stage);
+
+            if(changesStage != null){
+                ChangeSet changeSet = join(changesStage);
+                if(getChangedFiles() == null){
+                    setChangedFiles(changeSet.getChangedFiles());
+                }
+                if(getChangedLines() == null){
+                    setChangedLines(changeSet.getChangedLines());
+                }
+            }
+            Set<File> changedFilesToAnalyze = join(changedFilesToAnalyzeStage);
+            if(getChangedFiles() == null && changedFilesToAnalyze != null){
+                setChangedFiles(changedFilesToAnalyze);
+            }
+            this.jaCoCoInteractor = join(analysisStage);
+        } finally {
+            executor.shutdownNow();
+        }
+        JaCoCoInteractor jaCoCoInteractor = this.jaCoCoInteractor;
 
         HashMap<Rule, RuleValidationResult> ruleValidationResults = new HashMap<>();
 
@@ -69,13 +152,146 @@ public class CoverageChecker {
         return ruleValidationResults;
     }
 
-    private HashMap<String, int[]> changedLines = null;
+    /**
+     * Checks whether the rules require the complete class path to be analyzed. This is only the case for the
+     * {@link Rule.RuleType#OVERALL} rule, all the other rules only need the classes of the changed files.
+     * @param rules the rules that will be checked
+     * @return true if all the classes need to be analyzed, false if only the changed classes need to be analyzed
+     */
+    static boolean requiresFullAnalysis(List<Rule> rules){
+        for (Rule rule : rules) {
+            if(rule.getType() == Rule.RuleType.OVERALL){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the rules look at the changed lines, which is the case for the {@link Rule.RuleType#PER_CLASS_CHANGED_LINES}
+     * and {@link Rule.RuleType#TOTAL_CHANGED_LINES} rules
+     * @param rules the rules that will be checked
+     * @return true if the changed lines are needed
+     */
+    static boolean requiresChangedLines(List<Rule> rules){
+        for (Rule rule : rules) {
+            if(rule.getType() == Rule.RuleType.PER_CLASS_CHANGED_LINES || rule.getType() == Rule.RuleType.TOTAL_CHANGED_LINES){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A step of the checks that can throw the exceptions of the diff and the analysis
+     * @param <T> the type of the result of the step
+     */
+    @FunctionalInterface
+    private interface CheckedSupplier<T> {
+        T get() throws IOException, InterruptedException;
+    }
+
+    //not static, so mocking the static methods of this class does not replace the stages
+    private <T> CompletableFuture<T> supplyAsync(CheckedSupplier<T> supplier, Executor executor){
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return supplier.get();
+            } catch (IOException | InterruptedException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Waits for a stage of the checks and throws the exception the stage failed with
+     */
+    private <T> T join(CompletableFuture<T> stage) throws IOException, InterruptedException {
+        try {
+            return stage.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException("Unable to check the coverage: " + cause);
+        }
+    }
+
+    /**
+     * Loads the changed files and the changed lines with a single diff. The ones that are already known are kept.
+     * @param branchToCompare the branch to compare the current branch to
+     * @throws IOException if the diff cannot be created
+     * @throws InterruptedException if the diff cannot be created
+     */
+    private void loadChanges(String branchToCompare) throws IOException, InterruptedException {
+        ChangeSet changeSet = getDiffProvider().getChanges(branchToCompare);
+        if(getChangedFiles() == null){
+            setChangedFiles(changeSet.getChangedFiles());
+        }
+        if(getChangedLines() == null){
+            setChangedLines(changeSet.getChangedLines());
+        }
+    }
+
+    private DiffProvider diffProvider = null;
+
+    void setDiffProvider(DiffProvider diffProvider){
+        this.diffProvider = diffProvider;
+    }
+
+    private ProcessRunner processRunner = null;
+
+    /**
+     * The runner the git processes of this checker are run with, with the configured timeout. It counts the processes and
+     * their wall time, so it can be reported how much of the checks was spent in git.
+     * @return the process runner
+     */
+    public ProcessRunner getProcessRunner(){
+        if(processRunner == null){
+            processRunner = new ProcessRunner(Duration.ofSeconds(getConfigurationManager().getGitTimeout()));
+        }
+        return processRunner;
+    }
+
+    /**
+     * Returns the diff provider that is selected in the configuration. It is created the first time it is needed.
+     * A patch file takes precedence over the staged changes, which take precedence over the diff engine.
+     * @return the diff provider
+     */
+    DiffProvider getDiffProvider(){
+        if(diffProvider == null){
+            //only the java files of the source roots of the project are diffed
+            File projectBaseDir = getConfigurationManager().getProjectBaseDir() != null ? getConfigurationManager().getProjectBaseDir() : new File("").getAbsoluteFile();
+            if(getConfigurationManager().getPatchFile() != null){
+                diffProvider = new PatchFileDiffProvider(getConfigurationManager().getPatchFile());
+            }else if(getConfigurationManager().getStagedChanges()){
+                diffProvider = new StagedDiffProvider(projectBaseDir, getConfigurationManager().getSourcePaths(), getProcessRunner());
+            }else if(getConfigurationManager().getDiffEngine() == ConfigurationManager.DiffEngine.IN_PROCESS){
+                diffProvider = new JGitDiffProvider(projectBaseDir, getConfigurationManager().getSourcePaths());
+            }else{
+                diffProvider = new GitProcessDiffProvider(projectBaseDir, getConfigurationManager().getSourcePaths(), getConfigurationManager().getDiffCacheFile(),
+                        getConfigurationManager().getIncrementalDiff(), getConfigurationManager().getDiffThreads(), getProcessRunner());
+            }
+        }
+        return diffProvider;
+    }
+
+    private HashMap<String, ChangedLines> changedLines = null;
 
-    private HashMap<String, int[]> getChangedLines(){
+    private HashMap<String, ChangedLines> getChangedLines(){
         return changedLines;
     }
 
-    void setChangedLines(HashMap<String, int[]> changedLines){
+    void setChangedLines(HashMap<String, ChangedLines> changedLines){
         this.changedLines = changedLines;
     }
 
@@ -100,11 +316,8 @@ public class CoverageChecker {
      * @throws InterruptedException if the JaCoCoInteractor fails to get the code coverage
      */
     private RuleValidationResult checkTotalChangedLinesCoverageRule(Rule rule, JaCoCoInteractor jaCoCoInteractor, String branchToCompare) throws IOException, InterruptedException {
-        if(getChangedFiles() == null){
-            setChangedFiles(getOverviewOfChangedFiles(branchToCompare));
-        }
-        if(getChangedLines() == null){
-            setChangedLines(GitInteractor.getChangedLines(branchToCompare));
+        if(getChangedFiles() == null || getChangedLines() == null){
+            loadChanges(branchToCompare);
         }
         if(getTotalCodeCoverageOfChangedLines() == null){
             setTotalCodeCoverageOfChangedLines(jaCoCoInteractor.getCodeCoverageForChangedLinesOfChangedFiles(getChangedFiles(), getChangedLines()));
@@ -161,6 +374,17 @@ public class CoverageChecker {
         }
     }
 
+    private JaCoCoInteractor jaCoCoInteractor = null;
+
+    /**
+     * The JaCoCo interactor of the last {@link #runChecks()}. It can be used to report how the coverage was created,
+     * e.g. how fast the exec files were read and which classes were found more than once on the class path.
+     * @return the JaCoCo interactor or null if the checks have not run yet
+     */
+    public JaCoCoInteractor getJaCoCoInteractor(){
+        return jaCoCoInteractor;
+    }
+
     private Set<File> changedFiles = null;
 
     private Set<File> getChangedFiles(){
@@ -199,11 +423,8 @@ public class CoverageChecker {
      * @throws InterruptedException if the JaCoCoInteractor fails to get the code coverage
      */
     private RuleValidationResult checkPerClassChangedLinesCoverageRule(Rule rule, JaCoCoInteractor jaCoCoInteractor, String branchToCompare) throws IOException, InterruptedException {
-        if(getChangedFiles() == null){
-            setChangedFiles(getOverviewOfChangedFiles(branchToCompare));
-        }
-        if(getChangedLines() == null){
-            setChangedLines(GitInteractor.getChangedLines(branchToCompare));
+        if(getChangedFiles() == null || getChangedLines() == null){
+            loadChanges(branchToCompare);
         }
         if(getTotalCodeCoverageOfChangedLines() == null){
             setTotalCodeCoverageOfChangedLines(jaCoCoInteractor.getCodeCoverageForChangedLinesOfChangedFiles(getChangedFiles(), getChangedLines()));
@@ -222,7 +443,7 @@ public class CoverageChecker {
         LinkedHashMap<String, Double> insufficientCoverage = new LinkedHashMap<>();
         LinkedHashMap<String, String> errorCoverage = new LinkedHashMap<>(); //map containing coverage calculations gone wrong
 
-        for(String className : getTotalCodeCoverageOfChangedLines().keySet()){
+        for(String className : new TreeSet<>(getTotalCodeCoverageOfChangedLines().keySet())){
             CodeCoverage codeCoverage = getTotalCodeCoverageOfChangedLines().get(className);
 
             Double coverage;
@@ -290,7 +511,7 @@ public class CoverageChecker {
      */
     private RuleValidationResult checkPerClassCoverageRule(Rule rule, JaCoCoInteractor jaCoCoInteractor, String branchToCompare) {
         if(getChangedFiles() == null){
-            setChangedFiles(getOverviewOfChangedFiles(branchToCompare));
+            setChangedFiles(getDiffProvider().getOverviewOfChangedFiles(branchToCompare));
         }
 
         if(getChangedFiles().size() == 0){
@@ -308,7 +529,7 @@ public class CoverageChecker {
 
 
 
-        for(String className : overallClassCodeCoverage.keySet()){
+        for(String className : new TreeSet<>(overallClassCodeCoverage.keySet())){
             CodeCoverage codeCoverage = overallClassCodeCoverage.get(className);
 
             Double coverage;
@@ -1,6 +1,14 @@
 package tech.linebyline.coverage.extension.core.configuration;
 
+import tech.linebyline.coverage.extension.core.util.FileUtil;
+
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Manages the configuration of the coverage extension.
@@ -45,6 +53,40 @@ public class ConfigurationManager {
         return classPath;
     }
 
+    File[] additionalClassPaths;
+
+    /**
+     * Sets additional class path entries that are analyzed together with the class path, e.g. the output directories
+     * of sibling modules or a shaded JAR. The classes in a JAR are analyzed straight from the JAR.
+     * @param additionalClassPaths the additional directories and JAR files
+     */
+    public void setAdditionalClassPaths(File[] additionalClassPaths) {
+        this.additionalClassPaths = additionalClassPaths;
+    }
+
+    /**
+     * Returns the additional class path entries
+     * @return the additional directories and JAR files
+     */
+    public File[] getAdditionalClassPaths() {
+        return additionalClassPaths;
+    }
+
+    /**
+     * Returns all the class path entries that need to be analyzed: the class path followed by the additional class path entries
+     * @return the class path entries
+     */
+    public List<File> getClassPaths() {
+        List<File> classPaths = new ArrayList<>();
+        if (classPath != null) {
+            classPaths.add(classPath);
+        }
+        if (additionalClassPaths != null) {
+            classPaths.addAll(Arrays.asList(additionalClassPaths));
+        }
+        return classPaths;
+    }
+
     String[] sourcePaths;
 
     /**
@@ -83,6 +125,46 @@ public class ConfigurationManager {
         return jacocoExecFile;
     }
 
+    String[] jacocoExecFilePatterns;
+
+    /**
+     * Sets the patterns of additional JaCoCo exec files, e.g. 'target/jacoco-it.exec' or 'target/**&#47;*.exec' for the exec files
+     * of all the surefire forks. Relative patterns are resolved against the project base directory.
+     * The exec files are merged, so there is no need to run jacoco:merge first.
+     * @param jacocoExecFilePatterns the glob patterns of the exec files
+     */
+    public void setJacocoExecFilePatterns(String[] jacocoExecFilePatterns) {
+        this.jacocoExecFilePatterns = jacocoExecFilePatterns;
+    }
+
+    /**
+     * Returns the patterns of the additional JaCoCo exec files
+     * @return the glob patterns of the exec files
+     */
+    public String[] getJacocoExecFilePatterns() {
+        return jacocoExecFilePatterns;
+    }
+
+    /**
+     * Returns all the JaCoCo exec files that need to be merged: the JaCoCo exec file followed by the files that match the exec file patterns.
+     * Each file is only returned once.
+     * @return the JaCoCo exec files
+     * @throws IOException if the exec file patterns cannot be resolved
+     */
+    public List<File> getJacocoExecFiles() throws IOException {
+        Set<File> jacocoExecFiles = new LinkedHashSet<>();
+        if (jacocoExecFile != null) {
+            jacocoExecFiles.add(jacocoExecFile);
+        }
+        if (jacocoExecFilePatterns != null) {
+            File baseDir = projectBaseDir != null ? projectBaseDir : new File("");
+            for (String jacocoExecFilePattern : jacocoExecFilePatterns) {
+                jacocoExecFiles.addAll(FileUtil.resolveGlob(baseDir, jacocoExecFilePattern));
+            }
+        }
+        return new ArrayList<>(jacocoExecFiles);
+    }
+
     String branchToCompare;
 
     /**
@@ -101,6 +183,39 @@ public class ConfigurationManager {
         return branchToCompare;
     }
 
+    /**
+     * The ways the changes compared to the branch to compare can be determined
+     */
+    public enum DiffEngine {
+        /**
+         * Runs the git binary in a subprocess
+         */
+        GIT_PROCESS,
+        /**
+         * Reads the '.git' directory in-process, no git binary is needed
+         */
+        IN_PROCESS
+    }
+
+    DiffEngine diffEngine = DiffEngine.GIT_PROCESS;
+
+    /**
+     * Sets how the changed files and lines are determined
+     * @param diffEngine the diff engine
+     */
+    public void setDiffEngine(DiffEngine diffEngine) {
+        this.diffEngine = diffEngine;
+    }
+
+    /**
+     * Returns how the changed files and lines are determined.
+     * By default, the git binary is used.
+     * @return the diff engine
+     */
+    public DiffEngine getDiffEngine() {
+        return diffEngine;
+    }
+
     boolean failOnError = false;
 
     public void setFailOnError(boolean failOnError) {
@@ -111,5 +226,210 @@ public class ConfigurationManager {
         return failOnError;
     }
 
+    File buildDirectory;
+
+    /**
+     * Sets the build directory. In Maven this is 'target'. The analysis cache is stored in this directory.
+     * @param buildDirectory the build directory
+     */
+    public void setBuildDirectory(File buildDirectory) {
+        this.buildDirectory = buildDirectory;
+    }
+
+    /**
+     * Returns the build directory.
+     * In Maven this is 'target'
+     * @return the build directory
+     */
+    public File getBuildDirectory() {
+        return buildDirectory;
+    }
+
+    boolean useAnalysisCache = true;
+
+    /**
+     * Sets whether the coverage of the analyzed classes is cached in the build directory. Classes whose bytecode and probes
+     * did not change since the previous run are then not analyzed again. The cache is only used when the build directory is set.
+     * @param useAnalysisCache whether to use the analysis cache
+     */
+    public void setUseAnalysisCache(boolean useAnalysisCache) {
+        this.useAnalysisCache = useAnalysisCache;
+    }
+
+    /**
+     * Returns whether the coverage of the analyzed classes is cached in the build directory
+     * @return whether to use the analysis cache
+     */
+    public boolean getUseAnalysisCache() {
+        return useAnalysisCache;
+    }
+
+    /**
+     * Returns the file the analysis cache is stored in
+     * @return the analysis cache file or null if the analysis cache is not used
+     */
+    public File getAnalysisCacheFile() {
+        if (!useAnalysisCache || buildDirectory == null) {
+            return null;
+        }
+        return new File(buildDirectory, "coverage-extension/analysis-cache.bin");
+    }
+
+    boolean useDiffCache = false;
+
+    /**
+     * Sets whether the diff is cached in the build directory. As long as the branch to compare, HEAD and the working tree
+     * do not change, the next build takes the changed files and lines from the cache instead of running the diff again.
+     * Checking whether the cache is still valid runs 'git status', which looks at every tracked file of the source roots,
+     * so a hit saves the diff but not a scan of the working tree. It pays off for large diffs, not for small ones.
+     * The cache is only used by the {@link DiffEngine#GIT_PROCESS} diff engine and only when the build directory is set.
+     * It is off by default.
+     * @param useDiffCache whether to use the diff cache
+     */
+    public void setUseDiffCache(boolean useDiffCache) {
+        this.useDiffCache = useDiffCache;
+    }
+
+    /**
+     * Returns whether the diff is cached in the build directory
+     * @return whether to use the diff cache
+     */
+    public boolean getUseDiffCache() {
+        return useDiffCache;
+    }
+
+    /**
+     * Returns the file the diff cache is stored in
+     * @return the diff cache file or null if the diff cache is not used
+     */
+    public File getDiffCacheFile() {
+        if (!useDiffCache || buildDirectory == null) {
+            return null;
+        }
+        return new File(buildDirectory, "coverage-extension/diff-cache.bin");
+    }
+
+    boolean incrementalDiff = false;
+
+    /**
+     * Sets whether a cached diff of an older HEAD may be updated with the diff of the commits that were added since then,
+     * instead of diffing the whole branch again. The touched files that were already changed are diffed against the branch
+     * to compare again, and a commit that renames a file diffs the whole branch again. It requires the diff cache, see
+     * {@link #setUseDiffCache(boolean)}.
+     * @param incrementalDiff whether to use incremental diffs
+     */
+    public void setIncrementalDiff(boolean incrementalDiff) {
+        this.incrementalDiff = incrementalDiff;
+    }
+
+    /**
+     * Returns whether a cached diff of an older HEAD may be updated incrementally
+     * @return whether to use incremental diffs
+     */
+    public boolean getIncrementalDiff() {
+        return incrementalDiff;
+    }
+
+    int diffThreads = 1;
+
+    /**
+     * Sets the maximum number of diffs that run at the same time. With more than one thread, a changeset of many files is
+     * split into batches of files that are diffed and parsed in parallel. It is only used by the {@link DiffEngine#GIT_PROCESS} diff engine.
+     * @param diffThreads the number of threads. A value of 0 or less uses the number of available processors.
+     */
+    public void setDiffThreads(int diffThreads) {
+        this.diffThreads = diffThreads > 0 ? diffThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Returns the maximum number of diffs that run at the same time
+     * @return the number of diff threads
+     */
+    public int getDiffThreads() {
+        return diffThreads;
+    }
+
+    int gitTimeout = 300;
+
+    /**
+     * Sets the time a git command may take. A git command that takes longer, e.g. because it waits for a lock, is stopped
+     * and the check fails instead of hanging the build.
+     * @param gitTimeout the timeout in seconds. A value of 0 or less means no timeout.
+     */
+    public void setGitTimeout(int gitTimeout) {
+        this.gitTimeout = Math.max(gitTimeout, 0);
+    }
+
+    /**
+     * Returns the time a git command may take
+     * @return the timeout in seconds, 0 for no timeout
+     */
+    public int getGitTimeout() {
+        return gitTimeout;
+    }
+
+    boolean stagedChanges = false;
+
+    /**
+     * Sets whether only the changes that are staged for the next commit are checked, e.g. in a pre-commit hook. The index
+     * is diffed against HEAD instead of the working tree against the branch to compare, and without an overall rule only
+     * the staged classes are analyzed. This always runs the git binary, whatever the diff engine.
+     * @param stagedChanges whether to check the staged changes
+     */
+    public void setStagedChanges(boolean stagedChanges) {
+        this.stagedChanges = stagedChanges;
+    }
+
+    /**
+     * Returns whether only the changes that are staged for the next commit are checked
+     * @return true if the staged changes are checked
+     */
+    public boolean getStagedChanges() {
+        return stagedChanges;
+    }
+
+    String patchFile = null;
+
+    /**
+     * Sets a unified diff that was created beforehand, e.g. by the pipeline for all the modules at once, to read the
+     * changes from instead of diffing against the branch to compare. Git is not run at all then.
+     * @param patchFile the path of the diff, absolute or relative to the project base directory, '-' to read the diff
+     *                  from the standard input, or null to diff against the branch to compare
+     */
+    public void setPatchFile(String patchFile) {
+        this.patchFile = patchFile == null || patchFile.isBlank() ? null : patchFile;
+    }
+
+    /**
+     * Returns the unified diff the changes are read from. A relative path is resolved against the project base directory,
+     * so it does not depend on the directory the build was started from, e.g. the root of a multi-module build.
+     * @return the path of the diff, '-' for the standard input, or null if the branch to compare is diffed
+     */
+    public String getPatchFile() {
+        if (patchFile == null || patchFile.equals("-") || new File(patchFile).isAbsolute() || projectBaseDir == null) {
+            return patchFile;
+        }
+        return new File(projectBaseDir, patchFile).getPath();
+    }
+
+    int analysisThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Sets the number of threads that are used to analyze the class files.
+     * @param analysisThreads the number of threads. A value of 0 or less uses the number of available processors.
+     */
+    public void setAnalysisThreads(int analysisThreads) {
+        this.analysisThreads = analysisThreads > 0 ? analysisThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Returns the number of threads that are used to analyze the class files.
+     * By default, this is the number of available processors.
+     * @return the number of threads
+     */
+    public int getAnalysisThreads() {
+        return analysisThreads;
+    }
+
 
 }
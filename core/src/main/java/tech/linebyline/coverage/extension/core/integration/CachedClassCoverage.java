@@ -0,0 +1,395 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.jacoco.core.analysis.CoverageNodeImpl;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ILine;
+import org.jacoco.core.analysis.IMethodCoverage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The coverage of a class as it is stored in the {@link ClassAnalysisCache}. It holds the counters and the line coverage
+ * of the class, which is everything the coverage checks and the {@link org.jacoco.core.analysis.CoverageBuilder} need.
+ * The coverage of the methods is not stored, so {@link #getMethods()} is always empty.
+ * <br></br>
+ * The counters and lines are plain values behind JaCoCo's public interfaces, {@link ICounter} and {@link ILine}, so the
+ * cache does not depend on the internal classes of JaCoCo, which may change in any version.
+ */
+class CachedClassCoverage implements IClassCoverage {
+
+    private static final Counter EMPTY_COUNTER = new Counter(0, 0);
+
+    private static final Line EMPTY_LINE = new Line(EMPTY_COUNTER, EMPTY_COUNTER);
+
+    private final String name;
+    private final long id;
+    private final boolean noMatch;
+    private String signature;
+    private String superName;
+    private String[] interfaceNames;
+    private String sourceFileName;
+    private final Counter[] counters = new Counter[CounterEntity.values().length];
+    private int firstLine = UNKNOWN_LINE;
+    private int lastLine = UNKNOWN_LINE;
+    private Line[] lines = new Line[0];
+
+    private CachedClassCoverage(String name, long id, boolean noMatch) {
+        this.name = name;
+        this.id = id;
+        this.noMatch = noMatch;
+    }
+
+    /**
+     * Writes the coverage of a class
+     * @param classCoverage the coverage of the class, as created by the analyzer or read from the cache
+     * @param output the output to write to
+     * @throws IOException if the coverage cannot be written
+     */
+    static void write(IClassCoverage classCoverage, DataOutput output) throws IOException {
+        output.writeUTF(classCoverage.getName());
+        output.writeLong(classCoverage.getId());
+        output.writeBoolean(classCoverage.isNoMatch());
+        writeNullableString(classCoverage.getSignature(), output);
+        writeNullableString(classCoverage.getSuperName(), output);
+        String[] interfaceNames = classCoverage.getInterfaceNames();
+        output.writeInt(interfaceNames == null ? -1 : interfaceNames.length);
+        if (interfaceNames != null) {
+            for (String interfaceName : interfaceNames) {
+                output.writeUTF(interfaceName);
+            }
+        }
+        writeNullableString(classCoverage.getSourceFileName(), output);
+
+        for (CounterEntity counterEntity : CounterEntity.values()) {
+            writeCounter(classCoverage.getCounter(counterEntity), output);
+        }
+
+        int firstLine = classCoverage.getFirstLine();
+        int lastLine = classCoverage.getLastLine();
+        output.writeInt(firstLine);
+        output.writeInt(lastLine);
+        if (firstLine != UNKNOWN_LINE) {
+            for (int lineNumber = firstLine; lineNumber <= lastLine; lineNumber++) {
+                ILine line = classCoverage.getLine(lineNumber);
+                writeCounter(line.getInstructionCounter(), output);
+                writeCounter(line.getBranchCounter(), output);
+            }
+        }
+    }
+
+    /**
+     * Reads the coverage of a class that was written by {@link #write(IClassCoverage, DataOutput)}
+     * @param input the input to read from
+     * @return the coverage of the class
+     * @throws IOException if the coverage cannot be read
+     */
+    static CachedClassCoverage read(DataInput input) throws IOException {
+        CachedClassCoverage classCoverage = new CachedClassCoverage(input.readUTF(), input.readLong(), input.readBoolean());
+        classCoverage.signature = readNullableString(input);
+        classCoverage.superName = readNullableString(input);
+        int numberOfInterfaces = input.readInt();
+        if (numberOfInterfaces >= 0) {
+            classCoverage.interfaceNames = new String[numberOfInterfaces];
+            for (int i = 0; i < numberOfInterfaces; i++) {
+                classCoverage.interfaceNames[i] = input.readUTF();
+            }
+        }
+        classCoverage.sourceFileName = readNullableString(input);
+
+        for (int i = 0; i < classCoverage.counters.length; i++) {
+            classCoverage.counters[i] = readCounter(input);
+        }
+
+        int firstLine = input.readInt();
+        int lastLine = input.readInt();
+        if (firstLine != UNKNOWN_LINE) {
+            if (lastLine < firstLine) {
+                throw new IOException("Invalid lines " + firstLine + "-" + lastLine + " of " + classCoverage.getName());
+            }
+            classCoverage.firstLine = firstLine;
+            classCoverage.lastLine = lastLine;
+            classCoverage.lines = new Line[lastLine - firstLine + 1];
+            for (int i = 0; i < classCoverage.lines.length; i++) {
+                classCoverage.lines[i] = new Line(readCounter(input), readCounter(input));
+            }
+        }
+        return classCoverage;
+    }
+
+    private static void writeCounter(ICounter counter, DataOutput output) throws IOException {
+        output.writeInt(counter.getMissedCount());
+        output.writeInt(counter.getCoveredCount());
+    }
+
+    private static Counter readCounter(DataInput input) throws IOException {
+        int missed = input.readInt();
+        int covered = input.readInt();
+        return missed == 0 && covered == 0 ? EMPTY_COUNTER : new Counter(missed, covered);
+    }
+
+    private static void writeNullableString(String value, DataOutput output) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInput input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    @Override
+    public ElementType getElementType() {
+        return ElementType.CLASS;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public ICounter getInstructionCounter() {
+        return getCounter(CounterEntity.INSTRUCTION);
+    }
+
+    @Override
+    public ICounter getBranchCounter() {
+        return getCounter(CounterEntity.BRANCH);
+    }
+
+    @Override
+    public ICounter getLineCounter() {
+        return getCounter(CounterEntity.LINE);
+    }
+
+    @Override
+    public ICounter getComplexityCounter() {
+        return getCounter(CounterEntity.COMPLEXITY);
+    }
+
+    @Override
+    public ICounter getMethodCounter() {
+        return getCounter(CounterEntity.METHOD);
+    }
+
+    @Override
+    public ICounter getClassCounter() {
+        return getCounter(CounterEntity.CLASS);
+    }
+
+    @Override
+    public ICounter getCounter(CounterEntity entity) {
+        return counters[entity.ordinal()];
+    }
+
+    @Override
+    public boolean containsCode() {
+        return getInstructionCounter().getTotalCount() != 0;
+    }
+
+    @Override
+    public ICoverageNode getPlainCopy() {
+        CoverageNodeImpl copy = new CoverageNodeImpl(ElementType.CLASS, name);
+        copy.increment(this);
+        return copy;
+    }
+
+    @Override
+    public int getFirstLine() {
+        return firstLine;
+    }
+
+    @Override
+    public int getLastLine() {
+        return lastLine;
+    }
+
+    @Override
+    public ILine getLine(int nr) {
+        if (firstLine == UNKNOWN_LINE || nr < firstLine || nr > lastLine) {
+            return EMPTY_LINE;
+        }
+        return lines[nr - firstLine];
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNoMatch() {
+        return noMatch;
+    }
+
+    @Override
+    public String getSignature() {
+        return signature;
+    }
+
+    @Override
+    public String getSuperName() {
+        return superName;
+    }
+
+    @Override
+    public String[] getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    @Override
+    public String getPackageName() {
+        int packageSeparator = getName().lastIndexOf('/');
+        return packageSeparator == -1 ? "" : getName().substring(0, packageSeparator);
+    }
+
+    @Override
+    public String getSourceFileName() {
+        return sourceFileName;
+    }
+
+    @Override
+    public Collection<IMethodCoverage> getMethods() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String toString() {
+        return name + " [" + ElementType.CLASS + "]";
+    }
+
+    /**
+     * A counter as it was read from the cache. The status follows the definition of {@link ICounter#getStatus()}.
+     */
+    private static class Counter implements ICounter {
+
+        private final int missed;
+        private final int covered;
+
+        private Counter(int missed, int covered) {
+            this.missed = missed;
+            this.covered = covered;
+        }
+
+        @Override
+        public double getValue(CounterValue value) {
+            switch (value) {
+                case TOTALCOUNT:
+                    return getTotalCount();
+                case MISSEDCOUNT:
+                    return getMissedCount();
+                case COVEREDCOUNT:
+                    return getCoveredCount();
+                case MISSEDRATIO:
+                    return getMissedRatio();
+                case COVEREDRATIO:
+                    return getCoveredRatio();
+                default:
+                    throw new IllegalArgumentException("Unknown counter value " + value);
+            }
+        }
+
+        @Override
+        public int getTotalCount() {
+            return missed + covered;
+        }
+
+        @Override
+        public int getCoveredCount() {
+            return covered;
+        }
+
+        @Override
+        public int getMissedCount() {
+            return missed;
+        }
+
+        @Override
+        public double getCoveredRatio() {
+            return (double) covered / (missed + covered);
+        }
+
+        @Override
+        public double getMissedRatio() {
+            return (double) missed / (missed + covered);
+        }
+
+        @Override
+        public int getStatus() {
+            int status = covered > 0 ? FULLY_COVERED : EMPTY;
+            if (missed > 0) {
+                status |= NOT_COVERED;
+            }
+            return status;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ICounter)) {
+                return false;
+            }
+            ICounter counter = (ICounter) obj;
+            return missed == counter.getMissedCount() && covered == counter.getCoveredCount();
+        }
+
+        @Override
+        public int hashCode() {
+            return missed ^ Integer.rotateLeft(covered, 16);
+        }
+
+        @Override
+        public String toString() {
+            return "Counter[" + missed + "/" + covered + "]";
+        }
+    }
+
+    /**
+     * The coverage of a line as it was read from the cache
+     */
+    private static class Line implements ILine {
+
+        private final Counter instructions;
+        private final Counter branches;
+
+        private Line(Counter instructions, Counter branches) {
+            this.instructions = instructions;
+            this.branches = branches;
+        }
+
+        @Override
+        public ICounter getInstructionCounter() {
+            return instructions;
+        }
+
+        @Override
+        public ICounter getBranchCounter() {
+            return branches;
+        }
+
+        @Override
+        public int getStatus() {
+            return instructions.getStatus() | branches.getStatus();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ILine)) {
+                return false;
+            }
+            ILine line = (ILine) obj;
+            return instructions.equals(line.getInstructionCounter()) && branches.equals(line.getBranchCounter());
+        }
+
+        @Override
+        public int hashCode() {
+            return 23 * instructions.hashCode() ^ branches.hashCode();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A long-lived 'git cat-file --batch' process that reads objects of a repository, e.g. the content of a file in the branch
+ * to compare with 'origin/develop:src/main/java/Foo.java' or a tree with 'origin/develop^{tree}'. Starting git once and
+ * sending it one line per object is much cheaper than one git process per object. Several objects can be requested at
+ * once, see {@link #read(List)}: the requests are written while the responses are read, so git never waits for us.
+ * <br></br>
+ * git is started with a {@link ProcessRunner}: a request that gets no answer within the timeout of the runner kills git,
+ * and the process is counted by the runner once it is closed.
+ * <br></br>
+ * The process is stopped by {@link #close()}. When the JVM exits without closing it, git sees the end of its input and
+ * stops by itself. The methods are synchronized, so one channel can be shared by several threads.
+ */
+public class CatFileBatch implements AutoCloseable {
+
+    /**
+     * The time git gets to exit after its input was closed
+     */
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ProcessRunner.LongRunningProcess process;
+
+    private final OutputStream requests;
+
+    private final InputStream responses;
+
+    private final ExecutorService writer;
+
+    private boolean closed;
+
+    /**
+     * Starts 'git cat-file --batch' with the default timeout
+     * @param directory the directory git is run in, a directory of the repository
+     * @throws IOException if git cannot be started
+     */
+    public CatFileBatch(File directory) throws IOException {
+        this(directory, new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT));
+    }
+
+    /**
+     * Starts 'git cat-file --batch'
+     * @param directory the directory git is run in, a directory of the repository
+     * @param processRunner the runner git is started with, its timeout applies to every read
+     * @throws IOException if git cannot be started
+     */
+    public CatFileBatch(File directory, ProcessRunner processRunner) throws IOException {
+        process = processRunner.start(List.of("git", "cat-file", "--batch"), directory);
+        requests = new BufferedOutputStream(process.getOutputStream());
+        responses = new BufferedInputStream(process.getInputStream(), 64 * 1024);
+        writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cat-file-requests");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads an object
+     * @param objectName the name of the object, e.g. a commit id, 'HEAD^{tree}' or 'origin/develop:src/main/java/Foo.java'
+     * @return the object or null if it does not exist
+     * @throws IOException if git stopped or its response cannot be read
+     * @throws RuntimeException if git does not answer within the timeout
+     */
+    public synchronized GitObject read(String objectName) throws IOException {
+        ensureOpen();
+        try {
+            return process.request(() -> {
+                writeRequest(objectName);
+                requests.flush();
+                return readResponse();
+            });
+        } catch (IOException | RuntimeException e) {
+            //the requests and the responses are out of step now
+            abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads several objects. All the requests are sent at once, so git does not wait for a request after every object.
+     * @param objectNames the names of the objects
+     * @return the objects in the order of the names, null for an object that does not exist
+     * @throws IOException if git stopped or its responses cannot be read
+     * @throws RuntimeException if git does not answer within the timeout
+     */
+    public synchronized List<GitObject> read(List<String> objectNames) throws IOException {
+        ensureOpen();
+        //the requests are written on another thread, otherwise git blocks on a full output pipe while we block on a full input pipe
+        Future<Void> written = writer.submit(() -> {
+            for (String objectName : objectNames) {
+                writeRequest(objectName);
+            }
+            requests.flush();
+            return null;
+        });
+
+        List<GitObject> objects = new ArrayList<>(objectNames.size());
+        try {
+            process.request(() -> {
+                for (int i = 0; i < objectNames.size(); i++) {
+                    objects.add(readResponse());
+                }
+                return null;
+            });
+            written.get();
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw e;
+        } catch (InterruptedException e) {
+            abort();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading objects", e);
+        } catch (ExecutionException e) {
+            abort();
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+        return objects;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("The cat-file process was closed.");
+        }
+    }
+
+    private void writeRequest(String objectName) throws IOException {
+        if (objectName.indexOf('\n') != -1) {
+            throw new IOException("An object name cannot contain a line break: " + objectName);
+        }
+        requests.write(objectName.getBytes(StandardCharsets.UTF_8));
+        requests.write('\n');
+    }
+
+    /**
+     * Reads '&lt;id&gt; &lt;type&gt; &lt;size&gt;\n&lt;content&gt;\n', or '&lt;name&gt; missing\n' for an object that does not exist
+     */
+    private GitObject readResponse() throws IOException {
+        String header = readLine();
+        if (header.endsWith(" missing") || header.endsWith(" ambiguous")) {
+            return null;
+        }
+        String[] fields = header.split(" ");
+        if (fields.length != 3) {
+            throw new IOException("Unexpected response of git cat-file: " + header);
+        }
+        int size = Integer.parseInt(fields[2]);
+        byte[] content = responses.readNBytes(size);
+        if (content.length != size || responses.read() != '\n') {
+            throw new EOFException("git cat-file stopped while reading " + fields[0]);
+        }
+        return new GitObject(fields[0], fields[1], content);
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = responses.read()) != '\n') {
+            if (b == -1) {
+                throw new EOFException("git cat-file stopped with exit code " + process.getExitCode());
+            }
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Kills git first, so a request that is still being written fails instead of blocking the close
+     */
+    private void abort() {
+        process.destroy();
+        close();
+    }
+
+    /**
+     * Stops git by closing its input and waits a moment for it to exit
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writer.shutdownNow();
+        try {
+            requests.close();
+        } catch (IOException e) {
+            process.destroy();
+        }
+        try {
+            process.stop(CLOSE_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                responses.close();
+            } catch (IOException e) {
+                //the process is gone, there is nothing left to read
+            }
+        }
+    }
+
+    /**
+     * An object of the repository
+     */
+    public static class GitObject {
+
+        private final String id;
+        private final String type;
+        private final byte[] content;
+
+        GitObject(String id, String type, byte[] content) {
+            this.id = id;
+            this.type = type;
+            this.content = content;
+        }
+
+        /**
+         * @return the id of the object
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return the type of the object: 'blob', 'tree', 'commit' or 'tag'
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return the raw content of the object. The content of a tree is binary, see 'git cat-file -p' for its format.
+         */
+        public byte[] getContent() {
+            return content;
+        }
+    }
+}
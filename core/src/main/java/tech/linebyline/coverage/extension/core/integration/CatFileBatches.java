@@ -0,0 +1,65 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * A set of 'git cat-file --batch' processes, one {@link CatFileBatch} per repository. A process is started the first time
+ * it is needed and is shared until {@link #close()}, so reading many objects only starts git once per repository. The
+ * owner closes the processes when it is done, e.g. with try-with-resources, so owners that run in parallel, like the
+ * builds of several modules, do not share or close each other's processes.
+ */
+public class CatFileBatches implements AutoCloseable {
+
+    private final ProcessRunner processRunner;
+
+    /**
+     * The long-lived cat-file process per repository root
+     */
+    private final HashMap<File, CatFileBatch> catFileBatches = new HashMap<>();
+
+    private boolean closed;
+
+    /**
+     * Constructor
+     * @param processRunner the runner the processes are started with, see {@link CatFileBatch#CatFileBatch(File, ProcessRunner)}
+     */
+    public CatFileBatches(ProcessRunner processRunner) {
+        this.processRunner = processRunner;
+    }
+
+    /**
+     * Returns the 'git cat-file --batch' process of the repository that contains the directory
+     * @param directory a directory of the repository, or null for the working directory
+     * @return the cat-file process of the repository
+     * @throws IOException if the directory is not part of a repository, git cannot be started or the processes were closed
+     */
+    public synchronized CatFileBatch get(File directory) throws IOException {
+        if (closed) {
+            throw new IOException("The cat-file processes were closed.");
+        }
+        File repositoryRoot = GitInteractor.findRepositoryRoot(directory == null ? new File("").getAbsoluteFile() : directory);
+        if (repositoryRoot == null) {
+            throw new IOException("No git repository found for " + directory);
+        }
+        CatFileBatch catFileBatch = catFileBatches.get(repositoryRoot);
+        if (catFileBatch == null) {
+            catFileBatch = new CatFileBatch(repositoryRoot, processRunner);
+            catFileBatches.put(repositoryRoot, catFileBatch);
+        }
+        return catFileBatch;
+    }
+
+    /**
+     * Stops the processes, e.g. when the checks are done
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (CatFileBatch catFileBatch : catFileBatches.values()) {
+            catFileBatch.close();
+        }
+        catFileBatches.clear();
+    }
+}
@@ -0,0 +1,250 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An on-disk cache of the analyzed classes. An entry is keyed by the id of the class, which is the CRC64 checksum JaCoCo
+ * computes over the bytes of the class file, together with the probes of the class in the execution data. As long as
+ * neither the bytecode nor the probes of a class change, its coverage is taken from the cache and the class is not analyzed again.
+ * <br></br>
+ * The id has to be the one JaCoCo stores the probes under, and JaCoCo has no public API for it, so it is computed with
+ * the internal {@code org.jacoco.core.internal.data.CRC64} on purpose, see {@link ParallelClassAnalyzer}.
+ * <br></br>
+ * The cache is safe to use from several analysis threads at the same time. A cache file that cannot be read, e.g. because it
+ * was written by another version of this cache or of JaCoCo, is ignored and rebuilt. Another JaCoCo version can
+ * analyze the same class differently, so its entries are not reused.
+ * <br></br>
+ * A run that analyzed the whole class path saves only the classes it used, see {@link #save(boolean)}. The entries of
+ * classes that were deleted, or that were compiled again into a class with another id, are dropped then, so the cache
+ * does not grow with every change. A run that analyzed only the changed classes keeps the other entries.
+ */
+public class ClassAnalysisCache {
+
+    private static final int MAGIC = 0x4C424C43;
+
+    private static final int VERSION = 2;
+
+    private final File cacheFile;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * The ids of the classes that were looked up or added by this run
+     */
+    private final Set<Long> usedClassIds = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private volatile boolean changed;
+
+    private ClassAnalysisCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Loads the cache from disk
+     * @param cacheFile the file the cache is stored in, e.g. 'target/coverage-extension/analysis-cache.bin'
+     * @return the cache. This is an empty cache if the file does not exist yet or cannot be read.
+     */
+    public static ClassAnalysisCache load(File cacheFile) {
+        ClassAnalysisCache cache = new ClassAnalysisCache(cacheFile);
+        if (!cacheFile.isFile()) {
+            return cache;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION || !JaCoCo.VERSION.equals(input.readUTF())) {
+                return cache;
+            }
+            int numberOfEntries = input.readInt();
+            for (int i = 0; i < numberOfEntries; i++) {
+                Entry entry = Entry.read(input);
+                cache.entries.put(entry.classId, entry);
+            }
+        } catch (IOException e) {
+            //a corrupt cache is the same as no cache, it is rebuilt by this run
+            cache.entries.clear();
+            cache.changed = true;
+        }
+        return cache;
+    }
+
+    /**
+     * Looks up the coverage of a class. It is a hit when the class was analyzed before with the same probes.
+     * @param classId the id of the class, the CRC64 checksum JaCoCo computes over the bytes of the class file
+     * @param executionDataStore the execution data the class is analyzed against
+     * @return the cached entry or null if the class needs to be analyzed
+     */
+    Entry get(long classId, ExecutionDataStore executionDataStore) {
+        usedClassIds.add(classId);
+        Entry entry = entries.get(classId);
+        if (entry != null && (entry.isSkipped() || entry.matches(executionDataStore))) {
+            hits.incrementAndGet();
+            return entry;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Adds the result of analyzing a class to the cache
+     * @param classId the id of the class
+     * @param executionDataStore the execution data the class was analyzed against
+     * @param classCoverage the coverage of the class or null if the analyzer skipped the class, e.g. because it is synthetic
+     */
+    void put(long classId, ExecutionDataStore executionDataStore, IClassCoverage classCoverage) {
+        boolean[] probes = getProbes(classId, executionDataStore);
+        usedClassIds.add(classId);
+        entries.put(classId, new Entry(classId, probes == null ? null : probes.clone(), classCoverage));
+        changed = true;
+    }
+
+    private static boolean[] getProbes(long classId, ExecutionDataStore executionDataStore) {
+        ExecutionData executionData = executionDataStore.get(classId);
+        return executionData == null ? null : executionData.getProbes();
+    }
+
+    /**
+     * Writes the cache to disk if anything was added or dropped. The cache is written to a temporary file first, so a cache
+     * file is never half written.
+     * @param dropUnusedClasses true to write only the classes that were used by this run. Only a run that analyzed the
+     *                          whole class path should drop the other classes, a run that analyzed only the changed
+     *                          classes would otherwise drop the classes the next full run needs.
+     * @throws IOException if the cache cannot be written
+     */
+    public void save(boolean dropUnusedClasses) throws IOException {
+        if (dropUnusedClasses && entries.keySet().retainAll(usedClassIds)) {
+            changed = true;
+        }
+        if (!changed) {
+            return;
+        }
+        File directory = cacheFile.getAbsoluteFile().getParentFile();
+        Files.createDirectories(directory.toPath());
+
+        File temporaryFile = File.createTempFile(cacheFile.getName(), ".tmp", directory);
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeUTF(JaCoCo.VERSION);
+                output.writeInt(entries.size());
+                for (Entry entry : entries.values()) {
+                    entry.write(output);
+                }
+            }
+            Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
+        changed = false;
+    }
+
+    /**
+     * The number of classes that were taken from the cache
+     * @return the number of cache hits
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * The number of classes that had to be analyzed
+     * @return the number of cache misses
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * A cached class. Classes that the analyzer skips, like synthetic classes, are cached as well, without coverage.
+     */
+    static class Entry {
+
+        private final long classId;
+        private final boolean[] probes;
+        private final int probesHash;
+        private final IClassCoverage classCoverage;
+
+        private Entry(long classId, boolean[] probes, IClassCoverage classCoverage) {
+            this.classId = classId;
+            this.probes = probes;
+            this.probesHash = Arrays.hashCode(probes);
+            this.classCoverage = classCoverage;
+        }
+
+        /**
+         * The coverage of the class
+         * @return the coverage or null if the analyzer skipped the class
+         */
+        IClassCoverage getClassCoverage() {
+            return classCoverage;
+        }
+
+        boolean isSkipped() {
+            return classCoverage == null;
+        }
+
+        /**
+         * Checks if the class would be analyzed the same way against the execution data. That is the case when the probes
+         * are the same and, for a class that was not executed, the execution data still (or still not) has another version of the class.
+         */
+        private boolean matches(ExecutionDataStore executionDataStore) {
+            boolean[] otherProbes = getProbes(classId, executionDataStore);
+            if (probesHash != Arrays.hashCode(otherProbes) || !Arrays.equals(probes, otherProbes)) {
+                return false;
+            }
+            boolean noMatch = otherProbes == null && executionDataStore.contains(classCoverage.getName());
+            return classCoverage.isNoMatch() == noMatch;
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            output.writeLong(classId);
+            output.writeInt(probes == null ? -1 : probes.length);
+            if (probes != null) {
+                for (boolean probe : probes) {
+                    output.writeBoolean(probe);
+                }
+            }
+            output.writeBoolean(classCoverage != null);
+            if (classCoverage != null) {
+                CachedClassCoverage.write(classCoverage, output);
+            }
+        }
+
+        private static Entry read(DataInputStream input) throws IOException {
+            long classId = input.readLong();
+            int numberOfProbes = input.readInt();
+            boolean[] probes = null;
+            if (numberOfProbes >= 0) {
+                probes = new boolean[numberOfProbes];
+                for (int i = 0; i < numberOfProbes; i++) {
+                    probes[i] = input.readBoolean();
+                }
+            }
+            IClassCoverage classCoverage = input.readBoolean() ? CachedClassCoverage.read(input) : null;
+            return new Entry(classId, probes, classCoverage);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The class files that need to be analyzed, collected from a list of class path entries. An entry can be a directory,
+ * e.g. 'target/classes' or the output directory of a sibling module, an archive like a (shaded) JAR, or a single class file.
+ * <br></br>
+ * Archives are read from the zip central directory and their entries are analyzed straight from the archive, nothing is
+ * extracted to disk. The archives stay open until the class path is closed.
+ * <br></br>
+ * When the same class is found in more than one entry, only the first one is analyzed, just like the JVM only loads the
+ * first one on the class path. The duplicates are reported by {@link #getDuplicateClasses()}.
+ */
+public class ClassPath implements Closeable {
+
+    private final List<ZipFile> archives = new ArrayList<>();
+
+    private final List<ClassFile> classFiles = new ArrayList<>();
+
+    private final Map<String, String> locationPerClassName = new HashMap<>();
+
+    private final Map<String, List<String>> duplicateClasses = new LinkedHashMap<>();
+
+    private ClassPath() {
+    }
+
+    /**
+     * Collects all the class files of the class path entries
+     * @param classPathEntries the directories, archives and class files to analyze
+     * @return the class path. It needs to be closed to close the archives.
+     * @throws IOException if an archive cannot be read
+     */
+    public static ClassPath of(List<File> classPathEntries) throws IOException {
+        return of(classPathEntries, null);
+    }
+
+    /**
+     * Collects the class files of the class path entries that were compiled from the given source files. Only the classes
+     * in the packages of the source files are looked at. For 'com/example/Foo.java' these are 'com/example/Foo.class' and
+     * its nested classes 'com/example/Foo$*.class', and every other class of the package whose SourceFile attribute is
+     * 'Foo.java', e.g. a second top level class in the same file and its nested classes. In a directory, only the package
+     * directories of the source files are listed.
+     * @param classPathEntries the directories, archives and class files to analyze
+     * @param sourceFiles the paths of the source files relative to the source root, e.g. 'com/example/Foo.java', or null to collect all the classes
+     * @return the class path. It needs to be closed to close the archives.
+     * @throws IOException if an archive or a class file cannot be read
+     */
+    public static ClassPath of(List<File> classPathEntries, Set<String> sourceFiles) throws IOException {
+        ClassPath classPath = new ClassPath();
+        HashMap<String, Set<String>> sourceFileNamesPerPackage = sourceFiles == null ? null : getSourceFileNamesPerPackage(sourceFiles);
+        try {
+            for (File classPathEntry : classPathEntries) {
+                if (classPathEntry.isDirectory()) {
+                    classPath.addDirectory(classPathEntry, sourceFileNamesPerPackage);
+                } else if (isArchive(classPathEntry.getName())) {
+                    classPath.addArchive(classPathEntry, sourceFileNamesPerPackage);
+                } else {
+                    classPath.classFiles.add(new ClassFile(null, classPathEntry, null, null));
+                }
+            }
+        } catch (IOException e) {
+            classPath.close();
+            throw e;
+        }
+        return classPath;
+    }
+
+    /**
+     * Groups the source files by package, e.g. 'com/example/Foo.java' becomes 'com/example' with 'Foo.java'
+     */
+    private static HashMap<String, Set<String>> getSourceFileNamesPerPackage(Set<String> sourceFiles) {
+        HashMap<String, Set<String>> sourceFileNamesPerPackage = new HashMap<>();
+        for (String sourceFile : sourceFiles) {
+            int packageSeparator = sourceFile.lastIndexOf('/');
+            String packageName = packageSeparator == -1 ? "" : sourceFile.substring(0, packageSeparator);
+            sourceFileNamesPerPackage.computeIfAbsent(packageName, key -> new HashSet<>()).add(sourceFile.substring(packageSeparator + 1));
+        }
+        return sourceFileNamesPerPackage;
+    }
+
+    private void addDirectory(File directory, HashMap<String, Set<String>> sourceFileNamesPerPackage) throws IOException {
+        if (sourceFileNamesPerPackage == null) {
+            addFiles(directory, directory);
+            return;
+        }
+
+        for (Map.Entry<String, Set<String>> entry : sourceFileNamesPerPackage.entrySet()) {
+            File[] filesInPackage = (entry.getKey().isEmpty() ? directory : new File(directory, entry.getKey())).listFiles();
+            if (filesInPackage == null) {
+                continue;
+            }
+            for (File file : filesInPackage) {
+                if (file.getName().endsWith(".class")) {
+                    ClassFile classFile = new ClassFile(getClassName(directory, file), file, null, null);
+                    if (isCompiledFrom(classFile, entry.getValue())) {
+                        addClassFile(classFile);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addFiles(File root, File directory) {
+        File[] filesInDirectory = directory.listFiles();
+        if (filesInDirectory == null) {
+            return;
+        }
+        for (File file : filesInDirectory) {
+            if (file.isDirectory()) {
+                addFiles(root, file);
+            } else if (file.getName().endsWith(".class")) {
+                addClassFile(new ClassFile(getClassName(root, file), file, null, null));
+            } else if (isArchive(file.getName())) {
+                //an archive inside a directory is analyzed as a whole, just like Analyzer#analyzeAll(File) does
+                classFiles.add(new ClassFile(null, file, null, null));
+            }
+        }
+    }
+
+    private void addArchive(File archive, HashMap<String, Set<String>> sourceFileNamesPerPackage) throws IOException {
+        ZipFile zipFile = new ZipFile(archive);
+        archives.add(zipFile);
+
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            String entryName = entry.getName();
+            if (entry.isDirectory()) {
+                continue;
+            }
+
+            if (entryName.endsWith(".class")) {
+                //the classes for other Java versions in a multi-release JAR are variants of the classes in the root of the archive
+                if (entryName.startsWith("META-INF/versions/")) {
+                    continue;
+                }
+                String className = getClassNameOfEntry(entryName);
+                ClassFile classFile = new ClassFile(className, archive, zipFile, entry);
+                if (sourceFileNamesPerPackage == null) {
+                    addClassFile(classFile);
+                } else {
+                    int packageSeparator = className.lastIndexOf('/');
+                    Set<String> sourceFileNames = sourceFileNamesPerPackage.get(packageSeparator == -1 ? "" : className.substring(0, packageSeparator));
+                    if (sourceFileNames != null && isCompiledFrom(classFile, sourceFileNames)) {
+                        addClassFile(classFile);
+                    }
+                }
+            } else if (isArchive(entryName) && sourceFileNamesPerPackage == null) {
+                //nested archives, e.g. the libraries of a Spring Boot JAR, are streamed through the analyzer as a whole
+                classFiles.add(new ClassFile(null, archive, zipFile, entry));
+            }
+        }
+    }
+
+    private void addClassFile(ClassFile classFile) {
+        String className = classFile.getClassName();
+        //the analyzer never reports module descriptors, so these are no duplicates either
+        if ("module-info".equals(className)) {
+            return;
+        }
+
+        String firstLocation = locationPerClassName.putIfAbsent(className, classFile.getLocation());
+        if (firstLocation != null) {
+            duplicateClasses.computeIfAbsent(className, key -> new ArrayList<>(List.of(firstLocation))).add(classFile.getLocation());
+            return;
+        }
+        classFiles.add(classFile);
+    }
+
+    /**
+     * Spring Boot and web archives keep their own classes in 'BOOT-INF/classes' and 'WEB-INF/classes', the name of the class starts after that
+     */
+    private static String getClassNameOfEntry(String entryName) {
+        String className = entryName.substring(0, entryName.length() - ".class".length());
+        for (String classesDirectory : new String[]{"BOOT-INF/classes/", "WEB-INF/classes/"}) {
+            if (className.startsWith(classesDirectory)) {
+                return className.substring(classesDirectory.length());
+            }
+        }
+        return className;
+    }
+
+    private static String getClassName(File root, File classFile) {
+        String relativePath = root.toPath().relativize(classFile.toPath()).toString().replace(File.separatorChar, '/');
+        return relativePath.substring(0, relativePath.length() - ".class".length());
+    }
+
+    /**
+     * Checks whether a class of the package of the source files was compiled from one of them. A top level class named
+     * after a source file and its nested classes are, other classes only if their SourceFile attribute names one of the
+     * source files. Only those other classes need to be read.
+     * @param classFile the class file in the package of the source files
+     * @param sourceFileNames the names of the source files, e.g. 'Foo.java'
+     */
+    private static boolean isCompiledFrom(ClassFile classFile, Set<String> sourceFileNames) throws IOException {
+        String topLevelClassName = getTopLevelClassName(classFile.getClassName());
+        if (sourceFileNames.contains(topLevelClassName.substring(topLevelClassName.lastIndexOf('/') + 1) + ".java")) {
+            return true;
+        }
+        String sourceFileName = getSourceFileName(classFile.readBytes());
+        return sourceFileName != null && sourceFileNames.contains(sourceFileName);
+    }
+
+    /**
+     * Reads the SourceFile attribute of a class, the name of the source file the class was compiled from, e.g. 'Foo.java'
+     * @param classBytes the class file
+     * @return the name of the source file or null if the class was compiled without it or cannot be read
+     */
+    static String getSourceFileName(byte[] classBytes) {
+        String[] sourceFileName = new String[1];
+        try {
+            new ClassReader(classBytes).accept(new ClassVisitor(Opcodes.ASM9) {
+                @Override
+                public void visitSource(String source, String debug) {
+                    sourceFileName[0] = source;
+                }
+            }, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+        } catch (RuntimeException e) {
+            //a class file the reader does not understand is not analyzed either
+            return null;
+        }
+        return sourceFileName[0];
+    }
+
+    /**
+     * Nested classes are compiled to 'Outer$Inner.class', these belong to the source file of the outer class
+     */
+    private static String getTopLevelClassName(String className) {
+        int nestedSeparator = className.indexOf('$', className.lastIndexOf('/') + 1);
+        return nestedSeparator == -1 ? className : className.substring(0, nestedSeparator);
+    }
+
+    private static boolean isArchive(String fileName) {
+        String lowerCaseName = fileName.toLowerCase();
+        return lowerCaseName.endsWith(".jar") || lowerCaseName.endsWith(".zip") || lowerCaseName.endsWith(".war") || lowerCaseName.endsWith(".ear");
+    }
+
+    /**
+     * The class files to analyze, in class path order
+     * @return the class files
+     */
+    public List<ClassFile> getClassFiles() {
+        return classFiles;
+    }
+
+    /**
+     * The VM names of the classes on the class path, e.g. 'com/example/Foo$Bar'. These match the names in the execution data.
+     * @return the names of the classes or null if not all the names are known, e.g. because a nested archive or a loose class file is analyzed
+     */
+    public Set<String> getClassNames() {
+        Set<String> classNames = new HashSet<>(classFiles.size() * 2);
+        for (ClassFile classFile : classFiles) {
+            if (classFile.getClassName() == null) {
+                return null;
+            }
+            classNames.add(classFile.getClassName());
+        }
+        return classNames;
+    }
+
+    /**
+     * The classes that were found in more than one class path entry. Only the first location is analyzed.
+     * @return the locations per duplicate class name
+     */
+    public Map<String, List<String>> getDuplicateClasses() {
+        return duplicateClasses;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (ZipFile archive : archives) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        archives.clear();
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * A class file on disk or in an archive. Archives that are analyzed as a whole are represented by a class file without a class name.
+     */
+    public static class ClassFile {
+
+        private final String className;
+        private final File file;
+        private final ZipFile archive;
+        private final ZipEntry entry;
+
+        ClassFile(String className, File file, ZipFile archive, ZipEntry entry) {
+            this.className = className;
+            this.file = file;
+            this.archive = archive;
+            this.entry = entry;
+        }
+
+        /**
+         * The VM name of the class, e.g. 'com/example/Foo$Bar'
+         * @return the name of the class or null if it is not known
+         */
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * The location of the class file, used in error messages. For an entry of an archive this is 'archive.jar@com/example/Foo.class'.
+         * @return the location of the class file
+         */
+        public String getLocation() {
+            return entry == null ? file.getPath() : file.getPath() + "@" + entry.getName();
+        }
+
+        /**
+         * Whether this is a single class file, rather than an archive that is analyzed as a whole
+         * @return true if the file is a class file
+         */
+        boolean isClassFile() {
+            return entry == null ? file.getName().endsWith(".class") : entry.getName().endsWith(".class");
+        }
+
+        /**
+         * Opens the class file. An entry of an archive is read straight from the archive.
+         * @return the content of the class file
+         * @throws IOException if the class file cannot be read
+         */
+        public InputStream open() throws IOException {
+            return entry == null ? Files.newInputStream(file.toPath()) : archive.getInputStream(entry);
+        }
+
+        /**
+         * Reads the class file
+         * @return the bytes of the class file
+         * @throws IOException if the class file cannot be read
+         */
+        byte[] readBytes() throws IOException {
+            if (entry == null) {
+                return Files.readAllBytes(file.toPath());
+            }
+            try (InputStream inputStream = archive.getInputStream(entry)) {
+                return inputStream.readAllBytes();
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An on-disk cache of the last diff. The changed files and the intervals of the changed lines are stored together with
+ * the key of the diff, see {@link GitInteractor#getDiffCacheKey(String, File, java.util.List)}. When the branch to compare, HEAD
+ * and the working tree did not change since the previous build, the diff is read from the cache instead of being computed again.
+ * A hit is not free: the key is built with 'git rev-parse' and 'git status', and the status looks at every tracked file of
+ * the pathspecs. The cache saves the time of the diff itself, which is what matters for a large changeset.
+ * When only HEAD moved, the cached diff can be the starting point of an incremental diff, see {@link IncrementalDiff}.
+ * <br></br>
+ * Only the last diff is kept. A cache file that cannot be read, e.g. because it was written by another version, is ignored and rebuilt.
+ */
+public class DiffCache {
+
+    private static final int MAGIC = 0x4C424C44;
+
+    private static final int VERSION = 3;
+
+    private final File cacheFile;
+
+    private Key key;
+
+    private ChangeSet changes;
+
+    private boolean changed;
+
+    private DiffCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Loads the cache from disk
+     * @param cacheFile the file the cache is stored in, e.g. 'target/coverage-extension/diff-cache.bin'
+     * @return the cache. This is an empty cache if the file does not exist yet or cannot be read.
+     */
+    public static DiffCache load(File cacheFile) {
+        DiffCache cache = new DiffCache(cacheFile);
+        if (!cacheFile.isFile()) {
+            return cache;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return cache;
+            }
+            Key key = Key.read(input);
+            ChangeSet changes = readChanges(input);
+            cache.key = key;
+            cache.changes = changes;
+        } catch (IOException e) {
+            //a corrupt cache is the same as no cache, it is rebuilt by this run
+            cache.key = null;
+            cache.changes = null;
+        }
+        return cache;
+    }
+
+    /**
+     * Looks up the diff
+     * @param key the key of the diff
+     * @return the cached changes or null if the cache holds the diff of another key
+     */
+    ChangeSet get(Key key) {
+        return key.equals(this.key) ? changes : null;
+    }
+
+    /**
+     * The key of the cached diff
+     * @return the key or null if the cache is empty
+     */
+    Key getKey() {
+        return key;
+    }
+
+    /**
+     * The cached diff, whatever its key
+     * @return the changes or null if the cache is empty
+     */
+    ChangeSet getChanges() {
+        return changes;
+    }
+
+    /**
+     * Replaces the cached diff
+     * @param key the key of the diff
+     * @param changes the changes of the diff
+     */
+    void put(Key key, ChangeSet changes) {
+        this.key = key;
+        this.changes = changes;
+        this.changed = true;
+    }
+
+    /**
+     * Writes the cache to disk if a diff was added. The cache is written to a temporary file first, so a cache file is never half written.
+     * @throws IOException if the cache cannot be written
+     */
+    public void save() throws IOException {
+        if (!changed) {
+            return;
+        }
+        File directory = cacheFile.getAbsoluteFile().getParentFile();
+        Files.createDirectories(directory.toPath());
+
+        File temporaryFile = File.createTempFile(cacheFile.getName(), ".tmp", directory);
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                key.write(output);
+                writeChanges(changes, output);
+            }
+            Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
+        changed = false;
+    }
+
+    private static void writeChanges(ChangeSet changes, DataOutputStream output) throws IOException {
+        output.writeInt(changes.getChangedFiles().size());
+        for (File changedFile : changes.getChangedFiles()) {
+            output.writeUTF(changedFile.getPath());
+        }
+        output.writeInt(changes.getChangedLines().size());
+        for (Map.Entry<String, ChangedLines> entry : changes.getChangedLines().entrySet()) {
+            ChangedLines changedLines = entry.getValue();
+            output.writeUTF(entry.getKey());
+            output.writeInt(changedLines.getNumberOfIntervals());
+            for (int i = 0; i < changedLines.getNumberOfIntervals(); i++) {
+                output.writeInt(changedLines.getStart(i));
+                output.writeInt(changedLines.getEnd(i));
+            }
+        }
+    }
+
+    private static ChangeSet readChanges(DataInputStream input) throws IOException {
+        int numberOfFiles = input.readInt();
+        Set<File> changedFiles = new HashSet<>();
+        for (int i = 0; i < numberOfFiles; i++) {
+            changedFiles.add(new File(input.readUTF()));
+        }
+
+        int numberOfChangedLines = input.readInt();
+        HashMap<String, ChangedLines> changedLines = new HashMap<>();
+        ChangedLines.Builder builder = new ChangedLines.Builder();
+        for (int i = 0; i < numberOfChangedLines; i++) {
+            String path = input.readUTF();
+            int numberOfIntervals = input.readInt();
+            for (int j = 0; j < numberOfIntervals; j++) {
+                builder.add(input.readInt(), input.readInt());
+            }
+            changedLines.put(path, builder.build());
+        }
+        return new ChangeSet(changedFiles, changedLines);
+    }
+
+    /**
+     * The key of a diff: the commits that were diffed, what was diffed and the state of the working tree
+     */
+    static class Key {
+
+        private final String baseCommit;
+        private final String headCommit;
+        private final String scope;
+        private final String workingTreeFingerprint;
+
+        /**
+         * @param baseCommit the commit the branch to compare resolved to
+         * @param headCommit the HEAD commit
+         * @param scope the directory and the pathspecs of the diff
+         * @param workingTreeFingerprint the fingerprint of the modified and staged files, an empty String if there are none
+         */
+        Key(String baseCommit, String headCommit, String scope, String workingTreeFingerprint) {
+            this.baseCommit = baseCommit;
+            this.headCommit = headCommit;
+            this.scope = scope;
+            this.workingTreeFingerprint = workingTreeFingerprint;
+        }
+
+        String getHeadCommit() {
+            return headCommit;
+        }
+
+        /**
+         * @return true if the working tree had no modified or staged files, so the diff is the diff of the HEAD commit
+         */
+        boolean isWorkingTreeClean() {
+            return workingTreeFingerprint.isEmpty();
+        }
+
+        /**
+         * Checks whether the diff of this key can be updated to the diff of the other key by only diffing this HEAD against
+         * the other working tree. That is the case when the same base commit and paths are diffed and this diff did not
+         * contain changes of the working tree, because those are not part of any commit that can be diffed against.
+         * @param other the key of the current state
+         * @return true if an incremental diff can be used
+         */
+        boolean canBeUpdatedTo(Key other) {
+            return isWorkingTreeClean() && baseCommit.equals(other.baseCommit) && scope.equals(other.scope);
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            output.writeUTF(baseCommit);
+            output.writeUTF(headCommit);
+            output.writeUTF(scope);
+            output.writeUTF(workingTreeFingerprint);
+        }
+
+        private static Key read(DataInputStream input) throws IOException {
+            return new Key(input.readUTF(), input.readUTF(), input.readUTF(), input.readUTF());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return baseCommit.equals(other.baseCommit) && headCommit.equals(other.headCommit) && scope.equals(other.scope)
+                    && workingTreeFingerprint.equals(other.workingTreeFingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(baseCommit, headCommit, scope, workingTreeFingerprint);
+        }
+
+        @Override
+        public String toString() {
+            return baseCommit + ".." + headCommit + " " + scope + (isWorkingTreeClean() ? "" : " +" + workingTreeFingerprint);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Set;
+
+/**
+ * Provides the changes of the working tree compared to another branch, like 'git diff branchToCompare' does.
+ * The paths are relative to the root of the repository, e.g. 'module/src/main/java/com/example/Foo.java'.
+ */
+public interface DiffProvider {
+
+    /**
+     * Get an overview of the changed files in the current branch compared to the branchToCompare
+     * @param branchToCompare the branch to compare the current branch to
+     * @return a set of files that have changed, including the deleted files
+     * @throws RuntimeException if the changed files cannot be determined
+     */
+    Set<File> getOverviewOfChangedFiles(String branchToCompare) throws RuntimeException;
+
+    /**
+     * Returns an overview of the changed lines per file in the current branch compared to the branchToCompare
+     * @param branchToCompare the branch to compare the current branch to
+     * @return a map with the path of the file relative to the repository root as key and the changed lines as value.
+     * These line numbers need to match with the line numbers that Jacoco uses
+     * @throws IOException if the diff cannot be created
+     * @throws InterruptedException if the diff cannot be created
+     */
+    HashMap<String, ChangedLines> getChangedLines(String branchToCompare) throws IOException, InterruptedException;
+
+    /**
+     * Returns the changed files and the changed lines per file in the current branch compared to the branchToCompare,
+     * computed in a single pass over the diff
+     * @param branchToCompare the branch to compare the current branch to
+     * @return the changed files and the changed lines per file
+     * @throws IOException if the diff cannot be created
+     * @throws InterruptedException if the diff cannot be created
+     */
+    ChangeSet getChanges(String branchToCompare) throws IOException, InterruptedException;
+}
@@ -0,0 +1,309 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.SessionInfoStore;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads a JaCoCo exec file into an {@link ExecutionDataStore}. Large exec files are read through a memory-mapped
+ * {@link FileChannel}, small ones through a large buffer. The file is always closed once it has been read.
+ * The number of bytes read and the time it took are kept, so the throughput can be reported.
+ * <br></br>
+ * When a class name filter is set, only the execution data of those classes is stored. Exec files usually contain the
+ * probes of test classes and dependencies as well, which are never analyzed.
+ */
+public class ExecutionDataLoader {
+
+    /**
+     * Exec files of at least this size are memory-mapped, smaller files are read through a buffer
+     */
+    static final long MAPPING_THRESHOLD = 1024 * 1024;
+
+    /**
+     * The size of the window that is mapped at once. Mapping the file in windows keeps exec files larger than 2GB readable.
+     */
+    static final int MAPPING_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The size of the buffer for the exec files that are not memory-mapped
+     */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Set<String> classNames;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private final AtomicLong skippedRecords = new AtomicLong();
+
+    private final AtomicLong loadTimeNanos = new AtomicLong();
+
+    /**
+     * Constructor for a loader that stores the execution data of all the classes in the exec file
+     */
+    public ExecutionDataLoader() {
+        this(null);
+    }
+
+    /**
+     * Constructor for a loader that only stores the execution data of the given classes
+     * @param classNames the VM names of the classes to keep, e.g. 'com/example/Foo$Bar', or null to keep all the classes
+     */
+    public ExecutionDataLoader(Set<String> classNames) {
+        this.classNames = classNames;
+    }
+
+    /**
+     * Reads the exec file into a new execution data store
+     * @param jacocoExecFile the Jacoco.exec file
+     * @return the execution data of the exec file
+     * @throws IOException if the exec file cannot be read
+     */
+    public ExecutionDataStore load(File jacocoExecFile) throws IOException {
+        ExecutionDataStore executionData = new ExecutionDataStore();
+        load(jacocoExecFile, executionData);
+        return executionData;
+    }
+
+    /**
+     * Reads the exec file into the given execution data store. Execution data of a class that is already in the store
+     * is merged with the existing data.
+     * @param jacocoExecFile the Jacoco.exec file
+     * @param executionData the execution data store to add the execution data to
+     * @throws IOException if the exec file cannot be read
+     */
+    public void load(File jacocoExecFile, ExecutionDataStore executionData) throws IOException {
+        long start = System.nanoTime();
+        read(jacocoExecFile, executionData);
+        loadTimeNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    /**
+     * Reads the exec files concurrently and merges them into one execution data store. Each exec file is read into
+     * its own store first. The probes of a class that is in several exec files are OR-ed, just like jacoco:merge does,
+     * but without writing an intermediate file.
+     * @param jacocoExecFiles the Jacoco.exec files, e.g. of the unit tests, the integration tests and each surefire fork
+     * @param threads the maximum number of exec files that are read at the same time
+     * @return the merged execution data of the exec files
+     * @throws IOException if one of the exec files cannot be read
+     */
+    public ExecutionDataStore load(List<File> jacocoExecFiles, int threads) throws IOException {
+        if (jacocoExecFiles.size() == 1 || threads == 1) {
+            ExecutionDataStore executionData = new ExecutionDataStore();
+            for (File jacocoExecFile : jacocoExecFiles) {
+                load(jacocoExecFile, executionData);
+            }
+            return executionData;
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, jacocoExecFiles.size()));
+        try {
+            List<Future<ExecutionDataStore>> futures = new ArrayList<>();
+            for (File jacocoExecFile : jacocoExecFiles) {
+                futures.add(executor.submit(() -> {
+                    ExecutionDataStore executionData = new ExecutionDataStore();
+                    read(jacocoExecFile, executionData);
+                    return executionData;
+                }));
+            }
+
+            ExecutionDataStore mergedExecutionData = new ExecutionDataStore();
+            for (Future<ExecutionDataStore> future : futures) {
+                future.get().accept(mergedExecutionData);
+            }
+            return mergedExecutionData;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to read the exec files: " + e.getCause(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the exec files", e);
+        } finally {
+            executor.shutdownNow();
+            loadTimeNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Keeps only the execution data of the given classes, for execution data that was loaded before the classes to analyze
+     * were known. The records of the other classes are counted as skipped, just like the class name filter counts them.
+     * @param executionData the execution data that was loaded without a class name filter
+     * @param classNames the VM names of the classes to keep, e.g. 'com/example/Foo$Bar'
+     * @return the execution data of the given classes
+     */
+    public ExecutionDataStore filter(ExecutionDataStore executionData, Set<String> classNames) {
+        ExecutionDataStore filteredExecutionData = new ExecutionDataStore();
+        for (ExecutionData data : executionData.getContents()) {
+            if (classNames.contains(data.getName())) {
+                filteredExecutionData.put(data);
+            } else {
+                skippedRecords.incrementAndGet();
+            }
+        }
+        return filteredExecutionData;
+    }
+
+    private void read(File jacocoExecFile, IExecutionDataVisitor executionData) throws IOException {
+        long size = jacocoExecFile.length();
+
+        try (InputStream inputStream = open(jacocoExecFile, size)) {
+            ExecutionDataReader reader = new ExecutionDataReader(inputStream);
+            reader.setExecutionDataVisitor(classNames == null ? executionData : new ClassNameFilter(executionData));
+            reader.setSessionInfoVisitor(new SessionInfoStore());
+            reader.read();
+        }
+
+        bytesRead.addAndGet(size);
+    }
+
+    private static InputStream open(File jacocoExecFile, long size) throws IOException {
+        if (size >= MAPPING_THRESHOLD) {
+            return new MappedFileInputStream(FileChannel.open(jacocoExecFile.toPath(), StandardOpenOption.READ));
+        }
+        return new BufferedInputStream(new FileInputStream(jacocoExecFile), BUFFER_SIZE);
+    }
+
+    /**
+     * The total number of bytes that have been read by this loader
+     * @return the number of bytes read
+     */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * The number of execution data records that were not stored because their class is not in the class name filter
+     * @return the number of skipped records
+     */
+    public long getSkippedRecords() {
+        return skippedRecords.get();
+    }
+
+    /**
+     * The total time this loader spent reading exec files. Exec files that are read concurrently count once.
+     * @return the load time in nanoseconds
+     */
+    public long getLoadTimeNanos() {
+        return loadTimeNanos.get();
+    }
+
+    /**
+     * The throughput of this loader
+     * @return the number of bytes read per second, or 0 if nothing has been read yet
+     */
+    public double getBytesPerSecond() {
+        long nanos = loadTimeNanos.get();
+        if (nanos == 0) {
+            return 0;
+        }
+        return bytesRead.get() / (nanos / 1_000_000_000.0);
+    }
+
+    /**
+     * Only passes the execution data of the classes in the class name filter on to the store
+     */
+    private class ClassNameFilter implements IExecutionDataVisitor {
+
+        private final IExecutionDataVisitor delegate;
+
+        ClassNameFilter(IExecutionDataVisitor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void visitClassExecution(ExecutionData data) {
+            if (classNames.contains(data.getName())) {
+                delegate.visitClassExecution(data);
+            } else {
+                skippedRecords.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Reads a file channel through consecutive memory-mapped windows. Closing the stream closes the channel, which
+     * releases the file handle. The mapped windows themselves are released by the garbage collector.
+     */
+    static class MappedFileInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long size;
+        private long position;
+        private MappedByteBuffer window;
+
+        MappedFileInputStream(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        /**
+         * Maps the next window of the file when the current window is exhausted
+         * @return true if there is data left to read, false at the end of the file
+         */
+        private boolean ensureWindow() throws IOException {
+            if (window != null && window.hasRemaining()) {
+                return true;
+            }
+            if (position >= size) {
+                return false;
+            }
+            long length = Math.min(MAPPING_WINDOW_SIZE, size - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            position += length;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureWindow()) {
+                return -1;
+            }
+            return window.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!ensureWindow()) {
+                return -1;
+            }
+            int count = Math.min(length, window.remaining());
+            window.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return window == null ? 0 : window.remaining();
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The status of a changed file as 'git diff --name-status -M' reports it, e.g. 'M' for a modified file or 'R087' for a
+ * file that was renamed and for 87% stays the same. The paths are relative to the repository root.
+ */
+public class FileStatus {
+
+    private final char status;
+
+    private final int similarity;
+
+    private final String oldPath;
+
+    private final String path;
+
+    /**
+     * @param status the letter of the status, e.g. 'A', 'M', 'R' or 'C'
+     * @param similarity the similarity of a renamed or copied file in percent, or -1 for the other files
+     * @param oldPath the path the file was renamed or copied from, or null for the other files
+     * @param path the path of the file in the current branch
+     */
+    FileStatus(char status, int similarity, String oldPath, String path) {
+        this.status = status;
+        this.similarity = similarity;
+        this.oldPath = oldPath;
+        this.path = path;
+    }
+
+    public char getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the similarity of a renamed or copied file in percent, or -1 for the other files
+     */
+    public int getSimilarity() {
+        return similarity;
+    }
+
+    /**
+     * @return the path the file was renamed or copied from, or null if it was not renamed or copied
+     */
+    public String getOldPath() {
+        return oldPath;
+    }
+
+    /**
+     * @return the path of the file in the current branch
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * A file that was only moved has no changed lines, so there is nothing to cover
+     * @return true if the file was renamed without changing its content
+     */
+    public boolean isPureRename() {
+        return status == 'R' && similarity == 100;
+    }
+
+    /**
+     * Parses the output of 'git diff --name-status -z'. The entries are 'status\0path\0', or 'status\0old path\0new path\0'
+     * for renames and copies.
+     * @param output the output of git
+     * @return the status per changed file, in the order of the output
+     */
+    static List<FileStatus> parse(byte[] output) {
+        List<FileStatus> fileStatuses = new ArrayList<>();
+        String[] fields = new String(output, StandardCharsets.UTF_8).split("\u0000");
+        int i = 0;
+        while (i < fields.length) {
+            String status = fields[i++];
+            if (status.isEmpty() || i >= fields.length) {
+                continue;
+            }
+            char letter = status.charAt(0);
+            if ((letter == 'R' || letter == 'C') && i + 1 < fields.length) {
+                fileStatuses.add(new FileStatus(letter, parseSimilarity(status), fields[i], fields[i + 1]));
+                i += 2;
+            } else {
+                fileStatuses.add(new FileStatus(letter, -1, null, fields[i]));
+                i++;
+            }
+        }
+        return fileStatuses;
+    }
+
+    private static int parseSimilarity(String status) {
+        try {
+            return Integer.parseInt(status.substring(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return status + (similarity == -1 ? "" : String.format("%03d", similarity)) + " " + (oldPath == null ? "" : oldPath + " -> ") + path;
+    }
+}
@@ -1,21 +1,42 @@
 package tech.linebyline.coverage.extension.core.integration;
 
-import java.io.BufferedReader;
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class to interact with git
  */
 public class GitInteractor {
 
+    /**
+     * The options that are passed to every diff. External diff drivers, textconv filters and colors from the user's git
+     * config would slow the diff down or change its output. Renames are always detected, whatever 'diff.renames' is set
+     * to, so a moved file is diffed against its old path.
+     */
+    private static final List<String> DIFF_OPTIONS = List.of("--no-ext-diff", "--no-textconv", "--no-color", "-M");
+
+    /**
+     * Deleted files have no lines left to cover, so they are left out of the diff against the branch to compare
+     */
+    static final String EXCLUDE_DELETED_FILES = "--diff-filter=d";
+
     /**
      * Get an overview of the changed files in the current branch compared to the branchToCompare
      * @param nameOfBranchToCompare the branch to compare the current branch to
@@ -23,118 +44,466 @@ public class GitInteractor {
      * @throws RuntimeException
      */
     public static Set<File> getOverviewOfChangedFiles(String nameOfBranchToCompare) throws RuntimeException {
-        Set<File> changedFiles = new HashSet<>();
+        return getOverviewOfChangedFiles(nameOfBranchToCompare, null, List.of());
+    }
 
-        try {
-            ProcessBuilder processBuilder = new ProcessBuilder();
-            processBuilder.command("git", "diff", "--name-status", nameOfBranchToCompare);
+    /**
+     * Get an overview of the changed files in the current branch compared to the branchToCompare, limited to the pathspecs.
+     * A renamed file is listed with its new path and a file that was only renamed is left out, see {@link #getStatusOfChangedFiles(String, File, List)}.
+     * @param nameOfBranchToCompare the branch to compare the current branch to
+     * @param directory the directory git is run in, e.g. the project base directory, or null for the working directory
+     * @param pathspecs the pathspecs relative to the directory, see {@link #getJavaPathspecs(File, String[])}, or an empty list for the whole repository
+     * @return a set of files that have changed, relative to the repository root
+     * @throws RuntimeException
+     */
+    public static Set<File> getOverviewOfChangedFiles(String nameOfBranchToCompare, File directory, List<String> pathspecs) throws RuntimeException {
+        return getOverviewOfChangedFiles(nameOfBranchToCompare, directory, pathspecs, new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT));
+    }
 
-            Process process = processBuilder.start();
+    /**
+     * Get an overview of the changed files, see {@link #getOverviewOfChangedFiles(String, File, List)}
+     * @param nameOfBranchToCompare the branch to compare the current branch to
+     * @param directory the directory git is run in, e.g. the project base directory, or null for the working directory
+     * @param pathspecs the pathspecs relative to the directory, or an empty list for the whole repository
+     * @param processRunner the runner git is run with
+     * @return a set of files that have changed, relative to the repository root
+     * @throws RuntimeException
+     */
+    public static Set<File> getOverviewOfChangedFiles(String nameOfBranchToCompare, File directory, List<String> pathspecs, ProcessRunner processRunner) throws RuntimeException {
+        Set<File> changedFiles = new HashSet<>();
 
-            // Read the output of the command
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    // Add each changed file (line) to the list
-                    changedFiles.add(new File(line.split("\t")[1]));
+        try {
+            for (FileStatus fileStatus : getStatusOfChangedFiles(nameOfBranchToCompare, directory, pathspecs, processRunner)) {
+                if (!fileStatus.isPureRename()) {
+                    changedFiles.add(new File(fileStatus.getPath()));
                 }
             }
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException("Unable to create list of changed files: " + e);
+        }
+
+        return changedFiles;
+    }
+
+    /**
+     * Returns the status of every changed file in the current branch compared to the branchToCompare, with
+     * 'git diff --name-status -M -z'. Renames are detected, so a moved file is a single entry with its old and its new path
+     * instead of a deleted and an added file.
+     * @param nameOfBranchToCompare the branch to compare the current branch to
+     * @param directory the directory git is run in, e.g. the project base directory, or null for the working directory
+     * @param pathspecs the pathspecs relative to the directory, or an empty list for the whole repository
+     * @return the status per changed file, without the deleted files
+     * @throws IOException if the git command fails
+     * @throws InterruptedException if the git command fails
+     */
+    public static List<FileStatus> getStatusOfChangedFiles(String nameOfBranchToCompare, File directory, List<String> pathspecs) throws IOException, InterruptedException {
+        return getStatusOfChangedFiles(nameOfBranchToCompare, directory, pathspecs, new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT));
+    }
 
-            int exitCode = process.waitFor();
+    /**
+     * Returns the status of every changed file, see {@link #getStatusOfChangedFiles(String, File, List)}
+     * @param nameOfBranchToCompare the branch to compare the current branch to
+     * @param directory the directory git is run in, e.g. the project base directory, or null for the working directory
+     * @param pathspecs the pathspecs relative to the directory, or an empty list for the whole repository
+     * @param processRunner the runner git is run with
+     * @return the status per changed file, without the deleted files
+     * @throws IOException if the git command fails
+     * @throws InterruptedException if the git command fails
+     */
+    public static List<FileStatus> getStatusOfChangedFiles(String nameOfBranchToCompare, File directory, List<String> pathspecs, ProcessRunner processRunner) throws IOException, InterruptedException {
+        List<String> command = createDiffCommand(List.of(EXCLUDE_DELETED_FILES, "--name-status", "-z"), nameOfBranchToCompare, pathspecs);
+        return FileStatus.parse(runGitCommand(command, directory, InputStream::readAllBytes, processRunner));
+    }
 
-            if(exitCode != 0){
-                String completeError = "";
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        // Add each changed file (line) to the list
-                        completeError += line;
-                    }
+    /**
+     * Get an overview of the changed files, see {@link #getOverviewOfChangedFiles(String, File, List)}. When the diff cache
+     * holds the diff of the same commits and working tree, the changed files are taken from the cache.
+     * @param nameOfBranchToCompare the branch to compare the current branch to
+     * @param directory the directory git is run in, e.g. the project base directory, or null for the working directory
+     * @param pathspecs the pathspecs relative to the directory, or an empty list for the whole repository
+     * @param cacheFile the file the last diff is cached in, or null to not use the cache
+     * @param processRunner the runner git is run with
+     * @return a set of files that have changed, relative to the repository root
+     * @throws RuntimeException
+     */
+    public static Set<File> getOverviewOfChangedFiles(String nameOfBranchToCompare, File directory, List<String> pathspecs, File cacheFile, ProcessRunner processRunner) throws RuntimeException {
+        if (cacheFile != null) {
+            try {
+                DiffCache.Key key = getDiffCacheKey(nameOfBranchToCompare, directory, pathspecs, processRunner);
+                ChangeSet cachedChanges = key == null ? null : DiffCache.load(cacheFile).get(key);
+                if (cachedChanges != null) {
+                    return cachedChanges.getChangedFiles();
                 }
-                throw new RuntimeException("Error getting overview of changed files. Exit code: " + completeError);
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException("Unable to create list of changed files: " + e);
             }
+        }
+        return getOverviewOfChangedFiles(nameOfBranchToCompare, directory, pathspecs, processRunner);
+    }
 
+    /**
+     * Returns an overview of the changed lines per file in the current branch compared to the branchToCompare
+     * @param branchToCompare the branch to compare the current branch to
+     * @return a map with the path of the file relative to the repository root (e.g. 'module/src/main/java/com/example/Foo.java') as key
+     * and the changed lines as value. These line numbers need to match with the line numbers that Jacoco uses
+     * @throws IOException if the git command fails
+     * @throws InterruptedException if the git command fails
+     */
+    public static HashMap<String, ChangedLines> getChangedLines(String branchToCompare) throws IOException, InterruptedException {
+        return getChanges(branchToCompare).getChangedLines();
+    }
 
+    /**
+     * Returns the changed files and the changed lines per file in the current branch compared to the branchToCompare.
+     * Both are taken from the same 'git diff', so git only needs to compute the diff once.
+     * The diff is requested without context lines ('-U0'): the line numbers come from the hunk headers, so only the added
+     * and modified lines need to be generated and read.
+     * @param branchToCompare the branch to compare the current branch to
+     * @return the changed files relative to the repository root and the changed lines per file, see {@link #getChangedLines(String)}
+     * @throws IOException if the git command fails
+     * @throws InterruptedException if the git command fails
+     */
+    public static ChangeSet getChanges(String branchToCompare) throws IOException, InterruptedException {
+        return getChanges(branchToCompare, null, List.of());
+    }
 
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException("Unable to create list of changed files: " + e);
-        }
-
-        return changedFiles;
+    /**
+     * Returns the changed files and the changed lines per file in the current branch compared to the branchToCompare,
+     * limited to the pathspecs. See {@link #getChanges(String)}.
+     * @param branchToCompare the branch to compare the current branch to
+     * @param directory the directory git is run in, e.g. the project base directory, or null for the working directory
+     * @param pathspecs the pathspecs relative to the directory, see {@link #getJavaPathspecs(File, String[])}, or an empty list for the whole repository
+     * @return the changed files relative to the repository root and the changed lines per file
+     * @throws IOException if the git command fails
+     * @throws InterruptedException if the git command fails
+     */
+    public static ChangeSet getChanges(String branchToCompare, File directory, List<String> pathspecs) throws IOException, InterruptedException {
+        return getChanges(branchToCompare, directory, pathspecs, new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT));
     }
 
     /**
-     * Returns an overview of the changed lines per file in the current branch compared to the branchToCompare
+     * Returns the changed files and the changed lines per file, see {@link #getChanges(String, File, List)}
      * @param branchToCompare the branch to compare the current branch to
-     * @return a map with the file as key and an array of changed lines as value. These line numbers need to match with the line numbers that Jacoco uses
+     * @param directory the directory git is run in, e.g. the project base directory, or null for the working directory
+     * @param pathspecs the pathspecs relative to the directory, or an empty list for the whole repository
+     * @param processRunner the runner git is run with
+     * @return the changed files relative to the repository root and the changed lines per file
      * @throws IOException if the git command fails
      * @throws InterruptedException if the git command fails
      */
-    public static HashMap<String, int[]> getChangedLines(String branchToCompare) throws IOException, InterruptedException {
-        // Prepare the git diff command to get detailed changes
-        ProcessBuilder processBuilder = new ProcessBuilder();
-        processBuilder.command("git", "diff", branchToCompare);
-
-        // Start the process
-        Process process = processBuilder.start();
-
-        HashMap<String, int[]> changedLinesPerFile = new HashMap<>();
-
-        // Read the output
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            boolean passedFirstFileLine = false;
-            boolean passedFirstClassLine = false;
-            ArrayList<Integer> lines = null;
-            int lineIndex = -2;
-            String file = null;
-            while ((line = reader.readLine()) != null) {
-
-                if(isLineDiffGitLine(line)){
-                    file = line;
-                    if(passedFirstClassLine){
-                        changedLinesPerFile.put(file, lines.stream().mapToInt(Integer::intValue).toArray());
-                    }
-
-                    passedFirstFileLine = false;
-                    passedFirstClassLine = false;
-                    lines = new ArrayList<>();
-                    lineIndex = -2;
-                }
+    public static ChangeSet getChanges(String branchToCompare, File directory, List<String> pathspecs, ProcessRunner processRunner) throws IOException, InterruptedException {
+        // Prepare the git diff command to get the changed lines without context
+        List<String> command = createDiffCommand(List.of(EXCLUDE_DELETED_FILES, "-U0"), branchToCompare, pathspecs);
 
-                if(line.startsWith("@@") && line.endsWith("@@")){
-                    passedFirstFileLine = true;
-                    lineIndex = -1;
-                }
+        // Parse the output straight from the bytes of the process
+        return runGitCommand(command, directory, new UnifiedDiffParser()::parse, processRunner);
+    }
 
-                if(passedFirstFileLine){
-                    lineIndex++;
-                }
+    /**
+     * Returns the changes that are staged for the next commit, like 'git diff --cached HEAD' does. Only the index is
+     * compared to HEAD, the working tree is not looked at, so this is fast enough to run in a pre-commit hook.
+     * The line numbers are the line numbers of the staged version of the files.
+     * @param directory the directory git is run in, e.g. the project base directory, or null for the working directory
+     * @param pathspecs the pathspecs relative to the directory, see {@link #getJavaPathspecs(File, String[])}, or an empty list for the whole repository
+     * @param processRunner the runner git is run with
+     * @return the staged files relative to the repository root and the changed lines per file
+     * @throws IOException if the git command fails
+     * @throws InterruptedException if the git command fails
+     */
+    public static ChangeSet getStagedChanges(File directory, List<String> pathspecs, ProcessRunner processRunner) throws IOException, InterruptedException {
+        List<String> command = createDiffCommand(List.of("--cached", EXCLUDE_DELETED_FILES, "-U0"), "HEAD", pathspecs);
+        return runGitCommand(command, directory, new UnifiedDiffParser()::parse, processRunner);
+    }
 
-                if(line.contains("class") && !passedFirstClassLine){
-                    passedFirstClassLine = true;
-                }
+    private static ChangeSet getChanges(String branchToCompare, File directory, List<String> pathspecs, int diffThreads, ProcessRunner processRunner) throws IOException, InterruptedException {
+        if (diffThreads > 1) {
+            return new ShardedDiff(diffThreads, processRunner).getChanges(branchToCompare, directory, pathspecs);
+        }
+        return getChanges(branchToCompare, directory, pathspecs, processRunner);
+    }
+
+    /**
+     * Returns the changes, see {@link #getChanges(String, File, List)}.
+     * <br></br>
+     * The diff is cached in the cache file: when the branch to compare, HEAD and the working tree did not change since the
+     * diff was cached, the cached changes are returned without running the diff.
+     * <br></br>
+     * With an incremental diff, a cached diff of an older HEAD of the same branch is updated instead of diffing the whole
+     * branch again: the cached HEAD is diffed against the working tree and only the files that diff touched are diffed
+     * against the branch to compare again, see {@link IncrementalDiff}. This is only possible when the working tree was
+     * clean when the cached diff was made.
+     * <br></br>
+     * With more than one diff thread, a large changeset is split into batches that are diffed in parallel, see {@link ShardedDiff}.
+     * @param branchToCompare the branch to compare the current branch to
+     * @param directory the directory git is run in, e.g. the project base directory, or null for the working directory
+     * @param pathspecs the pathspecs relative to the directory, or an empty list for the whole repository
+     * @param cacheFile the file the last diff is cached in, e.g. 'target/coverage-extension/diff-cache.bin', or null to not use the cache
+     * @param incremental whether the cached diff of an older HEAD may be updated
+     * @param diffThreads the maximum number of diffs that run at the same time
+     * @param processRunner the runner git is run with, it counts the git processes of the diff
+     * @return the changed files relative to the repository root and the changed lines per file
+     * @throws IOException if the git command fails or the cache cannot be written
+     * @throws InterruptedException if the git command fails
+     */
+    public static ChangeSet getChanges(String branchToCompare, File directory, List<String> pathspecs, File cacheFile, boolean incremental, int diffThreads, ProcessRunner processRunner) throws IOException, InterruptedException {
+        DiffCache.Key key = cacheFile == null ? null : getDiffCacheKey(branchToCompare, directory, pathspecs, processRunner);
+        if (key == null) {
+            return getChanges(branchToCompare, directory, pathspecs, diffThreads, processRunner);
+        }
+
+        DiffCache diffCache = DiffCache.load(cacheFile);
+        ChangeSet changes = diffCache.get(key);
+        if (changes == null) {
+            DiffCache.Key cachedKey = diffCache.getKey();
+            if (incremental && cachedKey != null && cachedKey.canBeUpdatedTo(key)) {
+                changes = getIncrementalChanges(branchToCompare, diffCache.getChanges(), cachedKey.getHeadCommit(), directory, pathspecs, processRunner);
+            }
+            if (changes == null) {
+                changes = getChanges(branchToCompare, directory, pathspecs, diffThreads, processRunner);
+            }
+            diffCache.put(key, changes);
+            diffCache.save();
+        }
+        return changes;
+    }
+
+    /**
+     * Diffs an older HEAD against the working tree and applies that diff to the changes of the older HEAD, see
+     * {@link IncrementalDiff}. Deleted files are not left out, so the files that no longer exist can be removed from the
+     * changes. The touched files that may have changed back to the content of the branch to compare are diffed against
+     * that branch again.
+     * @return the changes or null if the diff contains renames, then the whole branch needs to be diffed again
+     */
+    private static ChangeSet getIncrementalChanges(String branchToCompare, ChangeSet previousChanges, String previousHeadCommit, File directory, List<String> pathspecs, ProcessRunner processRunner) throws IOException, InterruptedException {
+        UnifiedDiffParser parser = new UnifiedDiffParser();
+        ChangeSet diff = runGitCommand(createDiffCommand(List.of("-U0"), previousHeadCommit, pathspecs), directory, parser::parse, processRunner);
+        if (!parser.getRenamedFiles().isEmpty()) {
+            //the changed lines of a renamed file depend on the path it had in the branch to compare
+            return null;
+        }
+
+        Set<File> filesToDiffAgain = IncrementalDiff.getFilesToDiffAgain(previousChanges, diff, parser.getAddedFiles());
+        ChangeSet exactChanges = filesToDiffAgain.isEmpty() ? new ChangeSet(new HashSet<>(), new HashMap<>())
+                : getChangesOfFiles(branchToCompare, directory, pathspecs, filesToDiffAgain, processRunner);
+
+        File repositoryRoot = findRepositoryRoot(directory == null ? new File("").getAbsoluteFile() : directory);
+        return IncrementalDiff.apply(previousChanges, diff, repositoryRoot, filesToDiffAgain, exactChanges);
+    }
+
+    /**
+     * Diffs only the given files against the branch to compare, with a literal pathspec per file. A file that existed in the
+     * branch to compare is diffed exactly like a full diff would, so usually this takes a single git call.
+     * <br></br>
+     * A file that does not exist in the branch to compare may have been renamed by the branch, which the limited diff cannot
+     * see. Only for those files the changed files of the whole branch are listed, so they are diffed together with their
+     * old path and git still detects the rename, like {@link ShardedDiff} does.
+     */
+    private static ChangeSet getChangesOfFiles(String branchToCompare, File directory, List<String> pathspecs, Set<File> files, ProcessRunner processRunner) throws IOException, InterruptedException {
+        List<List<String>> paths = new ArrayList<>(files.size());
+        for (File file : files) {
+            paths.add(List.of(file.getPath().replace(File.separatorChar, '/')));
+        }
+
+        Set<File> changedFiles = new HashSet<>();
+        HashMap<String, ChangedLines> changedLines = new HashMap<>();
+        Set<File> addedFiles = new HashSet<>();
+        UnifiedDiffParser parser = new UnifiedDiffParser();
+        for (List<String> batch : ShardedDiff.createBatches(paths, paths.size())) {
+            ChangeSet changes = runGitCommand(createDiffCommand(List.of(EXCLUDE_DELETED_FILES, "-U0"), branchToCompare, batch), directory, parser::parse, processRunner);
+            changedFiles.addAll(changes.getChangedFiles());
+            changedLines.putAll(changes.getChangedLines());
+            addedFiles.addAll(parser.getAddedFiles());
+        }
+        if (addedFiles.isEmpty()) {
+            return new ChangeSet(changedFiles, changedLines);
+        }
 
-                if(passedFirstClassLine){
-                    if(line.startsWith("+")){
-                        lines.add(lineIndex);
-                    }
+        //the rename replaces the added file of the limited diff, a pure rename has nothing to cover
+        List<List<String>> changedPaths = new ArrayList<>();
+        for (FileStatus fileStatus : getStatusOfChangedFiles(branchToCompare, directory, pathspecs, processRunner)) {
+            if (addedFiles.contains(new File(fileStatus.getPath())) && fileStatus.getOldPath() != null) {
+                changedFiles.remove(new File(fileStatus.getPath()));
+                changedLines.remove(fileStatus.getPath());
+                if (!fileStatus.isPureRename()) {
+                    changedPaths.add(List.of(fileStatus.getOldPath(), fileStatus.getPath()));
                 }
             }
         }
+        for (List<String> batch : ShardedDiff.createBatches(changedPaths, changedPaths.size())) {
+            ChangeSet changes = getChanges(branchToCompare, directory, batch, processRunner);
+            changedFiles.addAll(changes.getChangedFiles());
+            changedLines.putAll(changes.getChangedLines());
+        }
+        return new ChangeSet(changedFiles, changedLines);
+    }
+
+    /**
+     * Creates the key of a diff for the {@link DiffCache}. The key consists of the commit the branch to compare resolves to,
+     * the HEAD commit, the pathspecs and a fingerprint of the working tree. The fingerprint is a hash of the status of the
+     * tracked files that match the pathspecs, together with the size and modification time of every file that is modified
+     * or staged, so editing a file that was already modified changes the key as well. Untracked files are not part of the
+     * diff, so they are not part of the key either. A clean working tree has an empty fingerprint.
+     * @param branchToCompare the branch to compare the current branch to
+     * @param directory the directory git is run in, or null for the working directory
+     * @param pathspecs the pathspecs relative to the directory
+     * @return the key or null if the commits cannot be resolved, in that case the diff is not cached
+     * @throws IOException if git cannot be run
+     * @throws InterruptedException if git cannot be run
+     */
+    static DiffCache.Key getDiffCacheKey(String branchToCompare, File directory, List<String> pathspecs) throws IOException, InterruptedException {
+        return getDiffCacheKey(branchToCompare, directory, pathspecs, new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT));
+    }
+
+    private static DiffCache.Key getDiffCacheKey(String branchToCompare, File directory, List<String> pathspecs, ProcessRunner processRunner) throws IOException, InterruptedException {
+        //a single process resolves the root of the repository and both commits
+        byte[] revisions = runGit(directory, List.of("git", "rev-parse", "--show-toplevel", branchToCompare + "^{commit}", "HEAD"), processRunner);
+        if (revisions == null) {
+            return null;
+        }
+        String[] lines = new String(revisions, StandardCharsets.UTF_8).split("\n");
+        if (lines.length != 3) {
+            return null;
+        }
+        Path repositoryRoot = new File(lines[0].trim()).toPath();
+
+        List<String> statusCommand = new ArrayList<>(List.of("git", "status", "--porcelain", "-z", "--untracked-files=no"));
+        if (!pathspecs.isEmpty()) {
+            statusCommand.add("--");
+            statusCommand.addAll(pathspecs);
+        }
+        byte[] status = runGit(directory, statusCommand, processRunner);
+        if (status == null) {
+            return null;
+        }
+
+        String scope = new File(directory == null ? "" : directory.getPath()).getAbsolutePath() + " " + String.join(" ", pathspecs);
+        if (status.length == 0) {
+            return new DiffCache.Key(lines[1].trim(), lines[2].trim(), scope, "");
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Unable to create the key of the diff: " + e);
+        }
+        digest.update(status);
+
+        //the entries are 'XY path', the original path of a rename follows as a separate entry without status
+        for (String entry : new String(status, StandardCharsets.UTF_8).split("\u0000")) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            String path = entry.length() > 3 && entry.charAt(2) == ' ' ? entry.substring(3) : entry;
+            digest.update(getFileState(repositoryRoot.resolve(path)).getBytes(StandardCharsets.UTF_8));
+        }
+
+        StringBuilder fingerprint = new StringBuilder();
+        for (byte b : digest.digest()) {
+            fingerprint.append(String.format("%02x", b));
+        }
+
+        return new DiffCache.Key(lines[1].trim(), lines[2].trim(), scope, fingerprint.toString());
+    }
+
+    private static String getFileState(Path path) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.size() + ":" + attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS) + ";";
+        } catch (NoSuchFileException e) {
+            return "-1;";
+        }
+    }
+
+    /**
+     * Runs a git command that only prints a little output
+     * @return the output or null if the command failed
+     */
+    private static byte[] runGit(File directory, List<String> command, ProcessRunner processRunner) throws IOException, InterruptedException {
+        ProcessRunner.Result<byte[]> result = processRunner.run(command, directory, InputStream::readAllBytes);
+        return result.isSuccess() ? result.getOutput() : null;
+    }
 
-        // Wait for the process to complete
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new RuntimeException("Error executing git command: " + exitCode);
+    /**
+     * Runs a git command with the process runner
+     * @param command the git command
+     * @param directory the directory git is run in, or null for the working directory
+     * @param outputHandler reads the output of git
+     * @param processRunner the runner git is run with
+     * @return what the output handler returned
+     * @throws IOException if git cannot be run
+     * @throws InterruptedException if git cannot be run
+     * @throws RuntimeException if git fails or does not finish within the timeout
+     */
+    static <T> T runGitCommand(List<String> command, File directory, ProcessRunner.OutputHandler<T> outputHandler, ProcessRunner processRunner) throws IOException, InterruptedException {
+        ProcessRunner.Result<T> result = processRunner.run(command, directory, outputHandler);
+        if (!result.isSuccess()) {
+            throw new RuntimeException("Error executing git command: " + result.getExitCode() + " " + result.getErrorOutput());
         }
+        return result.getOutput();
+    }
 
-        return changedLinesPerFile;
+    static List<String> createDiffCommand(List<String> options, String branchToCompare, List<String> pathspecs) {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        //the paths are still quoted if they contain special characters like a quote or a tab, see UnifiedDiffParser
+        command.add("-c");
+        command.add("core.quotePath=false");
+        command.add("diff");
+        command.addAll(DIFF_OPTIONS);
+        command.addAll(options);
+        command.add(branchToCompare);
+        if (!pathspecs.isEmpty()) {
+            command.add("--");
+            command.addAll(pathspecs);
+        }
+        return command;
     }
 
-    private static final String REGEX = "^diff --git a/.* b/.*$";
+    /**
+     * Creates the pathspecs that limit a diff to the java files of the source roots. In a pathspec the '*' also matches
+     * '/', so 'src/main/java/*.java' matches the java files in all the packages of the source root.
+     * @param baseDir the project base directory, the directory git is run in
+     * @param sourcePaths the source roots, relative to the base directory (e.g. 'src/main/java') or absolute
+     * @return the pathspecs relative to the base directory. Without source roots, all the java files of the repository are diffed.
+     */
+    public static List<String> getJavaPathspecs(File baseDir, String[] sourcePaths) {
+        if (sourcePaths == null || sourcePaths.length == 0) {
+            return List.of("*.java");
+        }
+        List<String> pathspecs = new ArrayList<>(sourcePaths.length);
+        for (String sourcePath : sourcePaths) {
+            String relativePath = sourcePath;
+            File sourceDir = new File(sourcePath);
+            if (sourceDir.isAbsolute() && baseDir != null) {
+                relativePath = baseDir.getAbsoluteFile().toPath().relativize(sourceDir.toPath()).toString();
+            }
+            relativePath = relativePath.replace(File.separatorChar, '/');
+            while (relativePath.endsWith("/")) {
+                relativePath = relativePath.substring(0, relativePath.length() - 1);
+            }
+            pathspecs.add(relativePath.isEmpty() || relativePath.equals(".") ? "*.java" : relativePath + "/*.java");
+        }
+        return pathspecs;
+    }
 
-    private static final Pattern PATTERN = Pattern.compile(REGEX);
+    /**
+     * Finds the root of the git repository that contains the given directory by walking up the directory tree until a
+     * '.git' directory (or '.git' file in case of a worktree) is found. The paths reported by git are relative to this root.
+     * @param directory the directory to start searching from, e.g. the project base directory
+     * @return the root of the repository or null if the directory is not part of a git repository
+     * @throws IOException if the canonical path of the directory cannot be resolved
+     */
+    public static File findRepositoryRoot(File directory) throws IOException {
+        File current = directory.getCanonicalFile();
+        while (current != null) {
+            if (new File(current, ".git").exists()) {
+                return current;
+            }
+            current = current.getParentFile();
+        }
+        return null;
+    }
 
     /**
      * Check if a line is a git diff line in the format of "diff --git a/... b/..."
@@ -142,7 +511,17 @@ public class GitInteractor {
      * @return true if the line is a git diff line, false otherwise
      */
     protected static boolean isLineDiffGitLine(String line){
-        Matcher matcher = PATTERN.matcher(line);
-        return matcher.matches();
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return UnifiedDiffParser.isDiffGitLine(bytes, bytes.length);
+    }
+
+    /**
+     * Extracts the path of the file in the current branch from a git diff line in the format of "diff --git a/... b/..."
+     * @param line the git diff line
+     * @return the path of the file relative to the repository root
+     */
+    protected static String getPathOfDiffGitLine(String line){
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return UnifiedDiffParser.getPathOfDiffGitLine(bytes, bytes.length);
     }
 }
@@ -0,0 +1,118 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates the diff by running the git binary in a subprocess, see {@link GitInteractor}
+ */
+public class GitProcessDiffProvider implements DiffProvider {
+
+    private final File directory;
+
+    private final List<String> pathspecs;
+
+    private final File cacheFile;
+
+    private final boolean incremental;
+
+    private final int diffThreads;
+
+    private final ProcessRunner processRunner;
+
+    /**
+     * Diffs the whole repository from the working directory
+     */
+    public GitProcessDiffProvider() {
+        this.directory = null;
+        this.pathspecs = List.of();
+        this.cacheFile = null;
+        this.incremental = false;
+        this.diffThreads = 1;
+        this.processRunner = new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Only diffs the java files of the source roots, so git does not spend time on resources, docs or other modules
+     * @param directory the project base directory, git is run in this directory
+     * @param sourcePaths the source roots relative to the project base directory, e.g. 'src/main/java'
+     */
+    public GitProcessDiffProvider(File directory, String[] sourcePaths) {
+        this(directory, sourcePaths, null);
+    }
+
+    /**
+     * Only diffs the java files of the source roots and caches the diff, see {@link DiffCache}
+     * @param directory the project base directory, git is run in this directory
+     * @param sourcePaths the source roots relative to the project base directory, e.g. 'src/main/java'
+     * @param cacheFile the file the last diff is cached in or null to not use the cache
+     */
+    public GitProcessDiffProvider(File directory, String[] sourcePaths, File cacheFile) {
+        this(directory, sourcePaths, cacheFile, false);
+    }
+
+    /**
+     * Only diffs the java files of the source roots and caches the diff. When only new commits were added since the diff
+     * was cached, the cached diff is updated with an incremental diff, see {@link IncrementalDiff}.
+     * @param directory the project base directory, git is run in this directory
+     * @param sourcePaths the source roots relative to the project base directory, e.g. 'src/main/java'
+     * @param cacheFile the file the last diff is cached in or null to not use the cache
+     * @param incremental whether the cached diff of an older HEAD may be updated instead of diffing the whole branch again
+     */
+    public GitProcessDiffProvider(File directory, String[] sourcePaths, File cacheFile, boolean incremental) {
+        this(directory, sourcePaths, cacheFile, incremental, 1);
+    }
+
+    /**
+     * Only diffs the java files of the source roots, caches the diff and splits a large changeset over several diffs that
+     * run in parallel, see {@link ShardedDiff}
+     * @param directory the project base directory, git is run in this directory
+     * @param sourcePaths the source roots relative to the project base directory, e.g. 'src/main/java'
+     * @param cacheFile the file the last diff is cached in or null to not use the cache
+     * @param incremental whether the cached diff of an older HEAD may be updated instead of diffing the whole branch again
+     * @param diffThreads the maximum number of diffs that run at the same time
+     */
+    public GitProcessDiffProvider(File directory, String[] sourcePaths, File cacheFile, boolean incremental, int diffThreads) {
+        this(directory, sourcePaths, cacheFile, incremental, diffThreads, new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT));
+    }
+
+    /**
+     * Only diffs the java files of the source roots, caches the diff, splits a large changeset over several diffs and runs
+     * git with the given runner, e.g. one with another timeout
+     * @param directory the project base directory, git is run in this directory
+     * @param sourcePaths the source roots relative to the project base directory, e.g. 'src/main/java'
+     * @param cacheFile the file the last diff is cached in or null to not use the cache
+     * @param incremental whether the cached diff of an older HEAD may be updated instead of diffing the whole branch again
+     * @param diffThreads the maximum number of diffs that run at the same time
+     * @param processRunner the runner git is run with, it counts the git processes of this provider
+     */
+    public GitProcessDiffProvider(File directory, String[] sourcePaths, File cacheFile, boolean incremental, int diffThreads, ProcessRunner processRunner) {
+        this.directory = directory;
+        this.pathspecs = GitInteractor.getJavaPathspecs(directory, sourcePaths);
+        this.cacheFile = cacheFile;
+        this.incremental = incremental;
+        this.diffThreads = diffThreads;
+        this.processRunner = processRunner;
+    }
+
+    @Override
+    public Set<File> getOverviewOfChangedFiles(String branchToCompare) throws RuntimeException {
+        return GitInteractor.getOverviewOfChangedFiles(branchToCompare, directory, pathspecs, cacheFile, processRunner);
+    }
+
+    @Override
+    public HashMap<String, ChangedLines> getChangedLines(String branchToCompare) throws IOException, InterruptedException {
+        return getChanges(branchToCompare).getChangedLines();
+    }
+
+    @Override
+    public ChangeSet getChanges(String branchToCompare) throws IOException, InterruptedException {
+        return GitInteractor.getChanges(branchToCompare, directory, pathspecs, cacheFile, incremental, diffThreads, processRunner);
+    }
+}
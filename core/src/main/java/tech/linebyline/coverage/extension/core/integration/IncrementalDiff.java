@@ -0,0 +1,92 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Updates the changes of a previous diff against the branch to compare with the diff of what changed since then, e.g. a
+ * fixup commit that was pushed on top of the branch. The files that the new commits do not touch keep their changes. A
+ * touched file that was not changed before still has the content of the branch to compare in the previous HEAD, so its
+ * changed lines are the added lines of the small diff.
+ * <br></br>
+ * A touched file that was already changed could be changed back to the content it has in the branch to compare, and an
+ * added file could have existed in the branch to compare before it was deleted. These files are diffed against the branch
+ * to compare again, see {@link #getFilesToDiffAgain(ChangeSet, ChangeSet, Set)}. Renames are not handled here at all:
+ * when the new commits rename a file, the whole branch is diffed again.
+ * <br></br>
+ * The update is not free: next to the small diff, the touched files that were already changed take another, limited diff.
+ * It pays off when the branch is large and the new commits touch only a few files, a full diff of a small branch is as fast.
+ */
+public class IncrementalDiff {
+
+    /**
+     * Returns the touched files whose changes cannot be derived from the small diff: the files that were already changed
+     * in the previous HEAD and the files that were added since then
+     * @param previousChanges the changes of the previous HEAD compared to the branch to compare
+     * @param diff the changes of the previous HEAD against the current working tree
+     * @param addedFiles the files the diff added, see {@link UnifiedDiffParser#getAddedFiles()}
+     * @return the files that need to be diffed against the branch to compare again, relative to the repository root
+     */
+    static Set<File> getFilesToDiffAgain(ChangeSet previousChanges, ChangeSet diff, Set<File> addedFiles) {
+        Set<File> filesToDiffAgain = new HashSet<>();
+        for (File file : diff.getChangedFiles()) {
+            if (previousChanges.getChangedFiles().contains(file) || addedFiles.contains(file)) {
+                filesToDiffAgain.add(file);
+            }
+        }
+        return filesToDiffAgain;
+    }
+
+    /**
+     * Applies the diff of the previous HEAD against the current working tree to the changes of the previous HEAD
+     * @param previousChanges the changes of the previous HEAD compared to the branch to compare
+     * @param diff the changes of the previous HEAD against the current working tree. The diff contains no renames.
+     * @param repositoryRoot the root of the repository, to tell a deleted file from a file that was emptied
+     * @param filesToDiffAgain the touched files whose changes are taken from the exact changes, see {@link #getFilesToDiffAgain(ChangeSet, ChangeSet, Set)}
+     * @param exactChanges the changes of those files compared to the branch to compare
+     * @return the changes of the current working tree compared to the branch to compare
+     */
+    static ChangeSet apply(ChangeSet previousChanges, ChangeSet diff, File repositoryRoot, Set<File> filesToDiffAgain, ChangeSet exactChanges) {
+        Set<File> changedFiles = new HashSet<>(previousChanges.getChangedFiles());
+        HashMap<String, ChangedLines> changedLines = new HashMap<>(previousChanges.getChangedLines());
+
+        for (File file : diff.getChangedFiles()) {
+            String path = file.getPath().replace(File.separatorChar, '/');
+            if (!new File(repositoryRoot, path).isFile()) {
+                //deleted files have no lines to cover
+                changedFiles.remove(file);
+                changedLines.remove(path);
+                continue;
+            }
+
+            if (filesToDiffAgain.contains(file)) {
+                //a file that is changed back to the content of the branch to compare is not part of the exact changes
+                changedFiles.remove(file);
+                changedLines.remove(path);
+                if (exactChanges.getChangedFiles().contains(file)) {
+                    changedFiles.add(file);
+                }
+                ChangedLines exactLines = exactChanges.getChangedLines().get(path);
+                if (exactLines != null) {
+                    changedLines.put(path, exactLines);
+                }
+                continue;
+            }
+
+            //the file had the content of the branch to compare, so the lines the small diff added are its changed lines
+            changedFiles.add(file);
+            ChangedLines addedLines = diff.getChangedLines().get(path);
+            if (addedLines == null) {
+                changedLines.remove(path);
+            } else {
+                changedLines.put(path, addedLines);
+            }
+        }
+        return new ChangeSet(changedFiles, changedLines);
+    }
+}
@@ -0,0 +1,238 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.IndexDiffFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Creates the diff in-process with JGit, which reads the loose objects and packfiles of the '.git' directory itself.
+ * No git binary is needed and no process is started. Just like 'git diff branchToCompare', the tree of the branch is compared
+ * to the working tree, untracked files are ignored. Like the git subprocess, deleted files are left out.
+ */
+public class JGitDiffProvider implements DiffProvider {
+
+    private static final int BASE_TREE = 0;
+    private static final int INDEX = 1;
+    private static final int WORKING_TREE = 2;
+
+    private final File directory;
+
+    private final String[] sourcePaths;
+
+    /**
+     * Diffs the whole repository
+     * @param directory a directory inside the repository, e.g. the project base directory. The repository is found by walking up from this directory.
+     */
+    public JGitDiffProvider(File directory) {
+        this(directory, null);
+    }
+
+    /**
+     * Only diffs the java files of the source roots. The tree walk does not descend into the other directories at all.
+     * @param directory the project base directory. The repository is found by walking up from this directory.
+     * @param sourcePaths the source roots relative to the project base directory, e.g. 'src/main/java', or null to diff the whole repository
+     */
+    public JGitDiffProvider(File directory, String[] sourcePaths) {
+        this.directory = directory;
+        this.sourcePaths = sourcePaths;
+    }
+
+    @Override
+    public Set<File> getOverviewOfChangedFiles(String branchToCompare) throws RuntimeException {
+        Set<File> changedFiles = new HashSet<>();
+        try (Repository repository = openRepository()) {
+            for (ChangedFile changedFile : getChangedFiles(repository, branchToCompare, false)) {
+                changedFiles.add(new File(changedFile.path));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to create list of changed files: " + e);
+        }
+        return changedFiles;
+    }
+
+    @Override
+    public HashMap<String, ChangedLines> getChangedLines(String branchToCompare) throws IOException {
+        return getChanges(branchToCompare).getChangedLines();
+    }
+
+    @Override
+    public ChangeSet getChanges(String branchToCompare) throws IOException {
+        Set<File> changedFiles = new HashSet<>();
+        HashMap<String, ChangedLines> changedLinesPerFile = new HashMap<>();
+        try (Repository repository = openRepository(); ObjectReader reader = repository.newObjectReader()) {
+            for (ChangedFile changedFile : getChangedFiles(repository, branchToCompare, true)) {
+                changedFiles.add(new File(changedFile.path));
+                RawText oldText = changedFile.baseId == null ? RawText.EMPTY_TEXT : new RawText(reader.open(changedFile.baseId).getCachedBytes());
+                RawText newText = new RawText(changedFile.content);
+                if (RawText.isBinary(oldText.getRawContent()) || RawText.isBinary(newText.getRawContent())) {
+                    continue;
+                }
+                ChangedLines changedLines = getChangedLines(oldText, newText);
+                if (!changedLines.isEmpty()) {
+                    changedLinesPerFile.put(changedFile.path, changedLines);
+                }
+            }
+        }
+        return new ChangeSet(changedFiles, changedLinesPerFile);
+    }
+
+    /**
+     * The lines of the new text that were added or modified, 1-based like the line numbers of Jacoco
+     */
+    static ChangedLines getChangedLines(RawText oldText, RawText newText) {
+        EditList edits = DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM).diff(RawTextComparator.DEFAULT, oldText, newText);
+        ChangedLines.Builder changedLines = new ChangedLines.Builder();
+        for (Edit edit : edits) {
+            changedLines.add(edit.getBeginB() + 1, edit.getEndB());
+        }
+        return changedLines.build();
+    }
+
+    private Repository openRepository() throws IOException {
+        FileRepositoryBuilder builder = new FileRepositoryBuilder().readEnvironment().findGitDir(directory.getAbsoluteFile());
+        if (builder.getGitDir() == null) {
+            throw new IOException("No git repository found for " + directory.getAbsolutePath());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Walks the tree of the branch, the index and the working tree at the same time. The filter skips the paths that are
+     * the same in all three without reading the files, and it does not descend into ignored directories like 'target'.
+     * @param readContent whether the content of the changed files in the working tree is needed
+     */
+    private List<ChangedFile> getChangedFiles(Repository repository, String branchToCompare, boolean readContent) throws IOException {
+        ObjectId baseTree = repository.resolve(branchToCompare + "^{tree}");
+        if (baseTree == null) {
+            throw new IOException("Unknown revision: " + branchToCompare);
+        }
+
+        List<ChangedFile> changedFiles = new ArrayList<>();
+        //the content of the deleted files and of the added files, to recognize the files that were only moved
+        List<ObjectId> deletedIds = new ArrayList<>();
+        HashMap<ChangedFile, ObjectId> addedFiles = new HashMap<>();
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(baseTree);
+            treeWalk.addTree(new DirCacheIterator(repository.readDirCache()));
+            FileTreeIterator workingTreeIterator = new FileTreeIterator(repository);
+            treeWalk.addTree(workingTreeIterator);
+            workingTreeIterator.setDirCacheIterator(treeWalk, INDEX);
+            TreeFilter pathFilter = createPathFilter(repository);
+            treeWalk.setFilter(pathFilter == null ? new IndexDiffFilter(INDEX, WORKING_TREE) : AndTreeFilter.create(pathFilter, new IndexDiffFilter(INDEX, WORKING_TREE)));
+            treeWalk.setRecursive(true);
+
+            while (treeWalk.next()) {
+                boolean inBase = treeWalk.getFileMode(BASE_TREE) != FileMode.MISSING;
+                boolean tracked = treeWalk.getFileMode(INDEX) != FileMode.MISSING;
+                if (!inBase && !tracked) {
+                    //untracked file
+                    continue;
+                }
+
+                FileTreeIterator workingTree = treeWalk.getTree(WORKING_TREE, FileTreeIterator.class);
+                boolean inWorkingTree = tracked && workingTree != null && treeWalk.getFileMode(WORKING_TREE) != FileMode.MISSING;
+                ObjectId baseId = inBase ? treeWalk.getObjectId(BASE_TREE) : null;
+                //a deleted file has no lines left to cover
+                if (!inWorkingTree && baseId != null) {
+                    deletedIds.add(baseId);
+                } else if (inWorkingTree && (baseId == null || !baseId.equals(workingTree.getEntryObjectId()))) {
+                    byte[] content = null;
+                    if (readContent) {
+                        try (InputStream inputStream = workingTree.openEntryStream()) {
+                            content = inputStream.readAllBytes();
+                        }
+                    }
+                    ChangedFile changedFile = new ChangedFile(treeWalk.getPathString(), baseId, content);
+                    changedFiles.add(changedFile);
+                    if (baseId == null) {
+                        addedFiles.put(changedFile, workingTree.getEntryObjectId());
+                    }
+                }
+            }
+        }
+
+        //like 'git diff -M', a file that was moved without changing its content is not a change. Unlike git, the files
+        //that were moved and edited are not paired with their old path, they are added files.
+        Set<ChangedFile> movedFiles = new HashSet<>();
+        for (Map.Entry<ChangedFile, ObjectId> addedFile : addedFiles.entrySet()) {
+            if (deletedIds.remove(addedFile.getValue())) {
+                movedFiles.add(addedFile.getKey());
+            }
+        }
+        changedFiles.removeIf(movedFiles::contains);
+        return changedFiles;
+    }
+
+    /**
+     * Limits the walk to the java files of the source roots, like the pathspecs of {@link GitInteractor#getJavaPathspecs(File, String[])}
+     * @return the filter or null if the whole repository is diffed
+     */
+    private TreeFilter createPathFilter(Repository repository) throws IOException {
+        if (sourcePaths == null) {
+            return null;
+        }
+        Path workTree = repository.getWorkTree().getCanonicalFile().toPath();
+        List<String> prefixes = new ArrayList<>();
+        for (String sourcePath : sourcePaths) {
+            File sourceDir = new File(sourcePath).isAbsolute() ? new File(sourcePath) : new File(directory, sourcePath);
+            Path relativePath = workTree.relativize(sourceDir.getCanonicalFile().toPath());
+            if (relativePath.toString().isEmpty()) {
+                //the source root is the root of the repository, only the suffix filter applies
+                prefixes.clear();
+                break;
+            }
+            prefixes.add(relativePath.toString().replace(File.separatorChar, '/'));
+        }
+        TreeFilter suffixFilter = PathSuffixFilter.create(".java");
+        return prefixes.isEmpty() ? suffixFilter : AndTreeFilter.create(PathFilterGroup.createFromStrings(prefixes), suffixFilter);
+    }
+
+    /**
+     * A file that differs between the branch and the working tree
+     */
+    private static class ChangedFile {
+
+        private final String path;
+        private final ObjectId baseId;
+        private final byte[] content;
+
+        /**
+         * @param path the path relative to the repository root
+         * @param baseId the blob of the file in the branch or null if the file was added
+         * @param content the content of the file in the working tree or null if it was not read
+         */
+        private ChangedFile(String path, ObjectId baseId, byte[] content) {
+            this.path = path;
+            this.baseId = baseId;
+            this.content = content;
+        }
+    }
+}
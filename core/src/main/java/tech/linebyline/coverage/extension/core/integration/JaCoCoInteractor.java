@@ -1,15 +1,19 @@
 package tech.linebyline.coverage.extension.core.integration;
 
+import tech.linebyline.coverage.extension.core.configuration.ConfigurationManager;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
 import tech.linebyline.coverage.extension.core.model.CodeCoverage;
 import org.jacoco.core.analysis.*;
-import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataStore;
-import org.jacoco.core.data.SessionInfoStore;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -24,6 +28,36 @@ public class JaCoCoInteractor {
         return coverageBuilder;
     }
 
+    private ExecutionDataLoader executionDataLoader;
+
+    /**
+     * The loader that read the Jacoco.exec file. It keeps the number of bytes read and the time it took.
+     * @return the loader of the execution data
+     */
+    public ExecutionDataLoader getExecutionDataLoader() {
+        return executionDataLoader;
+    }
+
+    private ClassAnalysisCache classAnalysisCache;
+
+    private Map<String, List<String>> duplicateClasses;
+
+    /**
+     * The classes that were found in more than one class path entry. Only the first location was analyzed.
+     * @return the locations per duplicate class name
+     */
+    public Map<String, List<String>> getDuplicateClasses() {
+        return duplicateClasses;
+    }
+
+    /**
+     * The cache the coverage of unchanged classes was taken from
+     * @return the analysis cache or null if no analysis cache is used
+     */
+    public ClassAnalysisCache getClassAnalysisCache() {
+        return classAnalysisCache;
+    }
+
     //TODO: will come from project.getCompileSourceRoots();
     String[] sourceCodePaths;
 
@@ -47,8 +81,19 @@ public class JaCoCoInteractor {
         return baseDir;
     }
 
+    List<String> repositoryRelativeSourceRoots;
+
     /**
-     * Constructor
+     * The source code paths relative to the root of the git repository, e.g. 'single-module-example/src/main/java'.
+     * Git reports the changed files relative to the repository root, so these are used to map a changed file onto a source root.
+     * @return the source code paths relative to the root of the git repository
+     */
+    private List<String> getRepositoryRelativeSourceRoots() {
+        return repositoryRelativeSourceRoots;
+    }
+
+    /**
+     * Constructor. Analyzes all the classes in the class path directory.
      * @param jacocoExecFile the Jacoco.exec file
      * @param classPathDirectory the class path directory. This is the directory where the compiled classes are located. This is usually the 'target/classes' directory
      * @param sourceCodePaths the source code paths. This is the path to the source code directory. This is usually the 'src/main/java' directory but can differ per project
@@ -57,11 +102,60 @@ public class JaCoCoInteractor {
      * @throws IOException if the Jacoco.exec file cannot be read
      */
     public JaCoCoInteractor(File jacocoExecFile, File classPathDirectory, String[] sourceCodePaths, File baseDir) throws IOException {
-        if(jacocoExecFile == null){
+        this(jacocoExecFile, classPathDirectory, sourceCodePaths, baseDir, null);
+    }
+
+    /**
+     * Constructor. When changed files are passed, only the class files that belong to those changed source files are analyzed
+     * (including their nested classes). This is a lot faster for large projects, but means that {@link #getTotalCodeCoverage()}
+     * only covers the changed classes. Pass null to analyze the complete class path directory.
+     * @param jacocoExecFile the Jacoco.exec file
+     * @param classPathDirectory the class path directory. This is the directory where the compiled classes are located. This is usually the 'target/classes' directory
+     * @param sourceCodePaths the source code paths. This is the path to the source code directory. This is usually the 'src/main/java' directory but can differ per project
+     *                        In Maven this comes from project.getCompileSourceRoots();
+     * @param baseDir the base directory of the project. In maven this comes from project.getBasedir()
+     * @param changedFiles the changed files relative to the repository root, as retrieved by {@link GitInteractor#getOverviewOfChangedFiles(String)},
+     *                     or null if all the classes need to be analyzed
+     * @throws IOException if the Jacoco.exec file cannot be read
+     */
+    public JaCoCoInteractor(File jacocoExecFile, File classPathDirectory, String[] sourceCodePaths, File baseDir, Set<File> changedFiles) throws IOException {
+        this(toConfigurationManager(jacocoExecFile, classPathDirectory, sourceCodePaths, baseDir), changedFiles);
+    }
+
+    /**
+     * Constructor. Takes the exec files, class path entries, source paths, base directory, analysis threads and analysis cache from the configuration.
+     * When several exec files are configured, they are read concurrently and merged.
+     * When changed files are passed, only the class files that belong to those changed source files are analyzed
+     * (including their nested classes). Pass null to analyze the complete class path directory.
+     * @param configurationManager the configuration of the coverage extension
+     * @param changedFiles the changed files relative to the repository root, as retrieved by {@link GitInteractor#getOverviewOfChangedFiles(String)},
+     *                     or null if all the classes need to be analyzed
+     * @throws IOException if one of the Jacoco.exec files cannot be read or the classes cannot be analyzed
+     */
+    public JaCoCoInteractor(ConfigurationManager configurationManager, Set<File> changedFiles) throws IOException {
+        this(configurationManager, changedFiles, null, null);
+    }
+
+    /**
+     * Constructor for execution data that was already loaded, e.g. while the changed files were still being diffed.
+     * Only the execution data of the analyzed classes is kept, see {@link ExecutionDataLoader#filter(ExecutionDataStore, Set)}.
+     * @param configurationManager the configuration of the coverage extension
+     * @param changedFiles the changed files relative to the repository root, or null if all the classes need to be analyzed
+     * @param executionDataLoader the loader the execution data was loaded with, or null to load the execution data here
+     * @param executionData the execution data of all the classes in the exec files, or null to load the execution data here
+     * @throws IOException if one of the Jacoco.exec files cannot be read or the classes cannot be analyzed
+     */
+    public JaCoCoInteractor(ConfigurationManager configurationManager, Set<File> changedFiles, ExecutionDataLoader executionDataLoader, ExecutionDataStore executionData) throws IOException {
+        List<File> jacocoExecFiles = configurationManager.getJacocoExecFiles();
+        List<File> classPathEntries = configurationManager.getClassPaths();
+        String[] sourceCodePaths = configurationManager.getSourcePaths();
+        File baseDir = configurationManager.getProjectBaseDir();
+
+        if(jacocoExecFiles.isEmpty()){
             throw new IllegalArgumentException("The Jacoco.exec file cannot be null.");
         }
 
-        if(classPathDirectory == null){
+        if(classPathEntries.isEmpty()){
             throw new IllegalArgumentException("The class path directory cannot be null.");
         }
 
@@ -77,10 +171,43 @@ public class JaCoCoInteractor {
         this.coverageBuilder = new CoverageBuilder();
         this.sourceCodePaths = sourceCodePaths;
         this.baseDir = baseDir;
+        this.repositoryRelativeSourceRoots = toRepositoryRelativeSourceRoots(sourceCodePaths, baseDir);
+
+        int threads = configurationManager.getAnalysisThreads();
 
-        //File classPathDir = new File(baseDir, classPathDirectory);
+        File analysisCacheFile = configurationManager.getAnalysisCacheFile();
+        this.classAnalysisCache = analysisCacheFile == null ? null : ClassAnalysisCache.load(analysisCacheFile);
 
-        analyzeClassesDirectory(jacocoExecFile, getCoverageBuilder(), classPathDirectory);
+        try (ClassPath classPath = ClassPath.of(classPathEntries, changedFiles == null ? null : getChangedSourceFiles(changedFiles))) {
+            this.duplicateClasses = classPath.getDuplicateClasses();
+
+            //only the execution data of the classes that will be analyzed is kept, the exec file usually contains the probes of tests and dependencies as well
+            ExecutionDataStore executionDataToAnalyze;
+            if (executionDataLoader == null || executionData == null) {
+                this.executionDataLoader = new ExecutionDataLoader(classPath.getClassNames());
+                executionDataToAnalyze = this.executionDataLoader.load(jacocoExecFiles, threads);
+            } else {
+                this.executionDataLoader = executionDataLoader;
+                executionDataToAnalyze = executionDataLoader.filter(executionData, classPath.getClassNames());
+            }
+
+            ParallelClassAnalyzer analyzer = new ParallelClassAnalyzer(executionDataToAnalyze, threads, classAnalysisCache);
+            analyzer.analyzeClassFiles(classPath.getClassFiles(), getCoverageBuilder());
+        }
+
+        if (classAnalysisCache != null) {
+            //only a run that analyzed the whole class path knows which classes are gone
+            classAnalysisCache.save(changedFiles == null);
+        }
+    }
+
+    private static ConfigurationManager toConfigurationManager(File jacocoExecFile, File classPathDirectory, String[] sourceCodePaths, File baseDir) {
+        ConfigurationManager configurationManager = new ConfigurationManager();
+        configurationManager.setJacocoExecFile(jacocoExecFile);
+        configurationManager.setClassPath(classPathDirectory);
+        configurationManager.setSourcePaths(sourceCodePaths);
+        configurationManager.setProjectBaseDir(baseDir);
+        return configurationManager;
     }
 
     /**
@@ -109,32 +236,33 @@ public class JaCoCoInteractor {
             return codeCoveragePerFile;
         }
 
-        // Collect coverage data
-        //TODO: improve performance.
-        for (String sourceRoot : getSourceCodePaths()) {
-            File sourceDir = new File(getBaseDir(), sourceRoot);
-            if (sourceDir.exists()) {
-                for (IClassCoverage classCoverage : getCoverageBuilder().getClasses()) {
+        // Collect coverage data, one lookup per changed file
+        HashMap<String, ISourceFileCoverage> sourceFileCoverageIndex = getSourceFileCoverageIndex();
+
+        for (File changedFile : changedFiles) {
+            String sourceRelativePath = getSourceRelativePath(changedFile);
+            if (sourceRelativePath == null) {
+                continue;
+            }
 
-                    //if the class coverage of the jacoco report is found in the source files of the module
-                    File sourceFile = new File(sourceDir, classCoverage.getName() + ".java");
+            //if the changed file is found in the source files of the module and in the jacoco report
+            File sourceFile = getSourceFile(sourceRelativePath);
+            ISourceFileCoverage sourceFileCoverage = sourceFileCoverageIndex.get(sourceRelativePath);
 
-                    if (sourceFile.exists()) {
-                        //we create a code coverage object for the class file
-                        ICounter lineCounter = classCoverage.getLineCounter();
-                        ICounter instructionsCounter = classCoverage.getInstructionCounter();
+            if (sourceFile != null && sourceFileCoverage != null) {
+                //we create a code coverage object for the source file, which contains all the classes of that file
+                ICounter lineCounter = sourceFileCoverage.getLineCounter();
+                ICounter instructionsCounter = sourceFileCoverage.getInstructionCounter();
 
-                        int instructionsMissedCount = instructionsCounter.getMissedCount();
-                        int instructionsCoveredCount = instructionsCounter.getCoveredCount();
-                        int lineCoveredCount = lineCounter.getCoveredCount();
-                        int lineMissedCount = lineCounter.getMissedCount();
+                int instructionsMissedCount = instructionsCounter.getMissedCount();
+                int instructionsCoveredCount = instructionsCounter.getCoveredCount();
+                int lineCoveredCount = lineCounter.getCoveredCount();
+                int lineMissedCount = lineCounter.getMissedCount();
 
-                        String filePath = sourceFile.getPath();
-                        CodeCoverage codeCoverageForFile = new CodeCoverage(filePath, CodeCoverage.CoverageType.CLASS, instructionsMissedCount, instructionsCoveredCount, lineMissedCount, lineCoveredCount);
+                String filePath = sourceFile.getPath();
+                CodeCoverage codeCoverageForFile = new CodeCoverage(filePath, CodeCoverage.CoverageType.CLASS, instructionsMissedCount, instructionsCoveredCount, lineMissedCount, lineCoveredCount);
 
-                        codeCoveragePerFile.put(filePath, codeCoverageForFile);
-                    }
-                }
+                codeCoveragePerFile.put(filePath, codeCoverageForFile);
             }
         }
 
@@ -152,56 +280,62 @@ public class JaCoCoInteractor {
      * @param changedLinesOverview the changed lines overview. This can be retrieved using the {@link GitInteractor#getChangedLines(String)} method
      * @return a map containing the code coverage for each changed file. The key is the file path and the value is the code coverage object (see {@link CodeCoverage})
      */
-    public HashMap<String, CodeCoverage> getCodeCoverageForChangedLinesOfChangedFiles(Set<File> changedFiles, HashMap<String, int[]> changedLinesOverview){
+    public HashMap<String, CodeCoverage> getCodeCoverageForChangedLinesOfChangedFiles(Set<File> changedFiles, HashMap<String, ChangedLines> changedLinesOverview){
         HashMap<String, CodeCoverage> codeCoveragePerFile = new HashMap<>(changedFiles.size());
 
-        for (String sourceRoot : getSourceCodePaths()) {
-            File sourceDir = new File(getBaseDir(), sourceRoot);
-            if (sourceDir.exists()) {
-                for (IClassCoverage classCoverage : getCoverageBuilder().getClasses()) {
+        HashMap<String, ISourceFileCoverage> sourceFileCoverageIndex = getSourceFileCoverageIndex();
 
-                    File sourceFile = new File(sourceDir, classCoverage.getName() + ".java");
-                    //boolean found = classFilesOfModule.stream().anyMatch(filePath -> filePath.contains(classCoverage.getName()));
+        for (Map.Entry<String, ChangedLines> changedLinesOfSourceFile : getChangedLinesPerSourceFile(changedLinesOverview).entrySet()) {
 
-                    if (sourceFile.exists()) {
-                        int[] changedLinesOfFile = getLinesForPath(classCoverage.getName(), changedLinesOverview);
+            File sourceFile = getSourceFile(changedLinesOfSourceFile.getKey());
+            ISourceFileCoverage sourceFileCoverage = sourceFileCoverageIndex.get(changedLinesOfSourceFile.getKey());
 
-                        if(changedLinesOfFile.length == 0){
-                            continue;
-                        }
+            if (sourceFile != null && sourceFileCoverage != null) {
+                ChangedLines changedLinesOfFile = changedLinesOfSourceFile.getValue();
+
+                if(changedLinesOfFile.isEmpty()){
+                    continue;
+                }
 
-                        int totalLinesThatAreCovered = 0;
-                        int totalLinesThatAreNotCovered = 0;
-
-                        for (int i = 0; i < changedLinesOfFile.length; i++) {
-                            ILine line = classCoverage.getLine(changedLinesOfFile[i]);
-                            int status = line.getStatus();
-
-                            if ((status & ICounter.NOT_COVERED) != 0) {
-                                totalLinesThatAreNotCovered++;
-                            } else if ((status & ICounter.FULLY_COVERED) != 0) {
-                                totalLinesThatAreCovered++;
-                            } else if ((status & ICounter.PARTLY_COVERED) != 0) {
-                                //TODO: for now we will treat this as not covered.
-                                //      In the future this can probably come from a configuration by the end-user.
-                                totalLinesThatAreNotCovered++;
-                            }
-                            //TODO: leaving commented for now, in the future, we might want to generate a nice overview
-                            //      per class file. We could than use the status to generate a nice overview. Unknown means that this is
-                            //      probably a line that is not code. Can be comment, whitespace etc.
-                            /*else {
-                                //skip
-                                System.out.println("Line " + changedLinesOfFile[i]+ " has unknown coverage status.");
-                            }*/
+                int totalLinesThatAreCovered = 0;
+                int totalLinesThatAreNotCovered = 0;
+
+                //only the part of an interval that overlaps with the lines Jacoco knows about can contain code, so a large
+                //addition of comments or other files does not cost a lookup per line
+                int firstLine = sourceFileCoverage.getFirstLine();
+                int lastLine = sourceFileCoverage.getLastLine();
+
+                for (int i = 0; i < changedLinesOfFile.getNumberOfIntervals(); i++) {
+                    int start = Math.max(changedLinesOfFile.getStart(i), firstLine);
+                    int end = Math.min(changedLinesOfFile.getEnd(i), lastLine);
+                    for (int lineNumber = start; lineNumber <= end; lineNumber++) {
+                        ILine line = sourceFileCoverage.getLine(lineNumber);
+                        int status = line.getStatus();
+
+                        if ((status & ICounter.NOT_COVERED) != 0) {
+                            totalLinesThatAreNotCovered++;
+                        } else if ((status & ICounter.FULLY_COVERED) != 0) {
+                            totalLinesThatAreCovered++;
+                        } else if ((status & ICounter.PARTLY_COVERED) != 0) {
+                            //TODO: for now we will treat this as not covered.
+                            //      In the future this can probably come from a configuration by the end-user.
+                            totalLinesThatAreNotCovered++;
                         }
+                        //TODO: leaving commented for now, in the future, we might want to generate a nice overview
+                        //      per class file. We could than use the status to generate a nice overview. Unknown means that this is
+                        //      probably a line that is not code. Can be comment, whitespace etc.
+                        /*else {
+                            //skip
+                            System.out.println("Line " + lineNumber + " has unknown coverage status.");
+                        }*/
+                    }
+                }
 
-                        String filePath = sourceFile.getPath();
-                        CodeCoverage codeCoverageForFile = new CodeCoverage(filePath, CodeCoverage.CoverageType.PER_CHANGED_LINE, -1, -1, totalLinesThatAreNotCovered, totalLinesThatAreCovered);
+                String filePath = sourceFile.getPath();
+                CodeCoverage codeCoverageForFile = new CodeCoverage(filePath, CodeCoverage.CoverageType.PER_CHANGED_LINE, -1, -1, totalLinesThatAreNotCovered, totalLinesThatAreCovered);
 
-                        codeCoveragePerFile.put(filePath, codeCoverageForFile);
+                codeCoveragePerFile.put(filePath, codeCoverageForFile);
 
-                    }
-                }
             }
         }
 
@@ -210,31 +344,137 @@ public class JaCoCoInteractor {
     }
 
     /**
-     * Utility method to get the integer array for a specific file from the changed lines overview
-     * @param path the path of the file
-     * @param changedLinesOverview the changed lines overview
-     * @return the integer array for the file
+     * The source files that were looked up, keyed by the path relative to the source root. A path that is not found in any
+     * source root maps to null.
+     */
+    private final HashMap<String, File> sourceFiles = new HashMap<>();
+
+    /**
+     * Finds a java source file in the source code paths. Only the changed files are looked up, so the source file is probed
+     * directly in each source root instead of walking the source roots. The result is remembered, so both coverage methods
+     * look a file up only once. If the same relative path exists in multiple source roots, the first source root wins.
+     * @param sourceRelativePath the path of the source file relative to its source root, e.g. 'com/example/Foo.java'
+     * @return the source file or null if none of the source roots contains it
      */
-    protected static int[] getLinesForPath(String path, HashMap<String, int[]> changedLinesOverview) {
-        for (Map.Entry<String, int[]> entry : changedLinesOverview.entrySet()) {
-            String key = entry.getKey();
-            if (key.contains(path)) {
-                return entry.getValue();
+    private File getSourceFile(String sourceRelativePath) {
+        if (sourceFiles.containsKey(sourceRelativePath)) {
+            return sourceFiles.get(sourceRelativePath);
+        }
+
+        File sourceFile = null;
+        for (String sourceRoot : getSourceCodePaths()) {
+            File candidate = new File(new File(getBaseDir(), sourceRoot), sourceRelativePath);
+            if (candidate.isFile()) {
+                sourceFile = candidate;
+                break;
             }
         }
-        return new int[0];
+        sourceFiles.put(sourceRelativePath, sourceFile);
+        return sourceFile;
     }
 
     /**
-     * Analyzes the classes directory based on the Jacoco.exec file and the coverage builder
-     * @param jacocoExecFile the Jacoco.exec file
-     * @param coverageBuilder the coverage builder
-     * @param classPathDirectory the class path directory that needs to be analyzed. This is usually the 'target/classes' directory
-     * @throws IOException if the classes directory cannot be analyzed
+     * Re-keys the changed lines overview from paths relative to the repository root to paths relative to the source roots
+     * (e.g. 'com/example/Foo.java'), so they can be matched with the source files in a single hash lookup.
+     * Files that are not part of one of the source roots are left out.
+     * @param changedLinesOverview the changed lines overview, see {@link GitInteractor#getChangedLines(String)}
+     * @return the changed lines per source file, keyed by the path relative to the source root
      */
-    private static void analyzeClassesDirectory(File jacocoExecFile, CoverageBuilder coverageBuilder, File classPathDirectory) throws IOException {
-        Analyzer analyzer = new Analyzer(getExecutionDataStore(jacocoExecFile), coverageBuilder);
-        analyzer.analyzeAll(classPathDirectory);
+    HashMap<String, ChangedLines> getChangedLinesPerSourceFile(HashMap<String, ChangedLines> changedLinesOverview) {
+        HashMap<String, ChangedLines> changedLinesPerSourceFile = new HashMap<>(changedLinesOverview.size());
+        for (Map.Entry<String, ChangedLines> entry : changedLinesOverview.entrySet()) {
+            String sourceRelativePath = getSourceRelativePath(new File(entry.getKey()));
+            if (sourceRelativePath != null) {
+                changedLinesPerSourceFile.put(sourceRelativePath, entry.getValue());
+            }
+        }
+        return changedLinesPerSourceFile;
+    }
+
+    private HashMap<String, ISourceFileCoverage> sourceFileCoverageIndex;
+
+    /**
+     * Returns the coverage per source file as merged by the coverage builder, keyed by the path of the source file relative
+     * to the source root (e.g. 'com/example/Foo.java'). A source file coverage combines all the classes compiled from that
+     * file, so nested, anonymous and secondary top-level classes are taken into account as well.
+     * @return the coverage per source file
+     */
+    private HashMap<String, ISourceFileCoverage> getSourceFileCoverageIndex() {
+        if (sourceFileCoverageIndex == null) {
+            Collection<ISourceFileCoverage> sourceFiles = getCoverageBuilder().getSourceFiles();
+            HashMap<String, ISourceFileCoverage> index = new HashMap<>(sourceFiles.size());
+            for (ISourceFileCoverage sourceFileCoverage : sourceFiles) {
+                String packageName = sourceFileCoverage.getPackageName();
+                index.put(packageName.isEmpty() ? sourceFileCoverage.getName() : packageName + "/" + sourceFileCoverage.getName(), sourceFileCoverage);
+            }
+            sourceFileCoverageIndex = index;
+        }
+        return sourceFileCoverageIndex;
+    }
+
+    /**
+     * Maps the changed source files onto their paths relative to the source roots, e.g. 'com/example/Foo.java' for
+     * 'module/src/main/java/com/example/Foo.java', so the classes compiled from them can be found, see {@link ClassPath#of(List, Set)}.
+     * Changed files outside the source roots are ignored.
+     * @param changedFiles the changed files relative to the repository root
+     * @return the paths of the changed source files relative to the source roots
+     */
+    Set<String> getChangedSourceFiles(Set<File> changedFiles) {
+        Set<String> changedSourceFiles = new HashSet<>();
+        for (File changedFile : changedFiles) {
+            String sourceRelativePath = getSourceRelativePath(changedFile);
+            if (sourceRelativePath != null) {
+                changedSourceFiles.add(sourceRelativePath);
+            }
+        }
+        return changedSourceFiles;
+    }
+
+    /**
+     * Maps a changed file, relative to the repository root, onto its path relative to the source root that contains it.
+     * E.g. 'single-module-example/src/main/java/com/example/Foo.java' becomes 'com/example/Foo.java'.
+     * @param changedFile the changed file relative to the repository root
+     * @return the path relative to the source root or null if the file is not a java file in one of the source roots
+     */
+    String getSourceRelativePath(File changedFile) {
+        String path = changedFile.getPath().replace(File.separatorChar, '/');
+        if (!path.endsWith(".java")) {
+            return null;
+        }
+
+        for (String sourceRoot : getRepositoryRelativeSourceRoots()) {
+            if (sourceRoot.isEmpty()) {
+                return path;
+            }
+            if (path.startsWith(sourceRoot + "/")) {
+                return path.substring(sourceRoot.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Converts the source code paths into paths relative to the root of the git repository that contains the base directory.
+     * If the base directory is not part of a git repository, the paths are made relative to the base directory itself.
+     * @param sourceCodePaths the source code paths, relative to the base directory or absolute
+     * @param baseDir the base directory of the project
+     * @return the source code paths relative to the repository root, using '/' as separator
+     * @throws IOException if the canonical paths cannot be resolved
+     */
+    private static List<String> toRepositoryRelativeSourceRoots(String[] sourceCodePaths, File baseDir) throws IOException {
+        File repositoryRoot = GitInteractor.findRepositoryRoot(baseDir);
+        Path rootPath = (repositoryRoot != null ? repositoryRoot : baseDir.getCanonicalFile()).toPath();
+
+        List<String> sourceRoots = new ArrayList<>(sourceCodePaths.length);
+        for (String sourceCodePath : sourceCodePaths) {
+            File sourceRoot = new File(sourceCodePath);
+            if (!sourceRoot.isAbsolute()) {
+                sourceRoot = new File(baseDir, sourceCodePath);
+            }
+            Path relativeSourceRoot = rootPath.relativize(sourceRoot.getCanonicalFile().toPath());
+            sourceRoots.add(relativeSourceRoot.toString().replace(File.separatorChar, '/'));
+        }
+        return sourceRoots;
     }
 
     /**
@@ -261,23 +501,4 @@ public class JaCoCoInteractor {
         return new CodeCoverage(null,CodeCoverage.CoverageType.TOTAL, totalInstructionsMissed, totalInstructionsCovered, totalLinesMissed, totalLinesCovered);
     }
 
-
-    /**
-     * Gets the ExecutionDataStore based on the Jacoco.exec file
-     * @param jacocoExecFile the Jacoco.exec file
-     * @return the ExecutionDataStore
-     */
-    private static ExecutionDataStore getExecutionDataStore(File jacocoExecFile) throws IOException {
-        FileInputStream execFile = new FileInputStream(jacocoExecFile);
-
-        ExecutionDataStore executionData = new ExecutionDataStore();
-        SessionInfoStore sessionInfo = new SessionInfoStore();
-        ExecutionDataReader reader = new ExecutionDataReader(execFile);
-        reader.setExecutionDataVisitor(executionData);
-        reader.setSessionInfoVisitor(sessionInfo);
-        reader.read();
-
-        return executionData;
-    }
-
 }
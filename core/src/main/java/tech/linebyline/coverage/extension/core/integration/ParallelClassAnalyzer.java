@@ -0,0 +1,220 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.data.CRC64;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Analyzes class files in parallel. The class files are split over a work-stealing fork/join pool, where each worker
+ * runs its own {@link Analyzer} and {@link CoverageBuilder} against the shared, read-only {@link ExecutionDataStore}.
+ * The coverage builders of the workers are merged into one coverage builder at the end.
+ * <br></br>
+ * When a {@link ClassAnalysisCache} is passed, class files whose bytecode and probes did not change since they were cached
+ * are not analyzed again. The cache key is the class id JaCoCo looks the probes up with. JaCoCo computes it internally
+ * and has no public API for it, so the internal {@link CRC64} is used deliberately, and a JaCoCo upgrade has to keep it.
+ */
+public class ParallelClassAnalyzer {
+
+    /**
+     * The number of class files below which a task is not split any further
+     */
+    static final int BATCH_SIZE = 32;
+
+    private final ExecutionDataStore executionDataStore;
+
+    private final int threads;
+
+    private final ClassAnalysisCache cache;
+
+    /**
+     * Constructor
+     * @param executionDataStore the execution data to analyze the classes against. It is only read, never modified.
+     * @param threads the number of threads to analyze the classes with. With 1 thread, the classes are analyzed on the calling thread.
+     */
+    public ParallelClassAnalyzer(ExecutionDataStore executionDataStore, int threads) {
+        this(executionDataStore, threads, null);
+    }
+
+    /**
+     * Constructor
+     * @param executionDataStore the execution data to analyze the classes against. It is only read, never modified.
+     * @param threads the number of threads to analyze the classes with. With 1 thread, the classes are analyzed on the calling thread.
+     * @param cache the cache to take the coverage of unchanged classes from and to add the analyzed classes to, or null to analyze all the classes
+     */
+    public ParallelClassAnalyzer(ExecutionDataStore executionDataStore, int threads, ClassAnalysisCache cache) {
+        if(executionDataStore == null){
+            throw new IllegalArgumentException("The execution data store cannot be null.");
+        }
+        if(threads < 1){
+            throw new IllegalArgumentException("The number of analysis threads must be at least 1.");
+        }
+        this.executionDataStore = executionDataStore;
+        this.threads = threads;
+        this.cache = cache;
+    }
+
+    /**
+     * Analyzes the class files and adds the result to the coverage builder
+     * @param classFiles the class files to analyze. Directories and archives are analyzed as well, just like {@link Analyzer#analyzeAll(File)} does.
+     * @param coverageBuilder the coverage builder to add the coverage of the analyzed classes to
+     * @throws IOException if one of the class files cannot be analyzed
+     */
+    public void analyze(List<File> classFiles, CoverageBuilder coverageBuilder) throws IOException {
+        try (ClassPath classPath = ClassPath.of(classFiles)) {
+            analyzeClassFiles(classPath.getClassFiles(), coverageBuilder);
+        }
+    }
+
+    /**
+     * Analyzes the class files of a class path and adds the result to the coverage builder
+     * @param classFiles the class files to analyze, see {@link ClassPath#getClassFiles()}. The class path needs to stay open during the analysis.
+     * @param coverageBuilder the coverage builder to add the coverage of the analyzed classes to
+     * @throws IOException if one of the class files cannot be analyzed
+     */
+    public void analyzeClassFiles(List<ClassPath.ClassFile> classFiles, CoverageBuilder coverageBuilder) throws IOException {
+        if(threads == 1 || classFiles.size() <= BATCH_SIZE){
+            analyzeSequentially(classFiles, coverageBuilder);
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<CoverageBuilder> workerResults = pool.invoke(new AnalysisTask(classFiles, 0, classFiles.size()));
+            for (CoverageBuilder workerResult : workerResults) {
+                merge(workerResult, coverageBuilder);
+            }
+        } catch (UncheckedIOException e) {
+            throw findIOException(e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void analyzeSequentially(List<ClassPath.ClassFile> classFiles, CoverageBuilder coverageBuilder) throws IOException {
+        CapturingCoverageVisitor visitor = new CapturingCoverageVisitor(coverageBuilder);
+        Analyzer analyzer = new Analyzer(executionDataStore, visitor);
+        for (ClassPath.ClassFile classFile : classFiles) {
+            if (cache == null || !classFile.isClassFile()) {
+                try (InputStream inputStream = classFile.open()) {
+                    analyzer.analyzeAll(inputStream, classFile.getLocation());
+                }
+                continue;
+            }
+
+            byte[] bytes = classFile.readBytes();
+            long classId = CRC64.classId(bytes);
+            ClassAnalysisCache.Entry entry = cache.get(classId, executionDataStore);
+            if (entry != null) {
+                if (!entry.isSkipped()) {
+                    coverageBuilder.visitCoverage(entry.getClassCoverage());
+                }
+                continue;
+            }
+
+            visitor.classCoverage = null;
+            analyzer.analyzeClass(bytes, classFile.getLocation());
+            cache.put(classId, executionDataStore, visitor.classCoverage);
+        }
+    }
+
+    /**
+     * Passes the analyzed classes on to the coverage builder and remembers the last one, so it can be added to the cache
+     */
+    private static class CapturingCoverageVisitor implements ICoverageVisitor {
+
+        private final ICoverageVisitor delegate;
+
+        private IClassCoverage classCoverage;
+
+        CapturingCoverageVisitor(ICoverageVisitor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void visitCoverage(IClassCoverage coverage) {
+            this.classCoverage = coverage;
+            delegate.visitCoverage(coverage);
+        }
+    }
+
+    /**
+     * Merges the classes of one coverage builder into another. The target coverage builder rebuilds its source files
+     * and packages from the merged classes.
+     * @param source the coverage builder to take the classes from
+     * @param target the coverage builder to add the classes to
+     */
+    static void merge(CoverageBuilder source, CoverageBuilder target) {
+        for (IClassCoverage classCoverage : source.getClasses()) {
+            target.visitCoverage(classCoverage);
+        }
+    }
+
+    /**
+     * The fork/join pool may rethrow a copy of the exception of a worker, so the original IOException is looked up in the causes
+     * @param exception the exception thrown by the pool
+     * @return the IOException that caused the analysis to fail
+     */
+    private static IOException findIOException(UncheckedIOException exception) {
+        Throwable cause = exception;
+        while (cause != null) {
+            if (cause instanceof IOException) {
+                return (IOException) cause;
+            }
+            cause = cause.getCause();
+        }
+        return new IOException(exception);
+    }
+
+    /**
+     * Splits the class files in halves until a batch is small enough to be analyzed by a single worker
+     */
+    private class AnalysisTask extends RecursiveTask<List<CoverageBuilder>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<ClassPath.ClassFile> classFiles;
+        private final int from;
+        private final int to;
+
+        AnalysisTask(List<ClassPath.ClassFile> classFiles, int from, int to) {
+            this.classFiles = classFiles;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<CoverageBuilder> compute() {
+            if (to - from <= BATCH_SIZE) {
+                CoverageBuilder coverageBuilder = new CoverageBuilder();
+                try {
+                    analyzeSequentially(classFiles.subList(from, to), coverageBuilder);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                List<CoverageBuilder> result = new ArrayList<>();
+                result.add(coverageBuilder);
+                return result;
+            }
+
+            int middle = (from + to) >>> 1;
+            AnalysisTask left = new AnalysisTask(classFiles, from, middle);
+            AnalysisTask right = new AnalysisTask(classFiles, middle, to);
+            left.fork();
+            List<CoverageBuilder> result = right.compute();
+            result.addAll(left.join());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads the changes from a unified diff that was created beforehand, e.g. with 'git diff origin/develop > changes.patch',
+ * instead of running git. The diff can be computed once and be handed to every module of a build, or to a build that has
+ * no git at all. The patch is parsed with the same {@link UnifiedDiffParser} as the output of git, so the paths in the
+ * patch need to be relative to the repository root, which is what 'git diff' writes by default.
+ * <br></br>
+ * The branch to compare is ignored, the patch already is the diff against it. Like the other diff providers only the
+ * java files that were not deleted are taken into account. The patch is read only once.
+ */
+public class PatchFileDiffProvider implements DiffProvider {
+
+    /**
+     * The name of the patch file that reads the patch from the standard input
+     */
+    public static final String STANDARD_INPUT = "-";
+
+    /**
+     * The standard input can only be read once, so its changes are shared by all the providers of the JVM, e.g. by all
+     * the modules of a Maven build
+     */
+    private static ChangeSet standardInputChanges;
+
+    private final String patchFile;
+
+    private final InputStream standardInput;
+
+    private ChangeSet changes;
+
+    /**
+     * Constructor
+     * @param patchFile the path of the unified diff or {@value #STANDARD_INPUT} to read it from the standard input
+     */
+    public PatchFileDiffProvider(String patchFile) {
+        this(patchFile, null);
+    }
+
+    /**
+     * @param standardInput the stream that is read instead of {@link System#in}, or null for {@link System#in}
+     */
+    PatchFileDiffProvider(String patchFile, InputStream standardInput) {
+        this.patchFile = patchFile;
+        this.standardInput = standardInput;
+    }
+
+    @Override
+    public Set<File> getOverviewOfChangedFiles(String branchToCompare) throws RuntimeException {
+        try {
+            return getChanges(branchToCompare).getChangedFiles();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read the patch file " + patchFile + ": " + e);
+        }
+    }
+
+    @Override
+    public HashMap<String, ChangedLines> getChangedLines(String branchToCompare) throws IOException {
+        return getChanges(branchToCompare).getChangedLines();
+    }
+
+    @Override
+    public synchronized ChangeSet getChanges(String branchToCompare) throws IOException {
+        if (changes == null) {
+            if (!STANDARD_INPUT.equals(patchFile)) {
+                try (InputStream inputStream = new BufferedInputStream(new FileInputStream(patchFile))) {
+                    changes = parse(inputStream);
+                }
+            } else if (standardInput != null) {
+                changes = parse(standardInput);
+            } else {
+                changes = readSystemIn();
+            }
+        }
+        return changes;
+    }
+
+    private static synchronized ChangeSet readSystemIn() throws IOException {
+        if (standardInputChanges == null) {
+            standardInputChanges = parse(System.in);
+        }
+        return standardInputChanges;
+    }
+
+    /**
+     * Parses a patch and keeps the java files that were added or modified
+     * @param inputStream the patch
+     * @return the changes of the patch
+     * @throws IOException if the patch cannot be read
+     */
+    static ChangeSet parse(InputStream inputStream) throws IOException {
+        UnifiedDiffParser parser = new UnifiedDiffParser();
+        ChangeSet changeSet = parser.parse(inputStream);
+
+        Set<File> changedFiles = new HashSet<>();
+        HashMap<String, ChangedLines> changedLines = new HashMap<>();
+        for (File changedFile : changeSet.getChangedFiles()) {
+            String path = changedFile.getPath().replace(File.separatorChar, '/');
+            if (!path.endsWith(".java") || parser.getDeletedFiles().contains(changedFile)) {
+                continue;
+            }
+            changedFiles.add(changedFile);
+            ChangedLines changedLinesOfFile = changeSet.getChangedLines().get(path);
+            if (changedLinesOfFile != null) {
+                changedLines.put(path, changedLinesOfFile);
+            }
+        }
+        return new ChangeSet(changedFiles, changedLines);
+    }
+}
@@ -0,0 +1,442 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a subprocess, like git, and reads its output. The standard output is handed to an {@link OutputHandler} on a reader
+ * thread while the error output is drained on another thread at the same time, so a process that writes a lot of warnings
+ * can never block on a full error pipe. Only the first {@value #MAX_ERROR_OUTPUT} bytes of the error output are kept.
+ * <br></br>
+ * A process that does not finish within the timeout, e.g. because it waits for a lock or a credential prompt, is killed
+ * together with its child processes. A process that git started but that left the process tree, like a daemonized
+ * credential helper, can still hold the output pipes open. Reading them cannot be interrupted, so the caller waits for the
+ * readers only {@link #KILL_GRACE_PERIOD} longer and leaves them behind.
+ * The runner counts the processes it ran and their wall time, so it can be reported how much time was spent in subprocesses.
+ * It is safe to run processes from several threads at the same time.
+ * <br></br>
+ * A process that keeps running and answers requests, like 'git cat-file --batch', is started with {@link #start(List, File)}.
+ * Its error output is drained the same way and every request is guarded by the same timeout.
+ */
+public class ProcessRunner {
+
+    /**
+     * The timeout that is used when none is configured
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(5);
+
+    static final int MAX_ERROR_OUTPUT = 64 * 1024;
+
+    /**
+     * The time the output gets to end after the process exited or was killed
+     */
+    static final Duration KILL_GRACE_PERIOD = Duration.ofSeconds(5);
+
+    private static final ExecutorService OUTPUT_READERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "process-stdout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "process-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Duration timeout;
+
+    private final AtomicInteger processes = new AtomicInteger();
+
+    private final AtomicLong wallTimeNanos = new AtomicLong();
+
+    /**
+     * Constructor
+     * @param timeout the time a process may take before it is killed, or null or zero for no timeout
+     */
+    public ProcessRunner(Duration timeout) {
+        this.timeout = timeout == null || timeout.isZero() || timeout.isNegative() ? null : timeout;
+    }
+
+    /**
+     * Runs a command and waits for it to finish
+     * @param command the command and its arguments
+     * @param directory the directory the command is run in, or null for the working directory
+     * @param outputHandler reads the standard output of the process. It is called on a reader thread and should read until the end.
+     * @return the result of the process. A process that fails is not an exception, see {@link Result#isSuccess()}.
+     * @param <T> the type the output handler returns
+     * @throws IOException if the process cannot be started or the output cannot be read
+     * @throws InterruptedException if the thread is interrupted while waiting for the process
+     * @throws RuntimeException if the process does not finish within the timeout
+     */
+    public <T> Result<T> run(List<String> command, File directory, OutputHandler<T> outputHandler) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.directory(directory);
+        Process process = processBuilder.start();
+
+        ErrorOutputDrainer errorOutputDrainer = new ErrorOutputDrainer(process.getErrorStream());
+        Thread errorThread = new Thread(errorOutputDrainer, "process-stderr");
+        errorThread.setDaemon(true);
+        errorThread.start();
+
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> watchdog = timeout == null ? null : WATCHDOG.schedule(() -> {
+            timedOut.set(true);
+            kill(process);
+        }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+
+        Future<T> output = OUTPUT_READERS.submit(() -> {
+            try (InputStream inputStream = process.getInputStream()) {
+                T result = outputHandler.handle(inputStream);
+                //the handler may stop early, the rest of the output is read so the process does not block on a full pipe
+                inputStream.transferTo(OutputStream.nullOutputStream());
+                return result;
+            }
+        });
+
+        try {
+            T result = getOutput(output, start, timedOut, command);
+            int exitCode = process.waitFor();
+            errorThread.join(KILL_GRACE_PERIOD.toMillis());
+            if (timedOut.get()) {
+                throw createTimeoutException(command);
+            }
+            return new Result<>(exitCode, result, errorOutputDrainer.getErrorOutput(), System.nanoTime() - start);
+        } finally {
+            if (watchdog != null) {
+                watchdog.cancel(false);
+            }
+            if (process.isAlive() || !output.isDone()) {
+                kill(process);
+            }
+            processes.incrementAndGet();
+            wallTimeNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Waits for the output handler. With a timeout it waits until the grace period after the timeout at most: the watchdog
+     * has killed the process by then, so an output that still has not ended is held open by a process that escaped.
+     */
+    private <T> T getOutput(Future<T> output, long start, AtomicBoolean timedOut, List<String> command) throws IOException, InterruptedException {
+        try {
+            if (timeout == null) {
+                return output.get();
+            }
+            long remaining = timeout.plus(KILL_GRACE_PERIOD).toNanos() - (System.nanoTime() - start);
+            return output.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw createTimeoutException(command);
+        } catch (ExecutionException e) {
+            if (timedOut.get()) {
+                throw createTimeoutException(command);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Kills a process and the processes it started, which may hold its output pipes open, e.g. a credential helper or
+     * a hook. The streams are closed so nothing can be written to the process anymore.
+     */
+    private static void kill(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+        closeQuietly(process.getOutputStream());
+        closeQuietly(process.getErrorStream());
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            //the process is gone already
+        }
+    }
+
+    /**
+     * Starts a process that keeps running and is sent requests through its standard input, see {@link LongRunningProcess}.
+     * The process is counted when it is stopped, its wall time is the time between starting and stopping it.
+     * @param command the command and its arguments
+     * @param directory the directory the command is run in, or null for the working directory
+     * @return the running process
+     * @throws IOException if the process cannot be started
+     */
+    public LongRunningProcess start(List<String> command, File directory) throws IOException {
+        return new LongRunningProcess(command, directory);
+    }
+
+    private RuntimeException createTimeoutException(List<String> command) {
+        return new RuntimeException("The command '" + String.join(" ", command) + "' did not finish within " + timeout.toSeconds() + " seconds and was stopped.");
+    }
+
+    /**
+     * @return the timeout or null if processes may run forever
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return the number of processes that were run
+     */
+    public int getProcesses() {
+        return processes.get();
+    }
+
+    /**
+     * @return the wall time of all the processes together, in nanoseconds. Processes that ran at the same time are all counted.
+     */
+    public long getWallTimeNanos() {
+        return wallTimeNanos.get();
+    }
+
+    /**
+     * A process that was started with {@link #start(List, File)}. Every request is run with {@link #request(Request)}: a
+     * request that does not get its answer within the timeout kills the process, so a process that hangs cannot block the
+     * build. The process is stopped by closing its input and calling {@link #stop(Duration)}.
+     */
+    public class LongRunningProcess {
+
+        private final List<String> command;
+
+        private final Process process;
+
+        private final Thread errorThread;
+
+        private final long start = System.nanoTime();
+
+        private final AtomicBoolean stopped = new AtomicBoolean();
+
+        private LongRunningProcess(List<String> command, File directory) throws IOException {
+            this.command = command;
+            ProcessBuilder processBuilder = new ProcessBuilder(command);
+            processBuilder.directory(directory);
+            process = processBuilder.start();
+
+            errorThread = new Thread(new ErrorOutputDrainer(process.getErrorStream()), "process-stderr");
+            errorThread.setDaemon(true);
+            errorThread.start();
+        }
+
+        /**
+         * @return the standard input of the process, the requests are written to it
+         */
+        public OutputStream getOutputStream() {
+            return process.getOutputStream();
+        }
+
+        /**
+         * @return the standard output of the process, the responses are read from it
+         */
+        public InputStream getInputStream() {
+            return process.getInputStream();
+        }
+
+        /**
+         * Runs a request, e.g. writing a line to the process and reading its answer. The process is killed when the
+         * request takes longer than the timeout of the runner.
+         * @param request writes the request and reads the response
+         * @return what the request returned
+         * @param <T> the type the request returns
+         * @throws IOException if the request fails
+         * @throws RuntimeException if the request does not finish within the timeout
+         */
+        public <T> T request(Request<T> request) throws IOException {
+            AtomicBoolean timedOut = new AtomicBoolean();
+            ScheduledFuture<?> watchdog = timeout == null ? null : WATCHDOG.schedule(() -> {
+                timedOut.set(true);
+                kill(process);
+            }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+            try {
+                return request.call();
+            } catch (IOException e) {
+                if (timedOut.get()) {
+                    throw createTimeoutException(command);
+                }
+                throw e;
+            } finally {
+                if (watchdog != null) {
+                    watchdog.cancel(false);
+                }
+            }
+        }
+
+        /**
+         * @return a description of the exit code for an error message, 'unknown' while the process is still running
+         */
+        public String getExitCode() {
+            return process.isAlive() ? "unknown" : String.valueOf(process.exitValue());
+        }
+
+        /**
+         * Kills the process, e.g. when the requests and responses are out of step
+         */
+        public void destroy() {
+            kill(process);
+        }
+
+        /**
+         * Waits for the process to exit, e.g. after its input was closed, and kills it when it does not exit in time.
+         * The process is counted by the runner the first time it is stopped.
+         * @param gracePeriod the time the process gets to exit by itself
+         * @throws InterruptedException if the thread is interrupted while waiting, the process is killed
+         */
+        public void stop(Duration gracePeriod) throws InterruptedException {
+            try {
+                if (!process.waitFor(gracePeriod.toNanos(), TimeUnit.NANOSECONDS)) {
+                    kill(process);
+                }
+                errorThread.join(gracePeriod.toMillis());
+            } catch (InterruptedException e) {
+                kill(process);
+                throw e;
+            } finally {
+                if (stopped.compareAndSet(false, true)) {
+                    processes.incrementAndGet();
+                    wallTimeNanos.addAndGet(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    /**
+     * A request to a {@link LongRunningProcess}
+     * @param <T> the type of the response
+     */
+    @FunctionalInterface
+    public interface Request<T> {
+
+        /**
+         * @return the response
+         * @throws IOException if the request cannot be written or the response cannot be read
+         */
+        T call() throws IOException;
+    }
+
+    /**
+     * Reads the standard output of a process
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface OutputHandler<T> {
+
+        /**
+         * @param inputStream the standard output of the process. It is closed by the runner.
+         * @return the result of reading the output
+         * @throws IOException if the output cannot be read
+         */
+        T handle(InputStream inputStream) throws IOException;
+    }
+
+    /**
+     * The result of a process that finished
+     * @param <T> the type the output handler returned
+     */
+    public static class Result<T> {
+
+        private final int exitCode;
+        private final T output;
+        private final String errorOutput;
+        private final long wallTimeNanos;
+
+        Result(int exitCode, T output, String errorOutput, long wallTimeNanos) {
+            this.exitCode = exitCode;
+            this.output = output;
+            this.errorOutput = errorOutput;
+            this.wallTimeNanos = wallTimeNanos;
+        }
+
+        /**
+         * @return true if the process exited with 0
+         */
+        public boolean isSuccess() {
+            return exitCode == 0;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        /**
+         * @return what the output handler returned
+         */
+        public T getOutput() {
+            return output;
+        }
+
+        /**
+         * @return the start of the error output of the process
+         */
+        public String getErrorOutput() {
+            return errorOutput;
+        }
+
+        /**
+         * @return the time between starting the process and its exit, in nanoseconds
+         */
+        public long getWallTimeNanos() {
+            return wallTimeNanos;
+        }
+    }
+
+    /**
+     * Reads the error output until the end, keeping only the start of it
+     */
+    private static class ErrorOutputDrainer implements Runnable {
+
+        private final InputStream errorStream;
+
+        private final ByteArrayOutputStream errorOutput = new ByteArrayOutputStream();
+
+        ErrorOutputDrainer(InputStream errorStream) {
+            this.errorStream = errorStream;
+        }
+
+        @Override
+        public void run() {
+            byte[] buffer = new byte[8192];
+            try (InputStream inputStream = errorStream) {
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    int keep = Math.min(read, MAX_ERROR_OUTPUT - errorOutput.size());
+                    if (keep > 0) {
+                        errorOutput.write(buffer, 0, keep);
+                    }
+                }
+            } catch (IOException e) {
+                //the process was killed, what was read so far is kept
+            }
+        }
+
+        String getErrorOutput() {
+            return errorOutput.toString(StandardCharsets.UTF_8).trim();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Diffs a large changeset in parallel. The changed files are listed first with a cheap 'git diff --name-status', then they
+ * are split into batches and every batch is diffed by its own git process and parsed by its own {@link UnifiedDiffParser}.
+ * At most 'threads' diffs run at the same time. The results of the batches are merged into one {@link ChangeSet}.
+ * <br></br>
+ * A batch contains both the old and the new path of a renamed file, so git detects the rename within the batch and the
+ * result is the same as the result of a single diff.
+ * <br></br>
+ * The number of changed files is only known after listing them, so with more than one thread every diff costs that extra
+ * listing. A small changeset is then diffed with a single diff after all, which is one git call more than without sharding.
+ */
+public class ShardedDiff {
+
+    /**
+     * The number of changed files below which the changeset is diffed with a single diff
+     */
+    static final int MIN_FILES_TO_SHARD = 64;
+
+    /**
+     * The maximum number of characters of the paths of one batch, which keeps the command line of a batch well below the
+     * limits of the operating systems
+     */
+    static final int MAX_BATCH_LENGTH = 16 * 1024;
+
+    private final int threads;
+
+    private final int minFilesToShard;
+
+    private final ProcessRunner processRunner;
+
+    /**
+     * Constructor
+     * @param threads the maximum number of diffs that run at the same time
+     */
+    public ShardedDiff(int threads) {
+        this(threads, new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT));
+    }
+
+    /**
+     * Constructor
+     * @param threads the maximum number of diffs that run at the same time
+     * @param processRunner the runner every git process is run with
+     */
+    public ShardedDiff(int threads, ProcessRunner processRunner) {
+        this(threads, MIN_FILES_TO_SHARD, processRunner);
+    }
+
+    ShardedDiff(int threads, int minFilesToShard, ProcessRunner processRunner) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of diff threads must be at least 1.");
+        }
+        this.threads = threads;
+        this.minFilesToShard = minFilesToShard;
+        this.processRunner = processRunner;
+    }
+
+    /**
+     * Returns the changed files and the changed lines per file compared to the branch to compare, see {@link GitInteractor#getChanges(String, File, List)}
+     * @param branchToCompare the branch to compare the current branch to
+     * @param directory the directory git is run in, e.g. the project base directory, or null for the working directory
+     * @param pathspecs the pathspecs relative to the directory, or an empty list for the whole repository
+     * @return the changed files relative to the repository root and the changed lines per file
+     * @throws IOException if one of the git commands fails
+     * @throws InterruptedException if one of the git commands fails
+     */
+    public ChangeSet getChanges(String branchToCompare, File directory, List<String> pathspecs) throws IOException, InterruptedException {
+        if (threads == 1) {
+            return GitInteractor.getChanges(branchToCompare, directory, pathspecs, processRunner);
+        }
+        List<List<String>> changedPaths = getChangedPaths(branchToCompare, directory, pathspecs);
+        if (changedPaths.size() < minFilesToShard) {
+            return GitInteractor.getChanges(branchToCompare, directory, pathspecs, processRunner);
+        }
+
+        List<List<String>> batches = createBatches(changedPaths, (changedPaths.size() + threads - 1) / threads);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, batches.size()));
+        try {
+            List<Future<ChangeSet>> futures = new ArrayList<>(batches.size());
+            for (List<String> batch : batches) {
+                futures.add(executor.submit(() -> GitInteractor.getChanges(branchToCompare, directory, batch, processRunner)));
+            }
+
+            Set<File> changedFiles = new HashSet<>();
+            HashMap<String, ChangedLines> changedLines = new HashMap<>();
+            for (Future<ChangeSet> future : futures) {
+                ChangeSet changes = getResult(future);
+                changedFiles.addAll(changes.getChangedFiles());
+                changedLines.putAll(changes.getChangedLines());
+            }
+            return new ChangeSet(changedFiles, changedLines);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ChangeSet getResult(Future<ChangeSet> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Unable to create the diff: " + cause);
+        }
+    }
+
+    /**
+     * Lists the changed files with 'git diff --name-status -z'. A file that was only renamed has no changed lines, so it
+     * is not diffed at all.
+     * @return the paths per changed file relative to the repository root, the old and the new path for a renamed or copied file
+     */
+    private List<List<String>> getChangedPaths(String branchToCompare, File directory, List<String> pathspecs) throws IOException, InterruptedException {
+        List<List<String>> changedPaths = new ArrayList<>();
+        for (FileStatus fileStatus : GitInteractor.getStatusOfChangedFiles(branchToCompare, directory, pathspecs, processRunner)) {
+            if (fileStatus.isPureRename()) {
+                continue;
+            }
+            changedPaths.add(fileStatus.getOldPath() == null ? List.of(fileStatus.getPath()) : List.of(fileStatus.getOldPath(), fileStatus.getPath()));
+        }
+        return changedPaths;
+    }
+
+    /**
+     * Splits the changed files into batches of pathspecs. The paths are passed as literal paths relative to the repository
+     * root, so special characters in file names are not taken as wildcards.
+     * @param changedPaths the paths per changed file
+     * @param filesPerBatch the number of files per batch
+     * @return the pathspecs per batch
+     */
+    static List<List<String>> createBatches(List<List<String>> changedPaths, int filesPerBatch) {
+        List<List<String>> batches = new ArrayList<>();
+        List<String> batch = new ArrayList<>();
+        int files = 0;
+        int length = 0;
+        for (List<String> paths : changedPaths) {
+            int pathsLength = 0;
+            for (String path : paths) {
+                pathsLength += path.length();
+            }
+            if (files > 0 && (files == filesPerBatch || length + pathsLength > MAX_BATCH_LENGTH)) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                files = 0;
+                length = 0;
+            }
+            for (String path : paths) {
+                batch.add(":(top,literal)" + path);
+            }
+            files++;
+            length += pathsLength;
+        }
+        if (files > 0) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,72 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Provides the changes that are staged for the next commit instead of the changes compared to a branch, so the rules can
+ * run in a pre-commit hook. See {@link GitInteractor#getStagedChanges(File, List, ProcessRunner)}.
+ * <br></br>
+ * The branch to compare is ignored. The diff of the index is cheaper than the key of the {@link DiffCache}, which looks
+ * at the working tree, so the diff is not cached on disk. It is run once per provider: the changed files and the changed
+ * lines come from the same diff.
+ */
+public class StagedDiffProvider implements DiffProvider {
+
+    private final File directory;
+
+    private final List<String> pathspecs;
+
+    private final ProcessRunner processRunner;
+
+    private ChangeSet changes;
+
+    /**
+     * Only diffs the staged java files of the source roots
+     * @param directory the project base directory, git is run in this directory
+     * @param sourcePaths the source roots relative to the project base directory, e.g. 'src/main/java', or null for all the java files in the directory
+     */
+    public StagedDiffProvider(File directory, String[] sourcePaths) {
+        this(directory, sourcePaths, new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT));
+    }
+
+    /**
+     * Only diffs the staged java files of the source roots and runs git with the given runner
+     * @param directory the project base directory, git is run in this directory
+     * @param sourcePaths the source roots relative to the project base directory, e.g. 'src/main/java', or null for all the java files in the directory
+     * @param processRunner the runner git is run with
+     */
+    public StagedDiffProvider(File directory, String[] sourcePaths, ProcessRunner processRunner) {
+        this.directory = directory;
+        this.pathspecs = GitInteractor.getJavaPathspecs(directory, sourcePaths);
+        this.processRunner = processRunner;
+    }
+
+    @Override
+    public Set<File> getOverviewOfChangedFiles(String branchToCompare) throws RuntimeException {
+        try {
+            return getChanges(branchToCompare).getChangedFiles();
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException("Error executing git command: " + e);
+        }
+    }
+
+    @Override
+    public HashMap<String, ChangedLines> getChangedLines(String branchToCompare) throws IOException, InterruptedException {
+        return getChanges(branchToCompare).getChangedLines();
+    }
+
+    @Override
+    public synchronized ChangeSet getChanges(String branchToCompare) throws IOException, InterruptedException {
+        if (changes == null) {
+            changes = GitInteractor.getStagedChanges(directory, pathspecs, processRunner);
+        }
+        return changes;
+    }
+}
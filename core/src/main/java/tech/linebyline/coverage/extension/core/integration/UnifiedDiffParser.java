@@ -0,0 +1,485 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Streaming parser for the output of 'git diff'. The output is scanned as raw bytes: the 'diff --git' and '@@' headers are
+ * recognized by their prefix and the changed lines are collected as intervals. Only the path of each file is decoded to
+ * a String, the other lines are never decoded, so a diff of millions of lines hardly creates any garbage.
+ * <br></br>
+ * The 'diff --git' line starts a file, but its paths cannot always be told apart: a path can contain ' b/', and git quotes
+ * a path with special characters C-style, e.g. '"b/caf\303\251.java"'. The path is therefore taken from the 'rename to'
+ * and '+++ b/' lines when the diff has them, and from the 'diff --git' line only for files without hunks.
+ * <br></br>
+ * The line numbers are taken from the hunk headers, '@@ -a,b +c,d @@': the first line of a hunk is line 'c' of the new file
+ * and only context and added lines advance the line number. The lengths 'b' and 'd' tell where the hunk ends, so an added
+ * line that starts with '++' is never mistaken for a file header. Diffs with and without context lines ('-U0') are parsed
+ * the same way.
+ * <br></br>
+ * A parser keeps its buffers between files and is not thread safe.
+ */
+public class UnifiedDiffParser {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] DIFF_GIT_PREFIX = "diff --git ".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] OLD_PATH_PREFIX = "a/".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NEW_PATH_PREFIX = "b/".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NEW_PATH_MARKER = " b/".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] QUOTED_NEW_PATH_MARKER = " \"b/".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NEW_FILE_HEADER_PREFIX = "+++ ".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] RENAME_TO_PREFIX = "rename to ".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] HUNK_PREFIX = "@@ -".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] DELETED_FILE_PREFIX = "deleted file mode ".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NEW_FILE_PREFIX = "new file mode ".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] RENAME_FROM_PREFIX = "rename from ".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] IDENTICAL_LINE = "similarity index 100%".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+
+    private byte[] line = new byte[256];
+
+    private int lineLength;
+
+    private final ChangedLines.Builder changedLines = new ChangedLines.Builder();
+
+    private Set<File> changedFiles;
+    private HashMap<String, ChangedLines> changedLinesPerFile;
+    private Set<File> deletedFiles;
+    private Set<File> addedFiles;
+    private Set<File> renamedFiles;
+    private String file;
+
+    /**
+     * Whether the current file was deleted, added or renamed and whether its content stayed the same
+     */
+    private boolean deleted;
+    private boolean added;
+    private boolean renamed;
+    private boolean identical;
+
+    /**
+     * Whether the current file has a hunk
+     */
+    private boolean hasHunks;
+
+    /**
+     * The line number in the new file of the next context or added line
+     */
+    private int newLine;
+
+    /**
+     * The number of lines of the old and the new file that are left in the current hunk
+     */
+    private int oldRemaining;
+    private int newRemaining;
+
+    /**
+     * The start of the run of added lines the parser is in, or -1 if the previous line was not an added line
+     */
+    private int addedStart;
+
+    /**
+     * Parses the output of 'git diff'
+     * @param inputStream the output of git. It is read until the end but not closed.
+     * @return the changed files and the changed lines per file, with the paths relative to the repository root. A renamed
+     * file has its new path and a file that was renamed without changes is left out. Only the files with added or modified
+     * lines have changed lines.
+     * @throws IOException if the output cannot be read
+     */
+    public ChangeSet parse(InputStream inputStream) throws IOException {
+        changedFiles = new HashSet<>();
+        changedLinesPerFile = new HashMap<>();
+        deletedFiles = new HashSet<>();
+        addedFiles = new HashSet<>();
+        renamedFiles = new HashSet<>();
+        file = null;
+        deleted = false;
+        added = false;
+        renamed = false;
+        identical = false;
+        hasHunks = false;
+        oldRemaining = 0;
+        newRemaining = 0;
+        addedStart = -1;
+        lineLength = 0;
+        changedLines.build();
+
+        int read;
+        while ((read = inputStream.read(readBuffer)) != -1) {
+            int lineStart = 0;
+            for (int i = 0; i < read; i++) {
+                if (readBuffer[i] == '\n') {
+                    appendToLine(lineStart, i - lineStart);
+                    parseLine();
+                    lineLength = 0;
+                    lineStart = i + 1;
+                }
+            }
+            appendToLine(lineStart, read - lineStart);
+        }
+        if (lineLength > 0) {
+            parseLine();
+        }
+
+        finishFile();
+        return new ChangeSet(changedFiles, changedLinesPerFile);
+    }
+
+    /**
+     * The files of the last parsed diff that were deleted, recognized by their 'deleted file mode' header. The parsed
+     * changes still contain them.
+     * @return the deleted files, with the paths relative to the repository root
+     */
+    public Set<File> getDeletedFiles() {
+        return deletedFiles;
+    }
+
+    /**
+     * The files of the last parsed diff that were added, recognized by their 'new file mode' header
+     * @return the added files, with the paths relative to the repository root
+     */
+    public Set<File> getAddedFiles() {
+        return addedFiles;
+    }
+
+    /**
+     * The files of the last parsed diff that were renamed, recognized by their 'rename from' header. This includes the
+     * files that were renamed without changes, which are left out of the parsed changes.
+     * @return the new paths of the renamed files, relative to the repository root
+     */
+    public Set<File> getRenamedFiles() {
+        return renamedFiles;
+    }
+
+    private void appendToLine(int offset, int length) {
+        if (lineLength + length > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+        }
+        System.arraycopy(readBuffer, offset, line, lineLength, length);
+        lineLength += length;
+    }
+
+    private void parseLine() {
+        int length = lineLength;
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+
+        if (oldRemaining > 0 || newRemaining > 0) {
+            parseHunkLine(length);
+        } else if (isDiffGitLine(line, length)) {
+            finishFile();
+            //null if the path cannot be read from this line, then the hunks are dropped unless a later header has the path
+            file = getPathOfDiffGitLine(line, length);
+        } else if (file != null && startsWith(line, length, HUNK_PREFIX)) {
+            parseHunkHeader(length);
+        } else if (startsWith(line, length, NEW_FILE_HEADER_PREFIX)) {
+            String newPath = parsePath(line, NEW_FILE_HEADER_PREFIX.length, length, NEW_PATH_PREFIX);
+            if (newPath != null) {
+                file = newPath;
+            }
+        } else if (startsWith(line, length, RENAME_TO_PREFIX)) {
+            String newPath = parsePath(line, RENAME_TO_PREFIX.length, length, null);
+            if (newPath != null) {
+                file = newPath;
+            }
+        } else if (startsWith(line, length, DELETED_FILE_PREFIX)) {
+            deleted = true;
+        } else if (startsWith(line, length, NEW_FILE_PREFIX)) {
+            added = true;
+        } else if (startsWith(line, length, RENAME_FROM_PREFIX)) {
+            renamed = true;
+        } else if (length == IDENTICAL_LINE.length && startsWith(line, length, IDENTICAL_LINE)) {
+            identical = true;
+        }
+    }
+
+    private void parseHunkLine(int length) {
+        byte marker = length == 0 ? (byte) ' ' : line[0];
+        if (marker == '+') {
+            if (addedStart == -1) {
+                addedStart = newLine;
+            }
+            newLine++;
+            newRemaining--;
+        } else {
+            endAddedLines();
+            if (marker == '-') {
+                oldRemaining--;
+            } else if (marker != '\\') {
+                //a context line, '\ No newline at end of file' does not count as a line
+                newLine++;
+                oldRemaining--;
+                newRemaining--;
+            }
+        }
+        if (oldRemaining <= 0 && newRemaining <= 0) {
+            endAddedLines();
+            oldRemaining = 0;
+            newRemaining = 0;
+        }
+    }
+
+    private void endAddedLines() {
+        if (addedStart != -1) {
+            changedLines.add(addedStart, newLine - 1);
+            addedStart = -1;
+        }
+    }
+
+    /**
+     * Parses '@@ -a,b +c,d @@'. A missing length means a length of 1.
+     */
+    private void parseHunkHeader(int length) {
+        int position = skipNumber(HUNK_PREFIX.length, length);
+        oldRemaining = 1;
+        if (position < length && line[position] == ',') {
+            oldRemaining = parseNumber(position + 1, length);
+            position = skipNumber(position + 1, length);
+        }
+        //skip ' +'
+        position += 2;
+        newLine = parseNumber(position, length);
+        position = skipNumber(position, length);
+        newRemaining = 1;
+        if (position < length && line[position] == ',') {
+            newRemaining = parseNumber(position + 1, length);
+        }
+        addedStart = -1;
+        hasHunks = true;
+    }
+
+    private int parseNumber(int position, int length) {
+        int number = 0;
+        while (position < length && line[position] >= '0' && line[position] <= '9') {
+            number = number * 10 + (line[position] - '0');
+            position++;
+        }
+        return number;
+    }
+
+    private int skipNumber(int position, int length) {
+        while (position < length && line[position] >= '0' && line[position] <= '9') {
+            position++;
+        }
+        return position;
+    }
+
+    private void finishFile() {
+        endAddedLines();
+        oldRemaining = 0;
+        newRemaining = 0;
+        ChangedLines changedLinesOfFile = changedLines.build();
+        if (file != null && !changedLinesOfFile.isEmpty()) {
+            changedLinesPerFile.put(file, changedLinesOfFile);
+        }
+        if (file != null) {
+            File changedFile = new File(file);
+            //a file that was only moved has nothing to cover
+            if (!(renamed && identical && !hasHunks)) {
+                changedFiles.add(changedFile);
+            }
+            if (deleted) {
+                deletedFiles.add(changedFile);
+            }
+            if (added) {
+                addedFiles.add(changedFile);
+            }
+            if (renamed) {
+                renamedFiles.add(changedFile);
+            }
+        }
+        hasHunks = false;
+        deleted = false;
+        added = false;
+        renamed = false;
+        identical = false;
+    }
+
+    /**
+     * Check if a line is a git diff line in the format of "diff --git a/... b/...". The paths can be quoted, e.g.
+     * 'diff --git "a/caf\303\251.java" "b/caf\303\251.java"'.
+     * @param line the bytes of the line, without the line terminator
+     * @param length the length of the line
+     * @return true if the line is a git diff line, false otherwise
+     */
+    static boolean isDiffGitLine(byte[] line, int length) {
+        return startsWith(line, length, DIFF_GIT_PREFIX);
+    }
+
+    /**
+     * Extracts the path of the file in the current branch from a git diff line in the format of "diff --git a/... b/...".
+     * The path is exact if the file kept its path or if a path is quoted. Otherwise the line is split at its last ' b/',
+     * which is wrong for a renamed file whose new path contains ' b/'.
+     * @param line the bytes of the line, without the line terminator
+     * @param length the length of the line
+     * @return the path of the file relative to the repository root or null if the line cannot be read
+     */
+    static String getPathOfDiffGitLine(byte[] line, int length) {
+        int start = DIFF_GIT_PREFIX.length;
+        if (start < length && line[start] == '"') {
+            int end = skipQuotedPath(line, start, length);
+            return end == -1 || end + 2 >= length ? null : parsePath(line, end + 2, length, NEW_PATH_PREFIX);
+        }
+
+        //'a/<path> b/<path>' for a file that kept its path
+        int pathsLength = length - start;
+        if (pathsLength % 2 == 1 && startsWith(line, start, length, OLD_PATH_PREFIX)) {
+            int half = (pathsLength - 1) / 2;
+            int newStart = start + half + 1;
+            if (line[newStart - 1] == ' ' && startsWith(line, newStart, length, NEW_PATH_PREFIX)
+                    && Arrays.equals(line, start + 2, newStart - 1, line, newStart + 2, length)) {
+                return new String(line, newStart + 2, length - newStart - 2, StandardCharsets.UTF_8);
+            }
+        }
+
+        int quoted = lastIndexOf(line, length, QUOTED_NEW_PATH_MARKER);
+        if (quoted != -1 && line[length - 1] == '"') {
+            return parsePath(line, quoted + 1, length, NEW_PATH_PREFIX);
+        }
+        int newPath = lastIndexOf(line, length, NEW_PATH_MARKER);
+        return newPath == -1 ? null : new String(line, newPath + NEW_PATH_MARKER.length, length - newPath - NEW_PATH_MARKER.length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a path that takes the rest of a header line, e.g. the 'b/Foo.java' of '+++ b/Foo.java'
+     * @param line the bytes of the line, without the line terminator
+     * @param start the start of the path
+     * @param length the length of the line
+     * @param prefix the prefix of the path that is removed, e.g. 'b/', or null if the path has no prefix
+     * @return the path or null if it does not start with the prefix, like '/dev/null', or its quotes are broken
+     */
+    static String parsePath(byte[] line, int start, int length, byte[] prefix) {
+        byte[] path;
+        if (start < length && line[start] == '"') {
+            path = unquote(line, start, length);
+            if (path == null) {
+                return null;
+            }
+        } else {
+            int end = length;
+            if (end > start && line[end - 1] == '\t') {
+                //git ends the '---' and '+++' lines of a path with a space with a tab
+                end--;
+            }
+            path = Arrays.copyOfRange(line, start, end);
+        }
+        if (prefix != null) {
+            if (!startsWith(path, path.length, prefix)) {
+                return null;
+            }
+            return new String(path, prefix.length, path.length - prefix.length, StandardCharsets.UTF_8);
+        }
+        return new String(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the position of the closing quote of a C-style quoted path, see {@link #unquote(byte[], int, int)}
+     */
+    private static int skipQuotedPath(byte[] line, int start, int length) {
+        for (int i = start + 1; i < length; i++) {
+            if (line[i] == '\\') {
+                i++;
+            } else if (line[i] == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes a path that git quoted C-style because it contains special characters or, unless 'core.quotePath' is false,
+     * bytes that are not ASCII. E.g. '"caf\303\251.java"' is 'café.java': a byte is written as three octal digits.
+     * @param line the bytes of the line
+     * @param start the position of the opening quote
+     * @param length the length of the line
+     * @return the bytes of the path or null if the closing quote is missing
+     */
+    static byte[] unquote(byte[] line, int start, int length) {
+        ByteArrayOutputStream path = new ByteArrayOutputStream(length - start);
+        int i = start + 1;
+        while (i < length) {
+            byte b = line[i++];
+            if (b == '"') {
+                return path.toByteArray();
+            }
+            if (b != '\\' || i >= length) {
+                path.write(b);
+                continue;
+            }
+            byte escaped = line[i++];
+            if (escaped >= '0' && escaped <= '7' && i + 1 < length) {
+                path.write(((escaped - '0') << 6) | ((line[i] - '0') << 3) | (line[i + 1] - '0'));
+                i += 2;
+            } else {
+                path.write(unescape(escaped));
+            }
+        }
+        return null;
+    }
+
+    private static int unescape(byte escaped) {
+        switch (escaped) {
+            case 'a': return 7;
+            case 'b': return '\b';
+            case 't': return '\t';
+            case 'n': return '\n';
+            case 'v': return 11;
+            case 'f': return '\f';
+            case 'r': return '\r';
+            default: return escaped;
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, int length, byte[] prefix) {
+        return startsWith(bytes, 0, length, prefix);
+    }
+
+    private static boolean startsWith(byte[] bytes, int from, int length, byte[] prefix) {
+        if (length - from < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[from + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int lastIndexOf(byte[] bytes, int length, byte[] target) {
+        outer:
+        for (int i = length - target.length; i >= 0; i--) {
+            for (int j = 0; j < target.length; j++) {
+                if (bytes[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
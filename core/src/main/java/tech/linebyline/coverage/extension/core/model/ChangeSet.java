@@ -0,0 +1,38 @@
+package tech.linebyline.coverage.extension.core.model;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Set;
+
+/**
+ * The changes of the current branch compared to the branch to compare, taken from a single diff: the changed files and
+ * the changed lines per file. The paths are relative to the root of the repository.
+ */
+public class ChangeSet {
+
+    private final Set<File> changedFiles;
+
+    private final HashMap<String, ChangedLines> changedLines;
+
+    public ChangeSet(Set<File> changedFiles, HashMap<String, ChangedLines> changedLines) {
+        this.changedFiles = changedFiles;
+        this.changedLines = changedLines;
+    }
+
+    /**
+     * The files that have changed, including the deleted files
+     * @return the changed files
+     */
+    public Set<File> getChangedFiles() {
+        return changedFiles;
+    }
+
+    /**
+     * The changed lines per file, e.g. 'module/src/main/java/com/example/Foo.java' with the lines as Jacoco numbers them.
+     * Only the files with added or modified lines are included.
+     * @return the changed lines per file
+     */
+    public HashMap<String, ChangedLines> getChangedLines() {
+        return changedLines;
+    }
+}
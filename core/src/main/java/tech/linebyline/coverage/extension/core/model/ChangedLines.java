@@ -0,0 +1,253 @@
+package tech.linebyline.coverage.extension.core.model;
+
+import java.util.Arrays;
+
+/**
+ * The changed lines of a file, stored as sorted and merged intervals of line numbers, e.g. [3-18, 25-25].
+ * A diff hunk that adds a thousand lines is a single interval, so the memory scales with the number of hunks rather than
+ * with the number of changed lines. The line numbers are the line numbers of the file in the current branch, the same
+ * line numbers Jacoco uses.
+ */
+public class ChangedLines {
+
+    private static final ChangedLines EMPTY = new ChangedLines(new int[0], new int[0]);
+
+    private final int[] starts;
+
+    private final int[] ends;
+
+    private ChangedLines(int[] starts, int[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * Creates the changed lines from individual line numbers
+     * @param lines the changed line numbers, in any order
+     * @return the changed lines
+     */
+    public static ChangedLines of(int... lines) {
+        Builder builder = new Builder();
+        for (int line : lines) {
+            builder.add(line, line);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return changed lines without any line
+     */
+    public static ChangedLines empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Checks whether a line is changed
+     * @param line the line number
+     * @return true if the line is part of one of the intervals
+     */
+    public boolean contains(int line) {
+        int index = Arrays.binarySearch(starts, line);
+        if (index >= 0) {
+            return true;
+        }
+        //the interval that starts before the line
+        int candidate = -index - 2;
+        return candidate >= 0 && ends[candidate] >= line;
+    }
+
+    /**
+     * Checks whether any line of the range is changed, e.g. whether a method that spans the range was touched
+     * @param start the first line of the range
+     * @param end the last line of the range, inclusive
+     * @return true if one of the intervals overlaps with the range
+     */
+    public boolean intersects(int start, int end) {
+        if (start > end) {
+            return false;
+        }
+        int index = Arrays.binarySearch(starts, end);
+        //the last interval that starts at or before the end of the range
+        int candidate = index >= 0 ? index : -index - 2;
+        return candidate >= 0 && ends[candidate] >= start;
+    }
+
+    /**
+     * @return true if no line is changed
+     */
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    /**
+     * @return the number of intervals
+     */
+    public int getNumberOfIntervals() {
+        return starts.length;
+    }
+
+    /**
+     * @param index the index of the interval
+     * @return the first line of the interval
+     */
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+    /**
+     * @param index the index of the interval
+     * @return the last line of the interval, inclusive
+     */
+    public int getEnd(int index) {
+        return ends[index];
+    }
+
+    /**
+     * @return the total number of changed lines
+     */
+    public int getNumberOfLines() {
+        int numberOfLines = 0;
+        for (int i = 0; i < starts.length; i++) {
+            numberOfLines += ends[i] - starts[i] + 1;
+        }
+        return numberOfLines;
+    }
+
+    /**
+     * Expands the intervals to the individual line numbers
+     * @return the changed line numbers in ascending order
+     */
+    public int[] toArray() {
+        int[] lines = new int[getNumberOfLines()];
+        int index = 0;
+        for (int i = 0; i < starts.length; i++) {
+            for (int line = starts[i]; line <= ends[i]; line++) {
+                lines[index++] = line;
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ChangedLines)) {
+            return false;
+        }
+        ChangedLines other = (ChangedLines) o;
+        return Arrays.equals(starts, other.starts) && Arrays.equals(ends, other.ends);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(starts) + Arrays.hashCode(ends);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < starts.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(starts[i]).append('-').append(ends[i]);
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Collects intervals in any order. Overlapping and adjacent intervals are merged when the changed lines are built.
+     * A builder can be reused after {@link #build()}.
+     */
+    public static class Builder {
+
+        private int[] starts = new int[16];
+
+        private int[] ends = new int[16];
+
+        private int size;
+
+        private boolean sorted = true;
+
+        /**
+         * Adds an interval of changed lines. Adding a line right after the previous interval extends that interval.
+         * @param start the first changed line
+         * @param end the last changed line, inclusive
+         * @return this builder
+         */
+        public Builder add(int start, int end) {
+            if (start > end) {
+                return this;
+            }
+            if (size > 0 && start >= starts[size - 1] && start <= ends[size - 1] + 1) {
+                ends[size - 1] = Math.max(ends[size - 1], end);
+                return this;
+            }
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            if (size > 0 && start < starts[size - 1]) {
+                sorted = false;
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+            return this;
+        }
+
+        /**
+         * @return true if no interval was added since the builder was created or last built
+         */
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Builds the changed lines and resets the builder
+         * @return the sorted and merged changed lines
+         */
+        public ChangedLines build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            if (!sorted) {
+                sort();
+            }
+
+            int[] mergedStarts = new int[size];
+            int[] mergedEnds = new int[size];
+            int merged = 0;
+            for (int i = 0; i < size; i++) {
+                if (merged > 0 && starts[i] <= mergedEnds[merged - 1] + 1) {
+                    mergedEnds[merged - 1] = Math.max(mergedEnds[merged - 1], ends[i]);
+                } else {
+                    mergedStarts[merged] = starts[i];
+                    mergedEnds[merged] = ends[i];
+                    merged++;
+                }
+            }
+
+            size = 0;
+            sorted = true;
+            return new ChangedLines(Arrays.copyOf(mergedStarts, merged), Arrays.copyOf(mergedEnds, merged));
+        }
+
+        /**
+         * Sorts the intervals by their start. The intervals are packed into longs, so a single primitive sort keeps the starts and ends together.
+         */
+        private void sort() {
+            long[] intervals = new long[size];
+            for (int i = 0; i < size; i++) {
+                intervals[i] = ((long) starts[i] << 32) | (ends[i] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(intervals);
+            for (int i = 0; i < size; i++) {
+                starts[i] = (int) (intervals[i] >> 32);
+                ends[i] = (int) intervals[i];
+            }
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package tech.linebyline.coverage.extension.core.util;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class FileUtil {
 
@@ -101,5 +109,49 @@ public class FileUtil {
 
         return filteredFiles;
     }
-}
 
+    /**
+     * Resolves a glob pattern, e.g. 'target/*.exec' or 'target/**&#47;jacoco*.exec', to the files that match it.
+     * The walk starts in the deepest directory of the pattern that does not contain glob characters, so only that part of the tree is visited.
+     * A pattern without glob characters resolves to the file itself, whether it exists or not.
+     * @param baseDir the directory relative patterns are resolved against
+     * @param pattern the glob pattern, relative to the base directory or absolute
+     * @return the matching files, sorted by path
+     * @throws IOException if a directory cannot be walked
+     */
+    public static List<File> resolveGlob(File baseDir, String pattern) throws IOException {
+        String normalizedPattern = pattern.replace(File.separatorChar, '/');
+        Path patternPath = new File(normalizedPattern).isAbsolute() ? new File(normalizedPattern).toPath() : baseDir.toPath().resolve(normalizedPattern);
+
+        int firstGlobCharacter = indexOfGlobCharacter(normalizedPattern);
+        if (firstGlobCharacter == -1) {
+            return List.of(patternPath.toFile());
+        }
+
+        int lastSeparatorBeforeGlob = normalizedPattern.lastIndexOf('/', firstGlobCharacter);
+        String fixedPart = lastSeparatorBeforeGlob == -1 ? "" : normalizedPattern.substring(0, lastSeparatorBeforeGlob);
+        Path walkRoot = new File(fixedPart).isAbsolute() ? new File(fixedPart).toPath() : baseDir.toPath().resolve(fixedPart);
+        if (!Files.isDirectory(walkRoot)) {
+            return List.of();
+        }
+
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + normalizedPattern.substring(lastSeparatorBeforeGlob + 1));
+        try (Stream<Path> paths = Files.walk(walkRoot)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> matcher.matches(walkRoot.relativize(path)))
+                    .sorted()
+                    .map(Path::toFile)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static int indexOfGlobCharacter(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char character = pattern.charAt(i);
+            if (character == '*' || character == '?' || character == '[' || character == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -3,8 +3,15 @@ package tech.linebyline.coverage.extension.core;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import tech.linebyline.coverage.extension.core.configuration.ConfigurationManager;
+import tech.linebyline.coverage.extension.core.integration.DiffProvider;
 import tech.linebyline.coverage.extension.core.integration.GitInteractor;
+import tech.linebyline.coverage.extension.core.integration.GitProcessDiffProvider;
+import tech.linebyline.coverage.extension.core.integration.JGitDiffProvider;
 import tech.linebyline.coverage.extension.core.integration.JaCoCoInteractor;
+import tech.linebyline.coverage.extension.core.integration.PatchFileDiffProvider;
+import tech.linebyline.coverage.extension.core.integration.StagedDiffProvider;
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
 import tech.linebyline.coverage.extension.core.model.Rule;
 import tech.linebyline.coverage.extension.core.model.RuleValidationResult;
 import tech.linebyline.coverage.extension.core.services.RuleManager;
@@ -13,8 +20,13 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
@@ -154,26 +166,28 @@ public class CoverageCheckerTest {
         Assertions.assertEquals(expectedMessage, ruleValidationResult.getMessage());
     }
 
-    private HashMap<String, int[]> getChangedLinesOverview(){
-        HashMap<String, int[]> changedLinesOverview = new HashMap<>();
+    private HashMap<String, ChangedLines> getChangedLinesOverview(){
+        HashMap<String, ChangedLines> changedLinesOverview = new HashMap<>();
 
-        changedLinesOverview.put("diff --git a/single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/SecondExampleClass.java b/single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/SecondExampleClass.java", new int[]{3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34});
-        changedLinesOverview.put("diff --git a/single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java b/single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java",  new int[]{3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18});
+        changedLinesOverview.put("single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/SecondExampleClass.java", ChangedLines.of(3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34));
+        changedLinesOverview.put("single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClass.java", ChangedLines.of(3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18));
+        changedLinesOverview.put("single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java",  ChangedLines.of(3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18));
 
         //should not be included in the result
-        changedLinesOverview.put("diff --git a/core/pom.xml b/core/pom.xml", new int[]{-2, -2});
+        changedLinesOverview.put("core/pom.xml", ChangedLines.of(-2, -2));
 
         return changedLinesOverview;
     }
 
-    private HashMap<String, int[]> getChangedLinesOverviewErrors(){
-        HashMap<String, int[]> changedLinesOverview = new HashMap<>();
+    private HashMap<String, ChangedLines> getChangedLinesOverviewErrors(){
+        HashMap<String, ChangedLines> changedLinesOverview = new HashMap<>();
 
-        changedLinesOverview.put("diff --git a/single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/SecondExampleClass.java b/single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/SecondExampleClass.java", new int[]{-1, -1});
-        changedLinesOverview.put("diff --git a/single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java b/single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java",  new int[]{3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18});
+        changedLinesOverview.put("single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/SecondExampleClass.java", ChangedLines.of(-1, -1));
+        changedLinesOverview.put("single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClass.java", ChangedLines.of(3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18));
+        changedLinesOverview.put("single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java",  ChangedLines.of(3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18));
 
         //should not be included in the result
-        changedLinesOverview.put("diff --git a/core/pom.xml b/core/pom.xml", new int[]{-2, -2});
+        changedLinesOverview.put("core/pom.xml", ChangedLines.of(-2, -2));
 
         return changedLinesOverview;
     }
@@ -299,6 +313,43 @@ public class CoverageCheckerTest {
 
     }
 
+    @Test
+    public void testChangedLinesOverallFromPatchFile() throws IOException, InterruptedException {
+        //the same changed lines as getChangedLinesOverview, read from a patch instead of diffing the branch to compare
+        String sample = "single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/";
+        String patch = String.join("\n",
+                "diff --git a/" + sample + "FirstExampleClass.java b/" + sample + "FirstExampleClass.java",
+                "--- a/" + sample + "FirstExampleClass.java",
+                "+++ b/" + sample + "FirstExampleClass.java",
+                "@@ -2,0 +3,16 @@",
+                String.join("\n", Collections.nCopies(16, "+")),
+                "diff --git a/" + sample + "SecondExampleClass.java b/" + sample + "SecondExampleClass.java",
+                "--- a/" + sample + "SecondExampleClass.java",
+                "+++ b/" + sample + "SecondExampleClass.java",
+                "@@ -2,0 +3,32 @@",
+                String.join("\n", Collections.nCopies(32, "+")),
+                "");
+        File patchFile = File.createTempFile("changes", ".patch");
+        patchFile.deleteOnExit();
+        Files.writeString(patchFile.toPath(), patch);
+
+        RuleManager ruleManager = new RuleManager();
+        Rule classChangedLineRule = new Rule(Rule.RuleType.TOTAL_CHANGED_LINES, 40);
+        ruleManager.addRule(classChangedLineRule);
+
+        ConfigurationManager configurationManager = getConfigurationManager();
+        configurationManager.setBranchToCompare("origin/does-not-exist");
+        configurationManager.setPatchFile(patchFile.getPath());
+        CoverageChecker coverageChecker = new CoverageChecker(ruleManager, configurationManager);
+
+        HashMap<Rule, RuleValidationResult> ruleRuleValidationResultHashMap = coverageChecker.runChecks();
+
+        Assertions.assertInstanceOf(PatchFileDiffProvider.class, coverageChecker.getDiffProvider());
+        RuleValidationResult ruleValidationResult = ruleRuleValidationResultHashMap.get(classChangedLineRule);
+        Assertions.assertTrue(ruleValidationResult.isSuccessful());
+        Assertions.assertEquals("The overall coverage of the changed lines is above the required percentage. Required: 40.00% Actual: 42.86%", ruleValidationResult.getMessage());
+    }
+
     @Test
     public void testChangedLinesOverallSuccessNoChangedFiles() throws IOException, InterruptedException {
         RuleManager ruleManager = new RuleManager();
@@ -414,6 +465,86 @@ public class CoverageCheckerTest {
 
     }
 
+    @Test
+    public void testSingleDiffForChangedLines() throws IOException, InterruptedException {
+        //the analysis of the changed classes takes the changed files of the diff of the changed lines, git runs one diff
+        AtomicInteger diffs = new AtomicInteger();
+        AtomicInteger overviews = new AtomicInteger();
+        DiffProvider diffProvider = new DiffProvider() {
+            @Override
+            public Set<File> getOverviewOfChangedFiles(String branchToCompare) {
+                overviews.incrementAndGet();
+                return getSampleChangedFiles();
+            }
+
+            @Override
+            public HashMap<String, ChangedLines> getChangedLines(String branchToCompare) {
+                return getChanges(branchToCompare).getChangedLines();
+            }
+
+            @Override
+            public ChangeSet getChanges(String branchToCompare) {
+                diffs.incrementAndGet();
+                return new ChangeSet(getSampleChangedFiles(), getChangedLinesOverview());
+            }
+        };
+        RuleManager ruleManager = new RuleManager();
+        Rule totalChangedLinesRule = new Rule(Rule.RuleType.TOTAL_CHANGED_LINES, 40);
+        Rule perClassChangedLinesRule = new Rule(Rule.RuleType.PER_CLASS_CHANGED_LINES, 40);
+        Rule perClassRule = new Rule(Rule.RuleType.PER_CLASS, 40);
+        ruleManager.addRule(totalChangedLinesRule);
+        ruleManager.addRule(perClassChangedLinesRule);
+        ruleManager.addRule(perClassRule);
+
+        CoverageChecker coverageChecker = new CoverageChecker(ruleManager, getConfigurationManager());
+        coverageChecker.setDiffProvider(diffProvider);
+        HashMap<Rule, RuleValidationResult> ruleRuleValidationResultHashMap = coverageChecker.runChecks();
+
+        Assertions.assertEquals(1, diffs.get());
+        Assertions.assertEquals(0, overviews.get());
+        Assertions.assertEquals("The overall coverage of the changed lines is above the required percentage. Required: 40.00% Actual: 42.86%",
+                ruleRuleValidationResultHashMap.get(totalChangedLinesRule).getMessage());
+    }
+
+    @Test
+    public void testFailingAnalysisIsThrown() {
+        //the analysis runs next to the diff, its exception is thrown as is
+        ConfigurationManager configurationManager = getConfigurationManager();
+        configurationManager.setJacocoExecFile(new File("src/test/resources/jacoco-examples-exec/does-not-exist.exec"));
+        RuleManager ruleManager = new RuleManager();
+        ruleManager.addRule(new Rule(Rule.RuleType.TOTAL_CHANGED_LINES, 80));
+
+        CoverageChecker coverageChecker = new CoverageChecker(ruleManager, configurationManager);
+
+        Assertions.assertThrows(IOException.class, coverageChecker::runChecks);
+    }
+
+    @Test
+    public void testFailingDiffIsThrown() {
+        ConfigurationManager configurationManager = getConfigurationManager();
+        configurationManager.setBranchToCompare("origin/does-not-exist");
+        RuleManager ruleManager = new RuleManager();
+        ruleManager.addRule(new Rule(Rule.RuleType.OVERALL, 80));
+        ruleManager.addRule(new Rule(Rule.RuleType.TOTAL_CHANGED_LINES, 80));
+
+        CoverageChecker coverageChecker = new CoverageChecker(ruleManager, configurationManager);
+
+        Assertions.assertThrows(RuntimeException.class, coverageChecker::runChecks);
+    }
+
+    @Test
+    public void testRequiresFullAnalysis(){
+        Assertions.assertTrue(CoverageChecker.requiresFullAnalysis(List.of(new Rule(Rule.RuleType.PER_CLASS, 40), new Rule(Rule.RuleType.OVERALL, 40))));
+        Assertions.assertFalse(CoverageChecker.requiresFullAnalysis(List.of(new Rule(Rule.RuleType.PER_CLASS, 40), new Rule(Rule.RuleType.TOTAL_CHANGED_LINES, 40))));
+    }
+
+    @Test
+    public void testRequiresChangedLines(){
+        Assertions.assertFalse(CoverageChecker.requiresChangedLines(List.of(new Rule(Rule.RuleType.OVERALL, 40), new Rule(Rule.RuleType.PER_CLASS, 40))));
+        Assertions.assertTrue(CoverageChecker.requiresChangedLines(List.of(new Rule(Rule.RuleType.PER_CLASS, 40), new Rule(Rule.RuleType.PER_CLASS_CHANGED_LINES, 40))));
+        Assertions.assertTrue(CoverageChecker.requiresChangedLines(List.of(new Rule(Rule.RuleType.TOTAL_CHANGED_LINES, 40))));
+    }
+
     @Test
     public void testCalculateCoverage(){
         double coverage = calculateCoverage(10, 10);
@@ -720,4 +851,19 @@ public class CoverageCheckerTest {
         }
     }
 
+
+    @Test
+    public void testGetDiffProvider(){
+        ConfigurationManager configurationManager = getConfigurationManager();
+        Assertions.assertInstanceOf(GitProcessDiffProvider.class, new CoverageChecker(new RuleManager(), configurationManager).getDiffProvider());
+
+        configurationManager.setDiffEngine(ConfigurationManager.DiffEngine.IN_PROCESS);
+        Assertions.assertInstanceOf(JGitDiffProvider.class, new CoverageChecker(new RuleManager(), configurationManager).getDiffProvider());
+
+        configurationManager.setStagedChanges(true);
+        Assertions.assertInstanceOf(StagedDiffProvider.class, new CoverageChecker(new RuleManager(), configurationManager).getDiffProvider());
+
+        configurationManager.setPatchFile("-");
+        Assertions.assertInstanceOf(PatchFileDiffProvider.class, new CoverageChecker(new RuleManager(), configurationManager).getDiffProvider());
+    }
 }
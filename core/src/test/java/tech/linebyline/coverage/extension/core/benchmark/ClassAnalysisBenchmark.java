@@ -0,0 +1,102 @@
+package tech.linebyline.coverage.extension.core.benchmark;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tech.linebyline.coverage.extension.core.integration.ExecutionDataLoader;
+import tech.linebyline.coverage.extension.core.integration.ParallelClassAnalyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-threaded {@link Analyzer#analyzeAll(File)} over the classes directory with the {@link ParallelClassAnalyzer}.
+ * By default, the classes of the single-module-example are analyzed. Point the parameters to a bigger project to get meaningful numbers:
+ * <pre>
+ * mvn -pl core test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=tech.linebyline.coverage.extension.core.benchmark.ClassAnalysisBenchmark \
+ *     -Dexec.args="-p classesDirectory=/path/to/target/classes -p jacocoExecFile=/path/to/target/jacoco.exec"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClassAnalysisBenchmark {
+
+    @Param("../single-module-example/target/classes")
+    public String classesDirectory;
+
+    @Param("src/test/resources/jacoco-examples-exec/jacoco.exec")
+    public String jacocoExecFile;
+
+    @Param({"2", "4", "8", "16"})
+    public int threads;
+
+    private ExecutionDataStore executionDataStore;
+
+    private List<File> classFiles;
+
+    @Setup
+    public void setUp() throws IOException {
+        executionDataStore = new ExecutionDataLoader().load(new File(jacocoExecFile));
+
+        classFiles = new ArrayList<>();
+        collectFiles(new File(classesDirectory), classFiles);
+    }
+
+    private static void collectFiles(File directory, List<File> files) {
+        File[] filesInDirectory = directory.listFiles();
+        if (filesInDirectory == null) {
+            return;
+        }
+        for (File file : filesInDirectory) {
+            if (file.isDirectory()) {
+                collectFiles(file, files);
+            } else {
+                files.add(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public CoverageBuilder singleThreaded() throws IOException {
+        CoverageBuilder coverageBuilder = new CoverageBuilder();
+        new Analyzer(executionDataStore, coverageBuilder).analyzeAll(new File(classesDirectory));
+        return coverageBuilder;
+    }
+
+    @Benchmark
+    public CoverageBuilder parallel() throws IOException {
+        CoverageBuilder coverageBuilder = new CoverageBuilder();
+        new ParallelClassAnalyzer(executionDataStore, threads).analyze(classFiles, coverageBuilder);
+        return coverageBuilder;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ClassAnalysisBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,105 @@
+package tech.linebyline.coverage.extension.core.benchmark;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfoStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tech.linebyline.coverage.extension.core.integration.ExecutionDataLoader;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading an exec file through a raw {@link FileInputStream}, which is how the exec file used to be read, with the
+ * {@link ExecutionDataLoader}. A synthetic exec file with the given number of classes is written in the setup.
+ * Run it with:
+ * <pre>
+ * mvn -pl core test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=tech.linebyline.coverage.extension.core.benchmark.ExecutionDataLoadBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecutionDataLoadBenchmark {
+
+    @Param({"1000", "20000"})
+    public int classes;
+
+    @Param("200")
+    public int probesPerClass;
+
+    private File jacocoExecFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        jacocoExecFile = File.createTempFile("benchmark", ".exec");
+        Random random = new Random(classes);
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(jacocoExecFile))) {
+            ExecutionDataWriter writer = new ExecutionDataWriter(outputStream);
+            for (int i = 0; i < classes; i++) {
+                boolean[] probes = new boolean[probesPerClass];
+                for (int j = 0; j < probes.length; j++) {
+                    probes[j] = random.nextBoolean();
+                }
+                writer.visitClassExecution(new ExecutionData(random.nextLong(), "com/example/Class" + i, probes));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jacocoExecFile.delete();
+    }
+
+    @Benchmark
+    public ExecutionDataStore rawFileInputStream() throws IOException {
+        ExecutionDataStore executionData = new ExecutionDataStore();
+        try (FileInputStream execFile = new FileInputStream(jacocoExecFile)) {
+            ExecutionDataReader reader = new ExecutionDataReader(execFile);
+            reader.setExecutionDataVisitor(executionData);
+            reader.setSessionInfoVisitor(new SessionInfoStore());
+            reader.read();
+        }
+        return executionData;
+    }
+
+    @Benchmark
+    public ExecutionDataStore executionDataLoader() throws IOException {
+        return new ExecutionDataLoader().load(jacocoExecFile);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ExecutionDataLoadBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
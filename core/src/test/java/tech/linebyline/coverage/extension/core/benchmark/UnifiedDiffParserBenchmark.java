@@ -0,0 +1,133 @@
+package tech.linebyline.coverage.extension.core.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tech.linebyline.coverage.extension.core.integration.UnifiedDiffParser;
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares parsing the output of 'git diff' line by line as Strings with a regex, which is how the diff used to be parsed,
+ * with the {@link UnifiedDiffParser}. A synthetic diff with the given number of lines is created in the setup.
+ * Run it with:
+ * <pre>
+ * mvn -pl core test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=tech.linebyline.coverage.extension.core.benchmark.UnifiedDiffParserBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UnifiedDiffParserBenchmark {
+
+    private static final Pattern PATTERN = Pattern.compile("^diff --git a/.* b/.*$");
+
+    @Param({"100000", "2000000"})
+    public int lines;
+
+    @Param("500")
+    public int linesPerFile;
+
+    private byte[] diff;
+
+    @Setup
+    public void setUp() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        StringBuilder builder = new StringBuilder();
+        for (int file = 0; file < lines / linesPerFile; file++) {
+            String path = "module/src/main/java/com/example/package" + (file % 50) + "/Class" + file + ".java";
+            builder.append("diff --git a/").append(path).append(" b/").append(path).append('\n');
+            builder.append("index 1234567..89abcde 100644\n");
+            builder.append("--- a/").append(path).append('\n');
+            builder.append("+++ b/").append(path).append('\n');
+            builder.append("@@ -1,").append(linesPerFile / 2).append(" +1,").append(linesPerFile).append(" @@\n");
+            builder.append(" public class Class").append(file).append(" {\n");
+            for (int line = 1; line < linesPerFile; line++) {
+                builder.append(line % 2 == 0 ? ' ' : '+').append("        int field").append(line).append(" = ").append(line).append(";\n");
+            }
+            outputStream.writeBytes(builder.toString().getBytes(StandardCharsets.UTF_8));
+            builder.setLength(0);
+        }
+        diff = outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public HashMap<String, int[]> stringsAndRegex() throws IOException {
+        HashMap<String, int[]> changedLinesPerFile = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(diff)))) {
+            String line;
+            boolean passedFirstFileLine = false;
+            boolean passedFirstClassLine = false;
+            ArrayList<Integer> lines = null;
+            int lineIndex = -2;
+            String file = null;
+            while ((line = reader.readLine()) != null) {
+                if (PATTERN.matcher(line).matches()) {
+                    if (passedFirstClassLine) {
+                        changedLinesPerFile.put(file, lines.stream().mapToInt(Integer::intValue).toArray());
+                    }
+                    file = line.substring(line.lastIndexOf(" b/") + " b/".length());
+                    passedFirstFileLine = false;
+                    passedFirstClassLine = false;
+                    lines = new ArrayList<>();
+                    lineIndex = -2;
+                }
+                if (line.startsWith("@@") && line.endsWith("@@")) {
+                    passedFirstFileLine = true;
+                    lineIndex = -1;
+                }
+                if (passedFirstFileLine) {
+                    lineIndex++;
+                }
+                if (line.contains("class") && !passedFirstClassLine) {
+                    passedFirstClassLine = true;
+                }
+                if (passedFirstClassLine && line.startsWith("+")) {
+                    lines.add(lineIndex);
+                }
+            }
+            if (passedFirstClassLine) {
+                changedLinesPerFile.put(file, lines.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+        return changedLinesPerFile;
+    }
+
+    @Benchmark
+    public ChangeSet unifiedDiffParser() throws IOException {
+        return new UnifiedDiffParser().parse(new ByteArrayInputStream(diff));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UnifiedDiffParserBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.List;
 
 public class ConfigurationManagerTest {
 
@@ -23,6 +25,20 @@ public class ConfigurationManagerTest {
         Assertions.assertEquals(classPathDir, configurationManager.getClassPath());
     }
 
+    @Test
+    public void getClassPaths() {
+        ConfigurationManager configurationManager = new ConfigurationManager();
+        Assertions.assertTrue(configurationManager.getClassPaths().isEmpty());
+
+        File classPathDir = new File("target/classes");
+        File[] additionalClassPaths = {new File("../other-module/target/classes"), new File("lib/shaded.jar")};
+        configurationManager.setClassPath(classPathDir);
+        configurationManager.setAdditionalClassPaths(additionalClassPaths);
+
+        Assertions.assertArrayEquals(additionalClassPaths, configurationManager.getAdditionalClassPaths());
+        Assertions.assertEquals(List.of(classPathDir, additionalClassPaths[0], additionalClassPaths[1]), configurationManager.getClassPaths());
+    }
+
     @Test
     public void setGetSourcePaths() {
         ConfigurationManager configurationManager = new ConfigurationManager();
@@ -39,6 +55,22 @@ public class ConfigurationManagerTest {
         Assertions.assertEquals(jacocoExecFile, configurationManager.getJacocoExecFile());
     }
 
+    @Test
+    public void getJacocoExecFiles() throws IOException {
+        ConfigurationManager configurationManager = new ConfigurationManager();
+        Assertions.assertTrue(configurationManager.getJacocoExecFiles().isEmpty());
+
+        File jacocoExecFile = new File("src/test/resources/jacoco-examples-exec/jacoco.exec");
+        configurationManager.setJacocoExecFile(jacocoExecFile);
+        configurationManager.setProjectBaseDir(new File("src/test/resources"));
+        configurationManager.setJacocoExecFilePatterns(new String[]{"jacoco-examples-exec/*.exec", "target/jacoco-it.exec"});
+
+        //the exec file is matched by the pattern as well, but only returned once
+        Assertions.assertEquals(List.of(jacocoExecFile,
+                new File("src/test/resources/jacoco-examples-exec/single-module-example-jacoco-output.exec"),
+                new File("src/test/resources/target/jacoco-it.exec")), configurationManager.getJacocoExecFiles());
+    }
+
     @Test
     public void setBranchToCompare() {
         ConfigurationManager configurationManager = new ConfigurationManager();
@@ -46,4 +78,111 @@ public class ConfigurationManagerTest {
         configurationManager.setBranchToCompare(branchToCompare);
         Assertions.assertEquals(branchToCompare, configurationManager.getBranchToCompare());
     }
+
+    @Test
+    public void getAnalysisCacheFile() {
+        ConfigurationManager configurationManager = new ConfigurationManager();
+        Assertions.assertNull(configurationManager.getAnalysisCacheFile());
+
+        configurationManager.setBuildDirectory(new File("target"));
+        Assertions.assertEquals(new File("target"), configurationManager.getBuildDirectory());
+        Assertions.assertEquals(new File("target/coverage-extension/analysis-cache.bin"), configurationManager.getAnalysisCacheFile());
+
+        configurationManager.setUseAnalysisCache(false);
+        Assertions.assertNull(configurationManager.getAnalysisCacheFile());
+    }
+
+    @Test
+    public void getDiffCacheFile() {
+        ConfigurationManager configurationManager = new ConfigurationManager();
+        Assertions.assertFalse(configurationManager.getUseDiffCache());
+        configurationManager.setBuildDirectory(new File("target"));
+        Assertions.assertNull(configurationManager.getDiffCacheFile());
+
+        configurationManager.setUseDiffCache(true);
+        Assertions.assertEquals(new File("target/coverage-extension/diff-cache.bin"), configurationManager.getDiffCacheFile());
+
+        configurationManager.setUseDiffCache(false);
+        Assertions.assertNull(configurationManager.getDiffCacheFile());
+    }
+
+    @Test
+    public void setDiffThreads() {
+        ConfigurationManager configurationManager = new ConfigurationManager();
+        Assertions.assertEquals(1, configurationManager.getDiffThreads());
+
+        configurationManager.setDiffThreads(4);
+        Assertions.assertEquals(4, configurationManager.getDiffThreads());
+
+        configurationManager.setDiffThreads(0);
+        Assertions.assertEquals(Runtime.getRuntime().availableProcessors(), configurationManager.getDiffThreads());
+    }
+
+    @Test
+    public void setGitTimeout() {
+        ConfigurationManager configurationManager = new ConfigurationManager();
+        Assertions.assertEquals(300, configurationManager.getGitTimeout());
+
+        configurationManager.setGitTimeout(10);
+        Assertions.assertEquals(10, configurationManager.getGitTimeout());
+
+        configurationManager.setGitTimeout(-1);
+        Assertions.assertEquals(0, configurationManager.getGitTimeout());
+    }
+
+    @Test
+    public void setStagedChanges() {
+        ConfigurationManager configurationManager = new ConfigurationManager();
+        Assertions.assertFalse(configurationManager.getStagedChanges());
+
+        configurationManager.setStagedChanges(true);
+        Assertions.assertTrue(configurationManager.getStagedChanges());
+    }
+
+    @Test
+    public void setPatchFile() {
+        ConfigurationManager configurationManager = new ConfigurationManager();
+        Assertions.assertNull(configurationManager.getPatchFile());
+
+        configurationManager.setPatchFile("-");
+        Assertions.assertEquals("-", configurationManager.getPatchFile());
+
+        configurationManager.setPatchFile(" ");
+        Assertions.assertNull(configurationManager.getPatchFile());
+
+        configurationManager.setPatchFile("changes.patch");
+        Assertions.assertEquals("changes.patch", configurationManager.getPatchFile());
+
+        File projectBaseDir = new File("module").getAbsoluteFile();
+        configurationManager.setProjectBaseDir(projectBaseDir);
+        Assertions.assertEquals(new File(projectBaseDir, "changes.patch").getPath(), configurationManager.getPatchFile());
+
+        File patchFile = new File("changes.patch").getAbsoluteFile();
+        configurationManager.setPatchFile(patchFile.getPath());
+        Assertions.assertEquals(patchFile.getPath(), configurationManager.getPatchFile());
+
+        configurationManager.setPatchFile("-");
+        Assertions.assertEquals("-", configurationManager.getPatchFile());
+    }
+
+    @Test
+    public void setIncrementalDiff() {
+        ConfigurationManager configurationManager = new ConfigurationManager();
+        Assertions.assertFalse(configurationManager.getIncrementalDiff());
+
+        configurationManager.setIncrementalDiff(true);
+        Assertions.assertTrue(configurationManager.getIncrementalDiff());
+    }
+
+    @Test
+    public void setAnalysisThreads() {
+        ConfigurationManager configurationManager = new ConfigurationManager();
+        Assertions.assertEquals(Runtime.getRuntime().availableProcessors(), configurationManager.getAnalysisThreads());
+
+        configurationManager.setAnalysisThreads(3);
+        Assertions.assertEquals(3, configurationManager.getAnalysisThreads());
+
+        configurationManager.setAnalysisThreads(0);
+        Assertions.assertEquals(Runtime.getRuntime().availableProcessors(), configurationManager.getAnalysisThreads());
+    }
 }
@@ -0,0 +1,104 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CatFileBatchTest {
+
+    @Test
+    public void testRead(@TempDir Path directory) throws IOException, GitAPIException {
+        JGitDiffProviderTest.createRepository(directory);
+
+        try (CatFileBatch catFileBatch = new CatFileBatch(directory.toFile())) {
+            //the content of a file in the branch to compare, not in the working tree
+            CatFileBatch.GitObject blob = catFileBatch.read("base:module/src/main/java/Changed.java");
+            Assertions.assertEquals("blob", blob.getType());
+            Assertions.assertEquals("class Changed {\nint a;\nint b;\n}\n", new String(blob.getContent(), StandardCharsets.UTF_8));
+            Assertions.assertEquals(40, blob.getId().length());
+
+            Assertions.assertEquals("tree", catFileBatch.read("base^{tree}").getType());
+            Assertions.assertNull(catFileBatch.read("base:module/src/main/java/DoesNotExist.java"));
+
+            //the channel can still be used after a missing object
+            Assertions.assertEquals("commit", catFileBatch.read("base").getType());
+        }
+    }
+
+    @Test
+    public void testReadMany(@TempDir Path directory) throws IOException, GitAPIException {
+        JGitDiffProviderTest.createRepository(directory);
+
+        //more requests and responses than fit in the pipes at once
+        List<String> objectNames = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            objectNames.add(i % 2 == 0 ? "base:module/src/main/java/Unchanged.java" : "base:missing-" + i);
+        }
+
+        try (CatFileBatch catFileBatch = new CatFileBatch(directory.toFile())) {
+            List<CatFileBatch.GitObject> objects = catFileBatch.read(objectNames);
+
+            Assertions.assertEquals(objectNames.size(), objects.size());
+            for (int i = 0; i < objects.size(); i++) {
+                if (i % 2 == 0) {
+                    Assertions.assertEquals("class Unchanged {\n}\n", new String(objects.get(i).getContent(), StandardCharsets.UTF_8));
+                } else {
+                    Assertions.assertNull(objects.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testClose(@TempDir Path directory) throws IOException, GitAPIException {
+        JGitDiffProviderTest.createRepository(directory);
+
+        CatFileBatch catFileBatch = new CatFileBatch(directory.toFile());
+        catFileBatch.close();
+        catFileBatch.close();
+
+        Assertions.assertThrows(IOException.class, () -> catFileBatch.read("base"));
+    }
+
+    @Test
+    public void testSharedPerRepository(@TempDir Path directory) throws IOException, GitAPIException {
+        JGitDiffProviderTest.createRepository(directory);
+        File moduleDirectory = directory.resolve("module").toFile();
+
+        ProcessRunner processRunner = new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT);
+        CatFileBatches catFileBatches = new CatFileBatches(processRunner);
+        CatFileBatch catFileBatch;
+        try (CatFileBatches otherCatFileBatches = new CatFileBatches(processRunner)) {
+            catFileBatch = catFileBatches.get(moduleDirectory);
+            Assertions.assertSame(catFileBatch, catFileBatches.get(directory.toFile()));
+            Assertions.assertNotSame(catFileBatch, otherCatFileBatches.get(moduleDirectory));
+            Assertions.assertEquals("blob", catFileBatch.read("base:module/src/main/java/Unchanged.java").getType());
+        } finally {
+            catFileBatches.close();
+        }
+
+        Assertions.assertThrows(IOException.class, () -> catFileBatch.read("base"));
+        Assertions.assertThrows(IOException.class, () -> catFileBatches.get(moduleDirectory));
+        Assertions.assertEquals(2, processRunner.getProcesses());
+    }
+
+    @Test
+    public void testTimeout(@TempDir Path directory) throws IOException, GitAPIException {
+        JGitDiffProviderTest.createRepository(directory);
+
+        //the second name is rejected before the requests are flushed, so git gets no request and the read waits until the timeout kills git
+        CatFileBatch catFileBatch = new CatFileBatch(directory.toFile(), new ProcessRunner(Duration.ofMillis(500)));
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> catFileBatch.read(List.of("base", "base\nbase")));
+        Assertions.assertTrue(exception.getMessage().contains("did not finish within"), exception.getMessage());
+        Assertions.assertThrows(IOException.class, () -> catFileBatch.read("base"));
+    }
+}
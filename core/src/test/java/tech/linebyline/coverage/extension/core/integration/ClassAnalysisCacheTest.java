@@ -0,0 +1,159 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ISourceFileCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ClassAnalysisCacheTest {
+
+    private static File jacocoExecFile = new File("src/test/resources/jacoco-examples-exec/jacoco.exec");
+
+    private static File classPathDir = new File("../single-module-example/target/classes");
+
+    private static CoverageBuilder analyze(ExecutionDataStore executionDataStore, ClassAnalysisCache cache) throws IOException {
+        CoverageBuilder coverageBuilder = new CoverageBuilder();
+        new ParallelClassAnalyzer(executionDataStore, 1, cache).analyze(List.of(classPathDir), coverageBuilder);
+        return coverageBuilder;
+    }
+
+    private static void assertSameCoverage(CoverageBuilder expected, CoverageBuilder actual) {
+        Assertions.assertEquals(expected.getClasses().size(), actual.getClasses().size());
+        Map<String, IClassCoverage> actualClasses = new HashMap<>();
+        for (IClassCoverage classCoverage : actual.getClasses()) {
+            actualClasses.put(classCoverage.getName(), classCoverage);
+        }
+        for (IClassCoverage expectedClass : expected.getClasses()) {
+            IClassCoverage actualClass = actualClasses.get(expectedClass.getName());
+            Assertions.assertNotNull(actualClass);
+            Assertions.assertEquals(expectedClass.getId(), actualClass.getId());
+            Assertions.assertEquals(expectedClass.getSourceFileName(), actualClass.getSourceFileName());
+            Assertions.assertEquals(expectedClass.getPackageName(), actualClass.getPackageName());
+            for (ICoverageNode.CounterEntity counterEntity : ICoverageNode.CounterEntity.values()) {
+                Assertions.assertEquals(expectedClass.getCounter(counterEntity), actualClass.getCounter(counterEntity));
+                Assertions.assertEquals(expectedClass.getCounter(counterEntity).getStatus(), actualClass.getCounter(counterEntity).getStatus());
+            }
+            Assertions.assertEquals(expectedClass.getFirstLine(), actualClass.getFirstLine());
+            Assertions.assertEquals(expectedClass.getLastLine(), actualClass.getLastLine());
+            for (int line = expectedClass.getFirstLine() - 1; line <= expectedClass.getLastLine() + 1; line++) {
+                Assertions.assertEquals(expectedClass.getLine(line), actualClass.getLine(line));
+                Assertions.assertEquals(expectedClass.getLine(line).getStatus(), actualClass.getLine(line).getStatus());
+            }
+        }
+
+        Assertions.assertEquals(expected.getSourceFiles().size(), actual.getSourceFiles().size());
+        Map<String, ISourceFileCoverage> actualSourceFiles = new HashMap<>();
+        for (ISourceFileCoverage sourceFileCoverage : actual.getSourceFiles()) {
+            actualSourceFiles.put(sourceFileCoverage.getName(), sourceFileCoverage);
+        }
+        for (ISourceFileCoverage expectedSourceFile : expected.getSourceFiles()) {
+            ISourceFileCoverage actualSourceFile = actualSourceFiles.get(expectedSourceFile.getName());
+            Assertions.assertEquals(expectedSourceFile.getFirstLine(), actualSourceFile.getFirstLine());
+            Assertions.assertEquals(expectedSourceFile.getLastLine(), actualSourceFile.getLastLine());
+            for (int line = expectedSourceFile.getFirstLine(); line <= expectedSourceFile.getLastLine(); line++) {
+                Assertions.assertEquals(expectedSourceFile.getLine(line), actualSourceFile.getLine(line));
+            }
+        }
+    }
+
+    @Test
+    public void testCachedCoverageIsTheSameAsAnalyzedCoverage(@TempDir Path directory) throws IOException {
+        File cacheFile = directory.resolve("coverage-extension/analysis-cache.bin").toFile();
+        ExecutionDataStore executionDataStore = new ExecutionDataLoader().load(jacocoExecFile);
+        CoverageBuilder expected = analyze(executionDataStore, null);
+
+        ClassAnalysisCache coldCache = ClassAnalysisCache.load(cacheFile);
+        assertSameCoverage(expected, analyze(executionDataStore, coldCache));
+        Assertions.assertEquals(0, coldCache.getHits());
+        Assertions.assertEquals(2, coldCache.getMisses());
+        coldCache.save(true);
+        Assertions.assertTrue(cacheFile.isFile());
+
+        ClassAnalysisCache warmCache = ClassAnalysisCache.load(cacheFile);
+        assertSameCoverage(expected, analyze(executionDataStore, warmCache));
+        Assertions.assertEquals(2, warmCache.getHits());
+        Assertions.assertEquals(0, warmCache.getMisses());
+    }
+
+    @Test
+    public void testChangedProbesAreAnalyzedAgain(@TempDir Path directory) throws IOException {
+        File cacheFile = directory.resolve("analysis-cache.bin").toFile();
+        ExecutionDataStore executionDataStore = new ExecutionDataLoader().load(jacocoExecFile);
+        ClassAnalysisCache cache = ClassAnalysisCache.load(cacheFile);
+        analyze(executionDataStore, cache);
+        cache.save(true);
+
+        //cover every probe of one of the classes
+        ExecutionDataStore changedExecutionDataStore = new ExecutionDataLoader().load(jacocoExecFile);
+        ExecutionData executionData = changedExecutionDataStore.getContents().stream()
+                .filter(data -> data.getName().endsWith("FirstExampleClass"))
+                .findFirst()
+                .orElseThrow();
+        boolean[] probes = executionData.getProbes();
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = true;
+        }
+
+        ClassAnalysisCache warmCache = ClassAnalysisCache.load(cacheFile);
+        CoverageBuilder actual = analyze(changedExecutionDataStore, warmCache);
+
+        Assertions.assertEquals(1, warmCache.getHits());
+        Assertions.assertEquals(1, warmCache.getMisses());
+        assertSameCoverage(analyze(changedExecutionDataStore, null), actual);
+    }
+
+    @Test
+    public void testUnusedClassesAreDropped(@TempDir Path directory) throws IOException {
+        File cacheFile = directory.resolve("analysis-cache.bin").toFile();
+        ExecutionDataStore executionDataStore = new ExecutionDataLoader().load(jacocoExecFile);
+        ClassAnalysisCache cache = ClassAnalysisCache.load(cacheFile);
+        analyze(executionDataStore, cache);
+        cache.save(true);
+
+        //only one of the classes is analyzed by a run of the changed classes, the other one is kept
+        File firstExampleClass = new File(classPathDir, "com/brabel/coverage/extension/single/module/sample/FirstExampleClass.class");
+        ClassAnalysisCache changedClassesCache = ClassAnalysisCache.load(cacheFile);
+        new ParallelClassAnalyzer(executionDataStore, 1, changedClassesCache).analyze(List.of(firstExampleClass), new CoverageBuilder());
+        Assertions.assertEquals(1, changedClassesCache.getHits());
+        changedClassesCache.save(false);
+
+        ClassAnalysisCache fullCache = ClassAnalysisCache.load(cacheFile);
+        analyze(executionDataStore, fullCache);
+        Assertions.assertEquals(2, fullCache.getHits());
+
+        //a run of the whole class path that uses only one of the classes drops the other one from the cache
+        ClassAnalysisCache partialCache = ClassAnalysisCache.load(cacheFile);
+        new ParallelClassAnalyzer(executionDataStore, 1, partialCache).analyze(List.of(firstExampleClass), new CoverageBuilder());
+        Assertions.assertEquals(1, partialCache.getHits());
+        partialCache.save(true);
+
+        ClassAnalysisCache warmCache = ClassAnalysisCache.load(cacheFile);
+        analyze(executionDataStore, warmCache);
+        Assertions.assertEquals(1, warmCache.getHits());
+        Assertions.assertEquals(1, warmCache.getMisses());
+    }
+
+    @Test
+    public void testCorruptCacheIsIgnored(@TempDir Path directory) throws IOException {
+        File cacheFile = directory.resolve("analysis-cache.bin").toFile();
+        Files.write(cacheFile.toPath(), List.of("not a cache"));
+
+        ExecutionDataStore executionDataStore = new ExecutionDataLoader().load(jacocoExecFile);
+        ClassAnalysisCache cache = ClassAnalysisCache.load(cacheFile);
+        assertSameCoverage(analyze(executionDataStore, null), analyze(executionDataStore, cache));
+        Assertions.assertEquals(2, cache.getMisses());
+    }
+}
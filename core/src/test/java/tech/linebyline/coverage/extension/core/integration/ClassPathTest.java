@@ -0,0 +1,150 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.tools.ToolProvider;
+
+public class ClassPathTest {
+
+    private static File jacocoExecFile = new File("src/test/resources/jacoco-examples-exec/jacoco.exec");
+
+    private static File classPathDir = new File("../single-module-example/target/classes");
+
+    private static final String PACKAGE = "com/brabel/coverage/extension/single/module/sample/";
+
+    /**
+     * Packages the classes of the single-module-example in a JAR, under the given prefix
+     */
+    private static File createJar(Path directory, String prefix) throws IOException {
+        File jar = directory.resolve("classes.jar").toFile();
+        try (ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (String className : new String[]{"FirstExampleClass", "SecondExampleClass"}) {
+                outputStream.putNextEntry(new ZipEntry(prefix + PACKAGE + className + ".class"));
+                outputStream.write(Files.readAllBytes(new File(classPathDir, PACKAGE + className + ".class").toPath()));
+                outputStream.closeEntry();
+            }
+            outputStream.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            outputStream.closeEntry();
+        }
+        return jar;
+    }
+
+    @Test
+    public void testDirectory() throws IOException {
+        try (ClassPath classPath = ClassPath.of(List.of(classPathDir))) {
+            Assertions.assertEquals(Set.of(PACKAGE + "FirstExampleClass", PACKAGE + "SecondExampleClass"), classPath.getClassNames());
+            Assertions.assertTrue(classPath.getDuplicateClasses().isEmpty());
+        }
+    }
+
+    @Test
+    public void testJar(@TempDir Path directory) throws IOException {
+        File jar = createJar(directory, "");
+
+        try (ClassPath classPath = ClassPath.of(List.of(jar))) {
+            Assertions.assertEquals(Set.of(PACKAGE + "FirstExampleClass", PACKAGE + "SecondExampleClass"), classPath.getClassNames());
+            Assertions.assertEquals(jar.getPath() + "@" + PACKAGE + "FirstExampleClass.class", classPath.getClassFiles().stream()
+                    .filter(classFile -> classFile.getClassName().endsWith("FirstExampleClass"))
+                    .findFirst()
+                    .orElseThrow()
+                    .getLocation());
+
+            //the classes are analyzed straight from the JAR and give the same coverage as the class files in the directory
+            CoverageBuilder coverageBuilder = new CoverageBuilder();
+            new ParallelClassAnalyzer(new ExecutionDataLoader().load(jacocoExecFile), 1).analyzeClassFiles(classPath.getClassFiles(), coverageBuilder);
+
+            int linesCovered = 0;
+            int linesMissed = 0;
+            for (IClassCoverage classCoverage : coverageBuilder.getClasses()) {
+                linesCovered += classCoverage.getLineCounter().getCoveredCount();
+                linesMissed += classCoverage.getLineCounter().getMissedCount();
+            }
+            Assertions.assertEquals(10, linesCovered);
+            Assertions.assertEquals(5, linesMissed);
+        }
+    }
+
+    @Test
+    public void testSpringBootJar(@TempDir Path directory) throws IOException {
+        File jar = createJar(directory, "BOOT-INF/classes/");
+
+        try (ClassPath classPath = ClassPath.of(List.of(jar))) {
+            Assertions.assertEquals(Set.of(PACKAGE + "FirstExampleClass", PACKAGE + "SecondExampleClass"), classPath.getClassNames());
+        }
+    }
+
+    @Test
+    public void testDuplicateClasses(@TempDir Path directory) throws IOException {
+        File jar = createJar(directory, "");
+
+        try (ClassPath classPath = ClassPath.of(List.of(classPathDir, jar))) {
+            //only the first location of a class is analyzed
+            Assertions.assertEquals(2, classPath.getClassFiles().size());
+            Assertions.assertEquals(2, classPath.getDuplicateClasses().size());
+            Assertions.assertEquals(List.of(new File(classPathDir, PACKAGE + "FirstExampleClass.class").getPath(), jar.getPath() + "@" + PACKAGE + "FirstExampleClass.class"),
+                    classPath.getDuplicateClasses().get(PACKAGE + "FirstExampleClass"));
+        }
+    }
+
+    @Test
+    public void testSourceFiles(@TempDir Path directory) throws IOException {
+        File jar = createJar(directory, "");
+
+        try (ClassPath classPath = ClassPath.of(List.of(classPathDir), Set.of(PACKAGE + "FirstExampleClass.java"))) {
+            Assertions.assertEquals(Set.of(PACKAGE + "FirstExampleClass"), classPath.getClassNames());
+        }
+        try (ClassPath classPath = ClassPath.of(List.of(jar), Set.of(PACKAGE + "SecondExampleClass.java"))) {
+            Assertions.assertEquals(Set.of(PACKAGE + "SecondExampleClass"), classPath.getClassNames());
+        }
+    }
+
+    @Test
+    public void testSecondTopLevelClass(@TempDir Path directory) throws IOException {
+        //Foo.java also declares the class Helper, which is only found through its SourceFile attribute
+        Path sources = Files.createDirectories(directory.resolve("src/example"));
+        Files.writeString(sources.resolve("Foo.java"), "package example; public class Foo { class Inner {} } class Helper { Runnable runnable = new Runnable() { public void run() {} }; }");
+        Files.writeString(sources.resolve("Other.java"), "package example; public class Other { class Inner {} }");
+        File classes = Files.createDirectories(directory.resolve("classes")).toFile();
+        Assertions.assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, "-d", classes.getPath(),
+                sources.resolve("Foo.java").toString(), sources.resolve("Other.java").toString()));
+
+        File jar = directory.resolve("classes.jar").toFile();
+        try (ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (File classFile : new File(classes, "example").listFiles()) {
+                outputStream.putNextEntry(new ZipEntry("example/" + classFile.getName()));
+                outputStream.write(Files.readAllBytes(classFile.toPath()));
+                outputStream.closeEntry();
+            }
+        }
+
+        Set<String> expected = Set.of("example/Foo", "example/Foo$Inner", "example/Helper", "example/Helper$1");
+        try (ClassPath classPath = ClassPath.of(List.of(classes), Set.of("example/Foo.java"))) {
+            Assertions.assertEquals(expected, classPath.getClassNames());
+        }
+        try (ClassPath classPath = ClassPath.of(List.of(jar), Set.of("example/Foo.java"))) {
+            Assertions.assertEquals(expected, classPath.getClassNames());
+        }
+    }
+
+    @Test
+    public void testLooseClassFile() throws IOException {
+        try (ClassPath classPath = ClassPath.of(List.of(new File(classPathDir, PACKAGE + "FirstExampleClass.class")))) {
+            Assertions.assertEquals(1, classPath.getClassFiles().size());
+            //the name of a loose class file is unknown, so the execution data cannot be filtered
+            Assertions.assertNull(classPath.getClassNames());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Set;
+
+public class DiffCacheTest {
+
+    private static ChangeSet createChanges() {
+        HashMap<String, ChangedLines> changedLines = new HashMap<>();
+        changedLines.put("module/src/main/java/Foo.java", new ChangedLines.Builder().add(3, 7).add(10, 10).add(20, 1000).build());
+        changedLines.put("module/src/main/java/Bar.java", ChangedLines.of(1));
+        return new ChangeSet(Set.of(new File("module/src/main/java/Foo.java"), new File("module/src/main/java/Bar.java"),
+                new File("module/src/main/java/Baz.java")), changedLines);
+    }
+
+    private static final DiffCache.Key KEY = new DiffCache.Key("1111111", "2222222", "/project *.java", "");
+
+    @Test
+    public void testSaveAndLoad(@TempDir Path directory) throws IOException {
+        File cacheFile = directory.resolve("coverage-extension/diff-cache.bin").toFile();
+        ChangeSet changes = createChanges();
+
+        DiffCache cache = DiffCache.load(cacheFile);
+        Assertions.assertNull(cache.get(KEY));
+        cache.put(KEY, changes);
+        cache.save();
+
+        DiffCache loadedCache = DiffCache.load(cacheFile);
+        ChangeSet loadedChanges = loadedCache.get(KEY);
+        Assertions.assertNotNull(loadedChanges);
+        Assertions.assertEquals(changes.getChangedFiles(), loadedChanges.getChangedFiles());
+        Assertions.assertEquals(changes.getChangedLines(), loadedChanges.getChangedLines());
+
+        //only the diff of the same key is returned
+        Assertions.assertEquals(KEY, loadedCache.getKey());
+        Assertions.assertNull(loadedCache.get(new DiffCache.Key("1111111", "3333333", "/project *.java", "")));
+        Assertions.assertNull(loadedCache.get(new DiffCache.Key("1111111", "2222222", "/project *.java", "abcdef")));
+    }
+
+    @Test
+    public void testCorruptCacheIsIgnored(@TempDir Path directory) throws IOException {
+        File cacheFile = directory.resolve("diff-cache.bin").toFile();
+        DiffCache cache = DiffCache.load(cacheFile);
+        cache.put(KEY, createChanges());
+        cache.save();
+
+        byte[] bytes = Files.readAllBytes(cacheFile.toPath());
+        Files.write(cacheFile.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+
+        Assertions.assertNull(DiffCache.load(cacheFile).get(KEY));
+    }
+
+    @Test
+    public void testCanBeUpdatedTo() {
+        //a newer HEAD or changes in the working tree of the same base and paths
+        Assertions.assertTrue(KEY.canBeUpdatedTo(new DiffCache.Key("1111111", "3333333", "/project *.java", "")));
+        Assertions.assertTrue(KEY.canBeUpdatedTo(new DiffCache.Key("1111111", "2222222", "/project *.java", "abcdef")));
+        //another base, other paths or a cached diff that contains changes of the working tree
+        Assertions.assertFalse(KEY.canBeUpdatedTo(new DiffCache.Key("4444444", "3333333", "/project *.java", "")));
+        Assertions.assertFalse(KEY.canBeUpdatedTo(new DiffCache.Key("1111111", "3333333", "/project src/main/java/*.java", "")));
+        Assertions.assertFalse(new DiffCache.Key("1111111", "2222222", "/project *.java", "abcdef")
+                .canBeUpdatedTo(new DiffCache.Key("1111111", "3333333", "/project *.java", "")));
+    }
+}
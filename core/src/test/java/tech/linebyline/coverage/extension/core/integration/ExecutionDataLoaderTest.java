@@ -0,0 +1,161 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfoStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+public class ExecutionDataLoaderTest {
+
+    private static File jacocoExecFile = new File("src/test/resources/jacoco-examples-exec/jacoco.exec");
+
+    private static ExecutionDataStore read(InputStream inputStream) throws IOException {
+        ExecutionDataStore executionDataStore = new ExecutionDataStore();
+        ExecutionDataReader reader = new ExecutionDataReader(inputStream);
+        reader.setExecutionDataVisitor(executionDataStore);
+        reader.setSessionInfoVisitor(new SessionInfoStore());
+        reader.read();
+        return executionDataStore;
+    }
+
+    private static void assertSameExecutionData(ExecutionDataStore expected, ExecutionDataStore actual) {
+        Assertions.assertEquals(expected.getContents().size(), actual.getContents().size());
+        for (ExecutionData executionData : expected.getContents()) {
+            ExecutionData actualExecutionData = actual.get(executionData.getId());
+            Assertions.assertNotNull(actualExecutionData);
+            Assertions.assertEquals(executionData.getName(), actualExecutionData.getName());
+            Assertions.assertArrayEquals(executionData.getProbes(), actualExecutionData.getProbes());
+        }
+    }
+
+    @Test
+    public void loadTest() throws IOException {
+        ExecutionDataStore expected;
+        try (InputStream inputStream = new FileInputStream(jacocoExecFile)) {
+            expected = read(inputStream);
+        }
+
+        ExecutionDataLoader executionDataLoader = new ExecutionDataLoader();
+        ExecutionDataStore actual = executionDataLoader.load(jacocoExecFile);
+
+        Assertions.assertFalse(actual.getContents().isEmpty());
+        assertSameExecutionData(expected, actual);
+        Assertions.assertEquals(jacocoExecFile.length(), executionDataLoader.getBytesRead());
+        Assertions.assertTrue(executionDataLoader.getLoadTimeNanos() > 0);
+        Assertions.assertTrue(executionDataLoader.getBytesPerSecond() > 0);
+    }
+
+    @Test
+    public void loadIntoExistingStoreTest() throws IOException {
+        ExecutionDataLoader executionDataLoader = new ExecutionDataLoader();
+        ExecutionDataStore executionDataStore = executionDataLoader.load(jacocoExecFile);
+        int numberOfClasses = executionDataStore.getContents().size();
+
+        executionDataLoader.load(jacocoExecFile, executionDataStore);
+
+        Assertions.assertEquals(numberOfClasses, executionDataStore.getContents().size());
+        Assertions.assertEquals(2 * jacocoExecFile.length(), executionDataLoader.getBytesRead());
+    }
+
+    @Test
+    public void loadWithClassNameFilterTest() throws IOException {
+        String className = "com/brabel/coverage/extension/single/module/sample/FirstExampleClass";
+        ExecutionDataStore allExecutionData = new ExecutionDataLoader().load(jacocoExecFile);
+
+        ExecutionDataLoader executionDataLoader = new ExecutionDataLoader(Set.of(className, "com/example/NotInExecFile"));
+        ExecutionDataStore filteredExecutionData = executionDataLoader.load(jacocoExecFile);
+
+        Assertions.assertEquals(1, filteredExecutionData.getContents().size());
+        ExecutionData executionData = filteredExecutionData.getContents().iterator().next();
+        Assertions.assertEquals(className, executionData.getName());
+        Assertions.assertArrayEquals(allExecutionData.get(executionData.getId()).getProbes(), executionData.getProbes());
+        Assertions.assertEquals(allExecutionData.getContents().size() - 1, executionDataLoader.getSkippedRecords());
+    }
+
+    @Test
+    public void filterLoadedExecutionDataTest() throws IOException {
+        String className = "com/brabel/coverage/extension/single/module/sample/FirstExampleClass";
+        ExecutionDataLoader executionDataLoader = new ExecutionDataLoader();
+        ExecutionDataStore allExecutionData = executionDataLoader.load(jacocoExecFile);
+
+        ExecutionDataStore filteredExecutionData = executionDataLoader.filter(allExecutionData, Set.of(className, "com/example/NotInExecFile"));
+
+        Assertions.assertEquals(1, filteredExecutionData.getContents().size());
+        ExecutionData executionData = filteredExecutionData.getContents().iterator().next();
+        Assertions.assertEquals(className, executionData.getName());
+        Assertions.assertArrayEquals(allExecutionData.get(executionData.getId()).getProbes(), executionData.getProbes());
+        Assertions.assertEquals(allExecutionData.getContents().size() - 1, executionDataLoader.getSkippedRecords());
+    }
+
+    private static File writeExecFile(Path directory, String name, boolean[] probes) throws IOException {
+        File jacocoExecFile = directory.resolve(name).toFile();
+        try (OutputStream outputStream = new FileOutputStream(jacocoExecFile)) {
+            ExecutionDataWriter writer = new ExecutionDataWriter(outputStream);
+            writer.visitClassExecution(new ExecutionData(1L, "com/example/Foo", probes));
+        }
+        return jacocoExecFile;
+    }
+
+    @Test
+    public void loadMultipleFilesTest(@TempDir Path directory) throws IOException {
+        File unitTests = writeExecFile(directory, "jacoco.exec", new boolean[]{true, false, false});
+        File integrationTests = writeExecFile(directory, "jacoco-it.exec", new boolean[]{false, false, true});
+
+        ExecutionDataLoader executionDataLoader = new ExecutionDataLoader();
+        ExecutionDataStore executionDataStore = executionDataLoader.load(List.of(unitTests, integrationTests, jacocoExecFile), 3);
+
+        //the probes of the class that is in both exec files are OR-ed
+        Assertions.assertArrayEquals(new boolean[]{true, false, true}, executionDataStore.get(1L).getProbes());
+        Assertions.assertEquals(new ExecutionDataLoader().load(jacocoExecFile).getContents().size() + 1, executionDataStore.getContents().size());
+        Assertions.assertEquals(unitTests.length() + integrationTests.length() + jacocoExecFile.length(), executionDataLoader.getBytesRead());
+    }
+
+    @Test
+    public void loadMultipleFilesWithMissingFileTest(@TempDir Path directory) throws IOException {
+        File unitTests = writeExecFile(directory, "jacoco.exec", new boolean[]{true});
+
+        ExecutionDataLoader executionDataLoader = new ExecutionDataLoader();
+        Assertions.assertThrows(IOException.class, () -> executionDataLoader.load(List.of(unitTests, directory.resolve("missing.exec").toFile()), 2));
+    }
+
+    @Test
+    public void loadNonExistingFileTest() {
+        ExecutionDataLoader executionDataLoader = new ExecutionDataLoader();
+        Assertions.assertThrows(IOException.class, () -> executionDataLoader.load(new File("src/test/resources/does-not-exist.exec")));
+        Assertions.assertEquals(0, executionDataLoader.getBytesPerSecond());
+    }
+
+    @Test
+    public void mappedFileInputStreamTest() throws IOException {
+        ExecutionDataStore expected;
+        try (InputStream inputStream = new FileInputStream(jacocoExecFile)) {
+            expected = read(inputStream);
+        }
+
+        FileChannel channel = FileChannel.open(jacocoExecFile.toPath(), StandardOpenOption.READ);
+        ExecutionDataStore actual;
+        try (InputStream inputStream = new ExecutionDataLoader.MappedFileInputStream(channel)) {
+            actual = read(inputStream);
+            Assertions.assertEquals(-1, inputStream.read());
+        }
+
+        assertSameExecutionData(expected, actual);
+        Assertions.assertFalse(channel.isOpen());
+    }
+}
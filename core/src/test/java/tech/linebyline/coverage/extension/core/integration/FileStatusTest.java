@@ -0,0 +1,40 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class FileStatusTest {
+
+    @Test
+    public void testParse() {
+        String output = "M\u0000src/Modified.java\u0000R100\u0000src/a/Moved.java\u0000src/b/Moved.java\u0000"
+                + "R087\u0000src/a/Edited.java\u0000src/b/Edited.java\u0000A\u0000src/Added.java\u0000";
+
+        List<FileStatus> fileStatuses = FileStatus.parse(output.getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals(4, fileStatuses.size());
+        Assertions.assertEquals('M', fileStatuses.get(0).getStatus());
+        Assertions.assertEquals("src/Modified.java", fileStatuses.get(0).getPath());
+        Assertions.assertNull(fileStatuses.get(0).getOldPath());
+        Assertions.assertEquals(-1, fileStatuses.get(0).getSimilarity());
+
+        Assertions.assertEquals("src/a/Moved.java", fileStatuses.get(1).getOldPath());
+        Assertions.assertEquals("src/b/Moved.java", fileStatuses.get(1).getPath());
+        Assertions.assertTrue(fileStatuses.get(1).isPureRename());
+
+        Assertions.assertEquals(87, fileStatuses.get(2).getSimilarity());
+        Assertions.assertEquals("src/b/Edited.java", fileStatuses.get(2).getPath());
+        Assertions.assertFalse(fileStatuses.get(2).isPureRename());
+
+        Assertions.assertEquals('A', fileStatuses.get(3).getStatus());
+        Assertions.assertEquals("src/Added.java", fileStatuses.get(3).getPath());
+    }
+
+    @Test
+    public void testParseEmptyOutput() {
+        Assertions.assertTrue(FileStatus.parse(new byte[0]).isEmpty());
+    }
+}
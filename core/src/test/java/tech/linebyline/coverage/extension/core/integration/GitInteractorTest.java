@@ -2,9 +2,11 @@ package tech.linebyline.coverage.extension.core.integration;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.Set;
 
 import static tech.linebyline.coverage.extension.core.integration.GitInteractor.*;
@@ -17,6 +19,25 @@ public class GitInteractorTest {
         Assertions.assertNotNull(overviewOfChangedFiles);
     }
 
+    @Test
+    public void getChangesTest() throws IOException, InterruptedException {
+        ChangeSet changes = getChanges("origin/develop");
+        Assertions.assertNotNull(changes.getChangedFiles());
+        //every file with changed lines is one of the changed files of the same diff
+        for (String path : changes.getChangedLines().keySet()) {
+            Assertions.assertTrue(changes.getChangedFiles().contains(new File(path)), path);
+        }
+    }
+
+    @Test
+    public void getJavaPathspecsTest() {
+        File baseDir = new File("module").getAbsoluteFile();
+        Assertions.assertEquals(List.of("*.java"), getJavaPathspecs(baseDir, null));
+        Assertions.assertEquals(List.of("*.java"), getJavaPathspecs(baseDir, new String[0]));
+        Assertions.assertEquals(List.of("src/main/java/*.java", "src/generated/*.java"),
+                getJavaPathspecs(baseDir, new String[]{"src/main/java/", new File(baseDir, "src/generated").getPath()}));
+    }
+
     @Test
     public void isLineDiffGitLineTest(){
         String[] testLines = {
@@ -41,6 +62,22 @@ public class GitInteractorTest {
         }
     }
 
+    @Test
+    public void getPathOfDiffGitLineTest(){
+        Assertions.assertEquals("core/pom.xml", getPathOfDiffGitLine("diff --git a/core/pom.xml b/core/pom.xml"));
+        Assertions.assertEquals("core/src/main/java/com/example/NewName.java", getPathOfDiffGitLine("diff --git a/core/src/main/java/com/example/OldName.java b/core/src/main/java/com/example/NewName.java"));
+        Assertions.assertEquals("src/a b/Foo.java", getPathOfDiffGitLine("diff --git a/src/a b/Foo.java b/src/a b/Foo.java"));
+        Assertions.assertEquals("src/café/Foo.java", getPathOfDiffGitLine("diff --git \"a/src/caf\\303\\251/Foo.java\" \"b/src/caf\\303\\251/Foo.java\""));
+    }
+
+    @Test
+    public void findRepositoryRootTest() throws IOException {
+        File repositoryRoot = findRepositoryRoot(new File("../single-module-example"));
+        Assertions.assertNotNull(repositoryRoot);
+        Assertions.assertTrue(new File(repositoryRoot, ".git").exists());
+        Assertions.assertEquals(new File("..").getCanonicalFile(), repositoryRoot);
+    }
+
     @Test
     public void getOverviewOfChangedLinesTest(){
         try {
@@ -0,0 +1,196 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+public class GitProcessDiffProviderTest {
+
+    @Test
+    public void testSourcePaths(@TempDir Path directory) throws IOException, GitAPIException, InterruptedException {
+        JGitDiffProviderTest.createRepository(directory);
+
+        //only the java files of the source root of the module are diffed, not the resources, the other module or the deleted file
+        GitProcessDiffProvider diffProvider = new GitProcessDiffProvider(directory.resolve("module").toFile(), new String[]{"src/main/java"});
+        ChangeSet changes = diffProvider.getChanges("base");
+
+        Assertions.assertEquals(Set.of(new File("module/src/main/java/Changed.java"), new File("module/src/main/java/Added.java")), changes.getChangedFiles());
+        Assertions.assertEquals(Set.of("module/src/main/java/Changed.java", "module/src/main/java/Added.java"), changes.getChangedLines().keySet());
+        Assertions.assertEquals(changes.getChangedFiles(), diffProvider.getOverviewOfChangedFiles("base"));
+    }
+
+    @Test
+    public void testRenames(@TempDir Path directory) throws IOException, GitAPIException, InterruptedException {
+        JGitDiffProviderTest.createRepository(directory);
+        try (Git git = Git.open(directory.toFile())) {
+            //a package move: one file only moved, one moved and edited
+            Files.createDirectories(directory.resolve("module/src/main/java/moved"));
+            Files.move(directory.resolve("module/src/main/java/Unchanged.java"), directory.resolve("module/src/main/java/moved/Unchanged.java"));
+            Files.move(directory.resolve("module/src/main/java/Changed.java"), directory.resolve("module/src/main/java/moved/Changed.java"));
+            git.rm().addFilepattern("module/src/main/java/Unchanged.java").addFilepattern("module/src/main/java/Changed.java").call();
+            git.add().addFilepattern("module/src/main/java/moved").call();
+        }
+        File moduleDirectory = directory.resolve("module").toFile();
+        List<String> pathspecs = GitInteractor.getJavaPathspecs(moduleDirectory, new String[]{"src/main/java"});
+
+        List<FileStatus> fileStatuses = GitInteractor.getStatusOfChangedFiles("base", moduleDirectory, pathspecs);
+        FileStatus unchanged = fileStatuses.stream().filter(fileStatus -> fileStatus.getPath().endsWith("moved/Unchanged.java")).findFirst().orElseThrow();
+        Assertions.assertTrue(unchanged.isPureRename());
+        Assertions.assertEquals("module/src/main/java/Unchanged.java", unchanged.getOldPath());
+        FileStatus changed = fileStatuses.stream().filter(fileStatus -> fileStatus.getPath().endsWith("moved/Changed.java")).findFirst().orElseThrow();
+        Assertions.assertEquals('R', changed.getStatus());
+        Assertions.assertFalse(changed.isPureRename());
+
+        //the renamed file with edits has its new path and only its edited lines, the file that was only moved is left out
+        GitProcessDiffProvider diffProvider = new GitProcessDiffProvider(moduleDirectory, new String[]{"src/main/java"});
+        Set<File> expectedFiles = Set.of(new File("module/src/main/java/moved/Changed.java"), new File("module/src/main/java/Added.java"));
+        Assertions.assertEquals(expectedFiles, diffProvider.getOverviewOfChangedFiles("base"));
+        ChangeSet changes = diffProvider.getChanges("base");
+        Assertions.assertEquals(expectedFiles, changes.getChangedFiles());
+        Assertions.assertEquals(ChangedLines.of(3, 4), changes.getChangedLines().get("module/src/main/java/moved/Changed.java"));
+
+        //JGit recognizes the file that was only moved as well
+        Assertions.assertFalse(new JGitDiffProvider(moduleDirectory, new String[]{"src/main/java"}).getOverviewOfChangedFiles("base")
+                .contains(new File("module/src/main/java/moved/Unchanged.java")));
+    }
+
+    @Test
+    public void testSameChangesAsJGit(@TempDir Path directory) throws IOException, GitAPIException, InterruptedException {
+        JGitDiffProviderTest.createRepository(directory);
+        File moduleDirectory = directory.resolve("module").toFile();
+
+        ChangeSet gitChanges = new GitProcessDiffProvider(moduleDirectory, new String[]{"."}).getChanges("base");
+        ChangeSet jGitChanges = new JGitDiffProvider(moduleDirectory, new String[]{"."}).getChanges("base");
+
+        Assertions.assertEquals(jGitChanges.getChangedFiles(), gitChanges.getChangedFiles());
+        Assertions.assertEquals(jGitChanges.getChangedLines(), gitChanges.getChangedLines());
+    }
+
+    @Test
+    public void testDiffCache(@TempDir Path directory) throws IOException, GitAPIException, InterruptedException {
+        JGitDiffProviderTest.createRepository(directory);
+        File moduleDirectory = directory.resolve("module").toFile();
+        File cacheFile = directory.resolve("module/target/coverage-extension/diff-cache.bin").toFile();
+        List<String> pathspecs = GitInteractor.getJavaPathspecs(moduleDirectory, new String[]{"src/main/java"});
+
+        GitProcessDiffProvider diffProvider = new GitProcessDiffProvider(moduleDirectory, new String[]{"src/main/java"}, cacheFile);
+        ChangeSet changes = diffProvider.getChanges("base");
+        Assertions.assertTrue(cacheFile.isFile());
+        Assertions.assertEquals(Set.of(new File("module/src/main/java/Changed.java"), new File("module/src/main/java/Added.java")), changes.getChangedFiles());
+
+        //as long as nothing changes, the diff is taken from the cache
+        DiffCache.Key key = GitInteractor.getDiffCacheKey("base", moduleDirectory, pathspecs);
+        Assertions.assertEquals(key, GitInteractor.getDiffCacheKey("base", moduleDirectory, pathspecs));
+        DiffCache diffCache = DiffCache.load(cacheFile);
+        ChangeSet cachedChanges = new ChangeSet(Set.of(new File("Cached.java")), new HashMap<>());
+        diffCache.put(key, cachedChanges);
+        diffCache.save();
+        Assertions.assertEquals(cachedChanges.getChangedFiles(), diffProvider.getChanges("base").getChangedFiles());
+        Assertions.assertEquals(cachedChanges.getChangedFiles(), diffProvider.getOverviewOfChangedFiles("base"));
+
+        //editing a file that was already modified changes the key, so the diff is run again
+        JGitDiffProviderTest.write(directory, "module/src/main/java/Changed.java", "class Changed {", "int a;", "int c;", "int d;", "int e;", "}");
+        Assertions.assertNotEquals(key, GitInteractor.getDiffCacheKey("base", moduleDirectory, pathspecs));
+        Assertions.assertEquals(changes.getChangedFiles(), diffProvider.getChanges("base").getChangedFiles());
+
+        //a branch that cannot be resolved is not cached
+        Assertions.assertNull(GitInteractor.getDiffCacheKey("unknown", moduleDirectory, pathspecs));
+    }
+
+    @Test
+    public void testIncrementalDiff(@TempDir Path directory) throws IOException, GitAPIException, InterruptedException {
+        JGitDiffProviderTest.createRepository(directory);
+        File moduleDirectory = directory.resolve("module").toFile();
+        File cacheFile = directory.resolve("module/target/coverage-extension/diff-cache.bin").toFile();
+        String[] sourcePaths = {"src/main/java"};
+        List<String> pathspecs = GitInteractor.getJavaPathspecs(moduleDirectory, sourcePaths);
+        GitProcessDiffProvider diffProvider = new GitProcessDiffProvider(moduleDirectory, sourcePaths, cacheFile, true);
+
+        try (Git git = Git.open(directory.toFile())) {
+            git.add().addFilepattern(".").call();
+            git.commit().setAll(true).setMessage("clean").setSign(false).call();
+            ChangeSet changes = diffProvider.getChanges("base");
+
+            //a file that is not touched by the next commit is kept as it is, which tells the diff was incremental
+            changes.getChangedLines().put("module/src/main/java/Untouched.java", ChangedLines.of(1, 2));
+            DiffCache diffCache = DiffCache.load(cacheFile);
+            diffCache.put(GitInteractor.getDiffCacheKey("base", moduleDirectory, pathspecs), changes);
+            diffCache.save();
+
+            //a fixup commit that inserts, modifies and removes lines, deletes a file and adds a file
+            JGitDiffProviderTest.write(directory, "module/src/main/java/Changed.java", "package foo;", "", "class Changed {", "int a;", "int x;", "int d;", "}");
+            Files.delete(directory.resolve("module/src/main/java/Added.java"));
+            JGitDiffProviderTest.write(directory, "module/src/main/java/New.java", "class New {", "}");
+            git.add().addFilepattern(".").call();
+            git.commit().setAll(true).setMessage("fixup").setSign(false).call();
+        }
+
+        ChangeSet incrementalChanges = diffProvider.getChanges("base");
+        ChangeSet fullChanges = new GitProcessDiffProvider(moduleDirectory, sourcePaths).getChanges("base");
+
+        Assertions.assertEquals(ChangedLines.of(1, 2), incrementalChanges.getChangedLines().remove("module/src/main/java/Untouched.java"));
+        Assertions.assertEquals(fullChanges.getChangedFiles(), incrementalChanges.getChangedFiles());
+        Assertions.assertEquals(fullChanges.getChangedLines(), incrementalChanges.getChangedLines());
+    }
+
+    @Test
+    public void testIncrementalDiffRevertAndRename(@TempDir Path directory) throws IOException, GitAPIException, InterruptedException {
+        JGitDiffProviderTest.createRepository(directory);
+        File moduleDirectory = directory.resolve("module").toFile();
+        File cacheFile = directory.resolve("module/target/coverage-extension/diff-cache.bin").toFile();
+        String[] sourcePaths = {"src/main/java"};
+        List<String> pathspecs = GitInteractor.getJavaPathspecs(moduleDirectory, sourcePaths);
+        GitProcessDiffProvider diffProvider = new GitProcessDiffProvider(moduleDirectory, sourcePaths, cacheFile, true);
+
+        try (Git git = Git.open(directory.toFile())) {
+            //the branch renames a file and adds a line to it
+            Files.move(directory.resolve("module/src/main/java/Unchanged.java"), directory.resolve("module/src/main/java/Moved.java"));
+            JGitDiffProviderTest.write(directory, "module/src/main/java/Moved.java", "class Unchanged {", "int a;", "}");
+            git.add().addFilepattern(".").call();
+            git.rm().addFilepattern("module/src/main/java/Unchanged.java").call();
+            git.commit().setAll(true).setMessage("clean").setSign(false).call();
+            ChangeSet changes = diffProvider.getChanges("base");
+            changes.getChangedLines().put("module/src/main/java/Untouched.java", ChangedLines.of(1, 2));
+            DiffCache diffCache = DiffCache.load(cacheFile);
+            diffCache.put(GitInteractor.getDiffCacheKey("base", moduleDirectory, pathspecs), changes);
+            diffCache.save();
+
+            //a fixup commit that changes a file back to its content in the branch to compare and edits the moved file
+            JGitDiffProviderTest.write(directory, "module/src/main/java/Changed.java", "class Changed {", "int a;", "int b;", "}");
+            JGitDiffProviderTest.write(directory, "module/src/main/java/Moved.java", "class Unchanged {", "int a;", "int b;", "}");
+            git.commit().setAll(true).setMessage("revert").setSign(false).call();
+            ChangeSet incrementalChanges = diffProvider.getChanges("base");
+            ChangeSet fullChanges = new GitProcessDiffProvider(moduleDirectory, sourcePaths).getChanges("base");
+
+            Assertions.assertEquals(ChangedLines.of(1, 2), incrementalChanges.getChangedLines().remove("module/src/main/java/Untouched.java"));
+            Assertions.assertFalse(incrementalChanges.getChangedFiles().contains(new File("module/src/main/java/Changed.java")));
+            Assertions.assertEquals(ChangedLines.of(2, 3), incrementalChanges.getChangedLines().get("module/src/main/java/Moved.java"));
+            Assertions.assertEquals(fullChanges.getChangedFiles(), incrementalChanges.getChangedFiles());
+            Assertions.assertEquals(fullChanges.getChangedLines(), incrementalChanges.getChangedLines());
+
+            //a commit that renames a file diffs the whole branch again, which drops the entry of the untouched file
+            Files.move(directory.resolve("module/src/main/java/Moved.java"), directory.resolve("module/src/main/java/Renamed.java"));
+            git.add().addFilepattern(".").call();
+            git.rm().addFilepattern("module/src/main/java/Moved.java").call();
+            git.commit().setMessage("rename").setSign(false).call();
+        }
+
+        ChangeSet changesAfterRename = diffProvider.getChanges("base");
+        ChangeSet fullChanges = new GitProcessDiffProvider(moduleDirectory, sourcePaths).getChanges("base");
+
+        Assertions.assertEquals(fullChanges.getChangedFiles(), changesAfterRename.getChangedFiles());
+        Assertions.assertEquals(fullChanges.getChangedLines(), changesAfterRename.getChangedLines());
+    }
+}
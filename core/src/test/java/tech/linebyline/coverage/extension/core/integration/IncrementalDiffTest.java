@@ -0,0 +1,86 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Set;
+
+public class IncrementalDiffTest {
+
+    @Test
+    public void testApply(@TempDir Path repositoryRoot) throws IOException {
+        Files.createDirectories(repositoryRoot.resolve("src"));
+        Files.write(repositoryRoot.resolve("src/Changed.java"), new byte[0]);
+        Files.write(repositoryRoot.resolve("src/New.java"), new byte[0]);
+
+        HashMap<String, ChangedLines> previousLines = new HashMap<>();
+        previousLines.put("src/Changed.java", ChangedLines.of(3, 4));
+        previousLines.put("src/Deleted.java", ChangedLines.of(1));
+        previousLines.put("src/Untouched.java", ChangedLines.of(7));
+        ChangeSet previousChanges = new ChangeSet(Set.of(new File("src/Changed.java"), new File("src/Deleted.java"), new File("src/Untouched.java")), previousLines);
+
+        //the new file had the content of the branch to compare, so the lines added since are its changed lines
+        HashMap<String, ChangedLines> addedLines = new HashMap<>();
+        addedLines.put("src/Changed.java", ChangedLines.of(1));
+        addedLines.put("src/New.java", ChangedLines.of(1, 2));
+        ChangeSet diff = new ChangeSet(Set.of(new File("src/Changed.java"), new File("src/Deleted.java"), new File("src/New.java")), addedLines);
+
+        HashMap<String, ChangedLines> exactLines = new HashMap<>();
+        exactLines.put("src/Changed.java", ChangedLines.of(1, 4, 5));
+        ChangeSet exactChanges = new ChangeSet(Set.of(new File("src/Changed.java")), exactLines);
+
+        ChangeSet changes = IncrementalDiff.apply(previousChanges, diff, repositoryRoot.toFile(), Set.of(new File("src/Changed.java")), exactChanges);
+
+        Assertions.assertEquals(Set.of(new File("src/Changed.java"), new File("src/New.java"), new File("src/Untouched.java")), changes.getChangedFiles());
+        Assertions.assertEquals(ChangedLines.of(1, 4, 5), changes.getChangedLines().get("src/Changed.java"));
+        Assertions.assertEquals(ChangedLines.of(1, 2), changes.getChangedLines().get("src/New.java"));
+        Assertions.assertEquals(ChangedLines.of(7), changes.getChangedLines().get("src/Untouched.java"));
+        Assertions.assertFalse(changes.getChangedLines().containsKey("src/Deleted.java"));
+    }
+
+    @Test
+    public void testFilesToDiffAgain() {
+        ChangeSet previousChanges = new ChangeSet(Set.of(new File("src/Changed.java"), new File("src/Untouched.java")), new HashMap<>());
+        ChangeSet diff = new ChangeSet(Set.of(new File("src/Changed.java"), new File("src/Other.java"), new File("src/Added.java")), new HashMap<>());
+
+        //the other file still has the content of the branch to compare in the previous HEAD, so its added lines are exact
+        Assertions.assertEquals(Set.of(new File("src/Changed.java"), new File("src/Added.java")),
+                IncrementalDiff.getFilesToDiffAgain(previousChanges, diff, Set.of(new File("src/Added.java"))));
+    }
+
+    @Test
+    public void testApplyExactChanges(@TempDir Path repositoryRoot) throws IOException {
+        Files.createDirectories(repositoryRoot.resolve("src"));
+        Files.write(repositoryRoot.resolve("src/Reverted.java"), new byte[0]);
+        Files.write(repositoryRoot.resolve("src/Changed.java"), new byte[0]);
+
+        HashMap<String, ChangedLines> previousLines = new HashMap<>();
+        previousLines.put("src/Reverted.java", ChangedLines.of(2));
+        previousLines.put("src/Changed.java", ChangedLines.of(3, 4));
+        ChangeSet previousChanges = new ChangeSet(Set.of(new File("src/Reverted.java"), new File("src/Changed.java")), previousLines);
+
+        HashMap<String, ChangedLines> addedLines = new HashMap<>();
+        addedLines.put("src/Reverted.java", ChangedLines.of(2));
+        addedLines.put("src/Changed.java", ChangedLines.of(3));
+        ChangeSet diff = new ChangeSet(Set.of(new File("src/Reverted.java"), new File("src/Changed.java")), addedLines);
+
+        //the reverted file is no longer part of the exact changes, line 3 of the other file was changed back
+        HashMap<String, ChangedLines> exactLines = new HashMap<>();
+        exactLines.put("src/Changed.java", ChangedLines.of(4));
+        ChangeSet exactChanges = new ChangeSet(Set.of(new File("src/Changed.java")), exactLines);
+
+        ChangeSet changes = IncrementalDiff.apply(previousChanges, diff, repositoryRoot.toFile(), Set.of(new File("src/Reverted.java"), new File("src/Changed.java")), exactChanges);
+
+        Assertions.assertEquals(Set.of(new File("src/Changed.java")), changes.getChangedFiles());
+        Assertions.assertEquals(ChangedLines.of(4), changes.getChangedLines().get("src/Changed.java"));
+        Assertions.assertFalse(changes.getChangedLines().containsKey("src/Reverted.java"));
+    }
+}
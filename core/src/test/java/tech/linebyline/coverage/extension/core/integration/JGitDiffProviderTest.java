@@ -0,0 +1,135 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.RawText;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+public class JGitDiffProviderTest {
+
+    static void write(Path directory, String path, String... lines) throws IOException {
+        Path file = directory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, List.of(lines));
+    }
+
+    /**
+     * Creates a repository with a 'base' branch and changes in the working tree compared to that branch
+     */
+    static void createRepository(Path directory) throws IOException, GitAPIException {
+        try (Git git = Git.init().setDirectory(directory.toFile()).setInitialBranch("main").call()) {
+            write(directory, "module/src/main/java/Changed.java", "class Changed {", "int a;", "int b;", "}");
+            write(directory, "module/src/main/java/Deleted.java", "class Deleted {", "}");
+            write(directory, "module/src/main/java/Unchanged.java", "class Unchanged {", "}");
+            write(directory, "module/src/main/resources/application.properties", "a=1");
+            write(directory, "other/src/main/java/Other.java", "class Other {", "}");
+            write(directory, ".gitignore", "target/");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("base").setSign(false).call();
+            git.branchCreate().setName("base").call();
+
+            //committed change
+            write(directory, "module/src/main/java/Changed.java", "class Changed {", "int a;", "int c;", "}");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("change").setSign(false).call();
+
+            //changes in the working tree
+            write(directory, "module/src/main/java/Changed.java", "class Changed {", "int a;", "int c;", "int d;", "}");
+            write(directory, "module/src/main/java/Added.java", "class Added {", "}");
+            write(directory, "module/src/main/resources/application.properties", "a=2");
+            write(directory, "other/src/main/java/Other.java", "class Other {", "int a;", "}");
+            git.add().addFilepattern("module/src/main/java/Added.java").call();
+            Files.delete(directory.resolve("module/src/main/java/Deleted.java"));
+            write(directory, "module/src/main/java/Untracked.java", "class Untracked {", "}");
+            write(directory, "module/target/classes/Ignored.class", "ignored");
+        }
+    }
+
+    @Test
+    public void testGetOverviewOfChangedFiles(@TempDir Path directory) throws IOException, GitAPIException {
+        createRepository(directory);
+
+        //the repository is found from a directory inside of it
+        Set<File> changedFiles = new JGitDiffProvider(directory.resolve("module").toFile()).getOverviewOfChangedFiles("base");
+
+        //the deleted file has no lines to cover
+        Assertions.assertEquals(Set.of(new File("module/src/main/java/Changed.java"), new File("module/src/main/java/Added.java"),
+                new File("module/src/main/resources/application.properties"), new File("other/src/main/java/Other.java")), changedFiles);
+    }
+
+    @Test
+    public void testGetChangedLines(@TempDir Path directory) throws IOException, GitAPIException {
+        createRepository(directory);
+
+        HashMap<String, ChangedLines> changedLines = new JGitDiffProvider(directory.toFile()).getChangedLines("base");
+
+        Assertions.assertEquals(Set.of("module/src/main/java/Changed.java", "module/src/main/java/Added.java",
+                "module/src/main/resources/application.properties", "other/src/main/java/Other.java"), changedLines.keySet());
+        Assertions.assertEquals(ChangedLines.of(3, 4), changedLines.get("module/src/main/java/Changed.java"));
+        Assertions.assertEquals(ChangedLines.of(1, 2), changedLines.get("module/src/main/java/Added.java"));
+    }
+
+    @Test
+    public void testGetChanges(@TempDir Path directory) throws IOException, GitAPIException {
+        createRepository(directory);
+
+        ChangeSet changes = new JGitDiffProvider(directory.toFile()).getChanges("base");
+
+        Assertions.assertEquals(4, changes.getChangedFiles().size());
+        Assertions.assertEquals(ChangedLines.of(3, 4), changes.getChangedLines().get("module/src/main/java/Changed.java"));
+        Assertions.assertFalse(changes.getChangedLines().containsKey("module/src/main/java/Deleted.java"));
+    }
+
+    @Test
+    public void testCompareToCommit(@TempDir Path directory) throws IOException, GitAPIException {
+        createRepository(directory);
+
+        JGitDiffProvider diffProvider = new JGitDiffProvider(directory.toFile());
+        Assertions.assertEquals(4, diffProvider.getOverviewOfChangedFiles("HEAD~1").size());
+        Assertions.assertEquals(ChangedLines.of(4), diffProvider.getChangedLines("HEAD").get("module/src/main/java/Changed.java"));
+    }
+
+    @Test
+    public void testSourcePaths(@TempDir Path directory) throws IOException, GitAPIException {
+        createRepository(directory);
+
+        //only the java files of the source root of the module are diffed, not the resources or the other module
+        JGitDiffProvider diffProvider = new JGitDiffProvider(directory.resolve("module").toFile(), new String[]{"src/main/java"});
+        ChangeSet changes = diffProvider.getChanges("base");
+
+        Assertions.assertEquals(Set.of(new File("module/src/main/java/Changed.java"), new File("module/src/main/java/Added.java")), changes.getChangedFiles());
+        Assertions.assertEquals(Set.of("module/src/main/java/Changed.java", "module/src/main/java/Added.java"), changes.getChangedLines().keySet());
+        Assertions.assertEquals(changes.getChangedFiles(), diffProvider.getOverviewOfChangedFiles("base"));
+    }
+
+    @Test
+    public void testUnknownBranch(@TempDir Path directory) throws IOException, GitAPIException {
+        createRepository(directory);
+
+        JGitDiffProvider diffProvider = new JGitDiffProvider(directory.toFile());
+        Assertions.assertThrows(RuntimeException.class, () -> diffProvider.getOverviewOfChangedFiles("does-not-exist"));
+        Assertions.assertThrows(IOException.class, () -> diffProvider.getChangedLines("does-not-exist"));
+    }
+
+    @Test
+    public void testGetChangedLinesOfTexts() {
+        RawText oldText = new RawText("a\nb\nc\nd\n".getBytes(StandardCharsets.UTF_8));
+        RawText newText = new RawText("a\nB\nc\nd\ne\nf\n".getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals(ChangedLines.of(2, 5, 6), JGitDiffProvider.getChangedLines(oldText, newText));
+        Assertions.assertTrue(JGitDiffProvider.getChangedLines(oldText, oldText).isEmpty());
+    }
+}
@@ -1,6 +1,7 @@
 package tech.linebyline.coverage.extension.core.integration;
 
 import tech.linebyline.coverage.extension.core.util.FileUtil;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
 import tech.linebyline.coverage.extension.core.model.CodeCoverage;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -41,6 +42,55 @@ public class JaCoCoInteractorTest {
         }
     }
 
+    @Test
+    public void testTargetedAnalysisOnlyAnalyzesChangedClasses() throws IOException {
+        HashSet<File> changedFiles = new HashSet<>();
+        changedFiles.add(new File("single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClass.java"));
+        changedFiles.add(new File("single-module-example/pom.xml"));
+
+        JaCoCoInteractor jaCoCoInteractor = new JaCoCoInteractor(singleModuleFile, classPathDir, new String[]{"src/main/java"}, new File("../single-module-example/"), changedFiles);
+        CodeCoverage totalCodeCoverage = jaCoCoInteractor.getTotalCodeCoverage();
+
+        //only the FirstExampleClass is analyzed, so the total equals the coverage of that class
+        assertEquals(13, totalCodeCoverage.getInstructionsMissed());
+        assertEquals(30, totalCodeCoverage.getInstructionsCovered());
+        assertEquals(3, totalCodeCoverage.getLinesMissed());
+        assertEquals(7, totalCodeCoverage.getLinesCovered());
+    }
+
+    @Test
+    public void testGetChangedSourceFiles() throws IOException {
+        JaCoCoInteractor jaCoCoInteractor = new JaCoCoInteractor(singleModuleFile, classPathDir, new String[]{"src/main/java"}, new File("../single-module-example/"), new HashSet<>());
+
+        HashSet<File> changedFiles = new HashSet<>();
+        changedFiles.add(new File("single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClass.java"));
+        changedFiles.add(new File("single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java"));
+        changedFiles.add(new File("single-module-example/pom.xml"));
+
+        assertEquals(Set.of("com/brabel/coverage/extension/single/module/sample/FirstExampleClass.java"), jaCoCoInteractor.getChangedSourceFiles(changedFiles));
+    }
+
+    @Test
+    public void testExecutionDataOfClassesThatAreNotAnalyzedIsSkipped() throws IOException {
+        HashSet<File> changedFiles = new HashSet<>();
+        changedFiles.add(new File("single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClass.java"));
+
+        JaCoCoInteractor jaCoCoInteractor = new JaCoCoInteractor(singleModuleFile, classPathDir, new String[]{"src/main/java"}, new File("../single-module-example/"), changedFiles);
+
+        //the exec file contains the test classes and the SecondExampleClass as well
+        Assertions.assertTrue(jaCoCoInteractor.getExecutionDataLoader().getSkippedRecords() > 0);
+    }
+
+    @Test
+    public void testGetSourceRelativePath() throws IOException {
+        JaCoCoInteractor jaCoCoInteractor = new JaCoCoInteractor(singleModuleFile, classPathDir, new String[]{"src/main/java"}, new File("../single-module-example/"), new HashSet<>());
+
+        assertEquals("com/brabel/coverage/extension/single/module/sample/FirstExampleClass.java",
+                jaCoCoInteractor.getSourceRelativePath(new File("single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClass.java")));
+        assertNull(jaCoCoInteractor.getSourceRelativePath(new File("single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java")));
+        assertNull(jaCoCoInteractor.getSourceRelativePath(new File("single-module-example/pom.xml")));
+    }
+
     private HashSet<File> getSampleChangedFiles(){
         HashSet<File> changedFiles = new HashSet<>();
         changedFiles.add(new File(".gitignore"));
@@ -105,27 +155,32 @@ public class JaCoCoInteractorTest {
      * Includes all the lines in the Jacoco overview
      * @return
      */
-    private HashMap<String, int[]> getChangedLinesOverview(){
-        HashMap<String, int[]> changedLinesOverview = new HashMap<>();
+    private HashMap<String, ChangedLines> getChangedLinesOverview(){
+        HashMap<String, ChangedLines> changedLinesOverview = new HashMap<>();
 
-        changedLinesOverview.put("diff --git a/single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/SecondExampleClass.java b/single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/SecondExampleClass.java", new int[]{3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34});
-        changedLinesOverview.put("diff --git a/single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java b/single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java",  new int[]{3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18});
+        changedLinesOverview.put("single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/SecondExampleClass.java", ChangedLines.of(3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34));
+        changedLinesOverview.put("single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClass.java", ChangedLines.of(3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18));
+        changedLinesOverview.put("single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java",  ChangedLines.of(3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18));
 
         //should not be included in the result
-        changedLinesOverview.put("diff --git a/core/pom.xml b/core/pom.xml", new int[]{-2, -2});
+        changedLinesOverview.put("core/pom.xml", ChangedLines.of(-2, -2));
 
         return changedLinesOverview;
     }
 
     @Test
-    public void testGetLinesFromPath(){
+    public void testGetChangedLinesPerSourceFile() throws IOException {
+        JaCoCoInteractor jaCoCoInteractor = new JaCoCoInteractor(singleModuleFile, classPathDir, new String[]{"src/main/java"}, new File("../single-module-example/"), new HashSet<>());
+        HashMap<String, ChangedLines> changedLinesPerSourceFile = jaCoCoInteractor.getChangedLinesPerSourceFile(getChangedLinesOverview());
+
+        //the test class and the pom are not part of the source roots
+        Assertions.assertEquals(2, changedLinesPerSourceFile.size());
+
         int[] expectedLines = new int[]{3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18};
-        int[] linesForPath = getLinesForPath("single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java", getChangedLinesOverview());
-        Assertions.assertArrayEquals(expectedLines, linesForPath);
+        Assertions.assertArrayEquals(expectedLines, changedLinesPerSourceFile.get("com/brabel/coverage/extension/single/module/sample/FirstExampleClass.java").toArray());
 
         int[] expectedLines2 = new int[]{3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34};
-        int[] linesForPath2 = getLinesForPath("single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/SecondExampleClass.java", getChangedLinesOverview());
-        Assertions.assertArrayEquals(expectedLines2, linesForPath2);
+        Assertions.assertArrayEquals(expectedLines2, changedLinesPerSourceFile.get("com/brabel/coverage/extension/single/module/sample/SecondExampleClass.java").toArray());
     }
 
     /**
@@ -134,7 +189,7 @@ public class JaCoCoInteractorTest {
     @Test
     public void testCodeCoverageChangedFilesPerChangedLinesLineAllLines(){
         HashSet<File> sampleChangedFiles = getSampleChangedFiles();
-        HashMap<String, int[]> changedLiensOverview = getChangedLinesOverview();
+        HashMap<String, ChangedLines> changedLiensOverview = getChangedLinesOverview();
 
 
         FileUtil.Filters filters = new FileUtil.Filters();
@@ -175,14 +230,15 @@ public class JaCoCoInteractorTest {
      *
      * @return a changed line overview, except that we removed some of the changed lines versus the previous example that included all the lines tracked by Jacoco and git
      */
-    private HashMap<String, int[]> getChangedLinesOverviewNotAll(){
-        HashMap<String, int[]> changedLinesOverview = new HashMap<>();
+    private HashMap<String, ChangedLines> getChangedLinesOverviewNotAll(){
+        HashMap<String, ChangedLines> changedLinesOverview = new HashMap<>();
 
-        changedLinesOverview.put("diff --git a/single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/SecondExampleClass.java b/single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/SecondExampleClass.java", new int[]{4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34});
-        changedLinesOverview.put("diff --git a/single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java b/single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java",  new int[]{4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18});
+        changedLinesOverview.put("single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/SecondExampleClass.java", ChangedLines.of(4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34));
+        changedLinesOverview.put("single-module-example/src/main/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClass.java", ChangedLines.of(4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18));
+        changedLinesOverview.put("single-module-example/src/test/java/com/brabel/coverage/extension/single/module/sample/FirstExampleClassTest.java",  ChangedLines.of(4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18));
 
         //should not be included in the result
-        changedLinesOverview.put("diff --git a/core/pom.xml b/core/pom.xml", new int[]{-2, -2});
+        changedLinesOverview.put("core/pom.xml", ChangedLines.of(-2, -2));
 
         return changedLinesOverview;
     }
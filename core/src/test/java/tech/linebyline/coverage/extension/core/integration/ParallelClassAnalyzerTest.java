@@ -0,0 +1,79 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParallelClassAnalyzerTest {
+
+    private static File jacocoExecFile = new File("src/test/resources/jacoco-examples-exec/jacoco.exec");
+
+    private static File classPathDir = new File("../single-module-example/target/classes");
+
+    private ExecutionDataStore getExecutionDataStore() throws IOException {
+        return new ExecutionDataLoader().load(jacocoExecFile);
+    }
+
+    private static int[] getTotals(CoverageBuilder coverageBuilder) {
+        int[] totals = new int[4];
+        for (IClassCoverage classCoverage : coverageBuilder.getClasses()) {
+            ICounter instructionCounter = classCoverage.getInstructionCounter();
+            ICounter lineCounter = classCoverage.getLineCounter();
+            totals[0] += instructionCounter.getMissedCount();
+            totals[1] += instructionCounter.getCoveredCount();
+            totals[2] += lineCounter.getMissedCount();
+            totals[3] += lineCounter.getCoveredCount();
+        }
+        return totals;
+    }
+
+    @Test
+    public void testSequentialAnalysis() throws IOException {
+        CoverageBuilder coverageBuilder = new CoverageBuilder();
+        new ParallelClassAnalyzer(getExecutionDataStore(), 1).analyze(List.of(classPathDir), coverageBuilder);
+
+        Assertions.assertArrayEquals(new int[]{21, 51, 5, 10}, getTotals(coverageBuilder));
+        Assertions.assertEquals(2, coverageBuilder.getSourceFiles().size());
+    }
+
+    @Test
+    public void testParallelAnalysisMergesWorkerResults() throws IOException {
+        CoverageBuilder coverageBuilder = new CoverageBuilder();
+        try (ClassPath classPath = ClassPath.of(List.of(classPathDir))) {
+            List<ClassPath.ClassFile> classFiles = new ArrayList<>();
+            //repeat the class files so the work gets split over multiple workers, analyzing the same class twice has no effect
+            for (int i = 0; i < ParallelClassAnalyzer.BATCH_SIZE; i++) {
+                classFiles.addAll(classPath.getClassFiles());
+            }
+
+            new ParallelClassAnalyzer(getExecutionDataStore(), 4).analyzeClassFiles(classFiles, coverageBuilder);
+        }
+
+        Assertions.assertArrayEquals(new int[]{21, 51, 5, 10}, getTotals(coverageBuilder));
+        Assertions.assertEquals(2, coverageBuilder.getSourceFiles().size());
+    }
+
+    @Test
+    public void testParallelAnalysisMissingFile() throws IOException {
+        List<File> classFiles = new ArrayList<>();
+        for (int i = 0; i < ParallelClassAnalyzer.BATCH_SIZE * 2; i++) {
+            classFiles.add(new File(classPathDir, "does/not/Exist" + i + ".class"));
+        }
+
+        ParallelClassAnalyzer parallelClassAnalyzer = new ParallelClassAnalyzer(getExecutionDataStore(), 4);
+        Assertions.assertThrows(IOException.class, () -> parallelClassAnalyzer.analyze(classFiles, new CoverageBuilder()));
+    }
+
+    @Test
+    public void testInvalidNumberOfThreads() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ParallelClassAnalyzer(new ExecutionDataStore(), 0));
+    }
+}
@@ -0,0 +1,77 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+
+public class PatchFileDiffProviderTest {
+
+    private static final String PATCH = String.join("\n",
+            "diff --git a/module/src/main/java/Foo.java b/module/src/main/java/Foo.java",
+            "index 1111111..2222222 100644",
+            "--- a/module/src/main/java/Foo.java",
+            "+++ b/module/src/main/java/Foo.java",
+            "@@ -2,0 +3,2 @@",
+            "+    int b;",
+            "+    int c;",
+            "diff --git a/module/src/main/java/Removed.java b/module/src/main/java/Removed.java",
+            "deleted file mode 100644",
+            "index 1111111..0000000",
+            "--- a/module/src/main/java/Removed.java",
+            "+++ /dev/null",
+            "@@ -1 +0,0 @@",
+            "-class Removed {}",
+            "diff --git a/module/src/main/resources/application.properties b/module/src/main/resources/application.properties",
+            "index 1111111..2222222 100644",
+            "--- a/module/src/main/resources/application.properties",
+            "+++ b/module/src/main/resources/application.properties",
+            "@@ -1 +1 @@",
+            "-a=1",
+            "+a=2",
+            "");
+
+    private static void assertChanges(ChangeSet changes) {
+        Assertions.assertEquals(Set.of(new File("module/src/main/java/Foo.java")), changes.getChangedFiles());
+        Assertions.assertEquals(Set.of("module/src/main/java/Foo.java"), changes.getChangedLines().keySet());
+        Assertions.assertEquals(ChangedLines.of(3, 4), changes.getChangedLines().get("module/src/main/java/Foo.java"));
+    }
+
+    @Test
+    public void testPatchFile(@TempDir File directory) throws IOException {
+        File patchFile = new File(directory, "changes.patch");
+        Files.writeString(patchFile.toPath(), PATCH);
+
+        PatchFileDiffProvider diffProvider = new PatchFileDiffProvider(patchFile.getPath());
+
+        //the branch to compare is ignored
+        assertChanges(diffProvider.getChanges("origin/does-not-exist"));
+        Assertions.assertEquals(Set.of(new File("module/src/main/java/Foo.java")), diffProvider.getOverviewOfChangedFiles(null));
+    }
+
+    @Test
+    public void testStandardInput() throws IOException {
+        PatchFileDiffProvider diffProvider = new PatchFileDiffProvider(PatchFileDiffProvider.STANDARD_INPUT,
+                new ByteArrayInputStream(PATCH.getBytes(StandardCharsets.UTF_8)));
+
+        assertChanges(diffProvider.getChanges(null));
+        //the input was read the first time, the changes are kept
+        assertChanges(diffProvider.getChanges(null));
+    }
+
+    @Test
+    public void testMissingPatchFile(@TempDir File directory) {
+        PatchFileDiffProvider diffProvider = new PatchFileDiffProvider(new File(directory, "missing.patch").getPath());
+
+        Assertions.assertThrows(IOException.class, () -> diffProvider.getChanges(null));
+        Assertions.assertThrows(RuntimeException.class, () -> diffProvider.getOverviewOfChangedFiles(null));
+    }
+}
@@ -0,0 +1,93 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+public class ProcessRunnerTest {
+
+    @Test
+    public void testRun() throws IOException, InterruptedException {
+        ProcessRunner processRunner = new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT);
+
+        ProcessRunner.Result<byte[]> result = processRunner.run(List.of("git", "--version"), null, InputStream::readAllBytes);
+
+        Assertions.assertTrue(result.isSuccess());
+        Assertions.assertTrue(new String(result.getOutput(), StandardCharsets.UTF_8).startsWith("git version"));
+        Assertions.assertTrue(result.getWallTimeNanos() > 0);
+        Assertions.assertEquals(1, processRunner.getProcesses());
+        Assertions.assertTrue(processRunner.getWallTimeNanos() >= result.getWallTimeNanos());
+    }
+
+    @Test
+    public void testFailedProcess() throws IOException, InterruptedException {
+        ProcessRunner.Result<byte[]> result = new ProcessRunner(null).run(List.of("git", "rev-parse", "--verify", "does-not-exist"), null, InputStream::readAllBytes);
+
+        Assertions.assertFalse(result.isSuccess());
+        Assertions.assertNotEquals(0, result.getExitCode());
+        Assertions.assertFalse(result.getErrorOutput().isEmpty());
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    public void testLargeErrorOutputDoesNotBlock() throws IOException, InterruptedException {
+        //far more error output than fits in a pipe, written before anything is written to the standard output
+        List<String> command = List.of("sh", "-c", "head -c 2000000 /dev/zero | tr '\\0' 'e' >&2; echo done");
+
+        ProcessRunner.Result<byte[]> result = new ProcessRunner(Duration.ofSeconds(30)).run(command, null, InputStream::readAllBytes);
+
+        Assertions.assertTrue(result.isSuccess());
+        Assertions.assertEquals("done", new String(result.getOutput(), StandardCharsets.UTF_8).trim());
+        Assertions.assertEquals(ProcessRunner.MAX_ERROR_OUTPUT, result.getErrorOutput().length());
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    public void testTimeout() {
+        ProcessRunner processRunner = new ProcessRunner(Duration.ofMillis(200));
+        long start = System.nanoTime();
+
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class,
+                () -> processRunner.run(List.of("sleep", "30"), null, InputStream::readAllBytes));
+
+        Assertions.assertTrue(exception.getMessage().contains("did not finish"));
+        Assertions.assertTrue(System.nanoTime() - start < Duration.ofSeconds(10).toNanos());
+        Assertions.assertEquals(1, processRunner.getProcesses());
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    public void testTimeoutKillsChildProcesses() {
+        //the child of the shell inherits the output pipe and keeps it open after the shell is killed
+        ProcessRunner processRunner = new ProcessRunner(Duration.ofMillis(500));
+        long start = System.nanoTime();
+
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class,
+                () -> processRunner.run(List.of("sh", "-c", "sleep 30 & wait"), null, InputStream::readAllBytes));
+
+        Assertions.assertTrue(exception.getMessage().contains("did not finish"));
+        Assertions.assertTrue(System.nanoTime() - start < ProcessRunner.KILL_GRACE_PERIOD.toNanos());
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    public void testTimeoutWithEscapedProcessHoldingThePipe() {
+        //the subshell exits right away, so its child leaves the process tree but keeps the output pipe open
+        ProcessRunner processRunner = new ProcessRunner(Duration.ofMillis(500));
+        long start = System.nanoTime();
+
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class,
+                () -> processRunner.run(List.of("sh", "-c", "(sleep 30 &); sleep 30"), null, InputStream::readAllBytes));
+
+        Assertions.assertTrue(exception.getMessage().contains("did not finish"));
+        Assertions.assertTrue(System.nanoTime() - start < Duration.ofSeconds(15).toNanos());
+        Assertions.assertEquals(1, processRunner.getProcesses());
+    }
+}
@@ -0,0 +1,102 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class ShardedDiffTest {
+
+    private static final String[] LINES = {"class Renamed {", "int a;", "int b;", "int c;", "int d;", "int e;", "int f;", "}"};
+
+    /**
+     * Creates a repository with a 'base' branch and 30 changed files in the working tree, one of them renamed, and a file
+     * that was only moved
+     */
+    private static void createRepository(Path directory) throws IOException, GitAPIException {
+        try (Git git = Git.init().setDirectory(directory.toFile()).setInitialBranch("main").call()) {
+            for (int i = 0; i < 30; i++) {
+                JGitDiffProviderTest.write(directory, "src/main/java/File" + i + ".java", "class File" + i + " {", "}");
+            }
+            JGitDiffProviderTest.write(directory, "src/main/java/Renamed.java", LINES);
+            JGitDiffProviderTest.write(directory, "src/main/java/Pure.java", "class Pure {", "int p;", "}");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("base").setSign(false).call();
+            git.branchCreate().setName("base").call();
+
+            for (int i = 0; i < 30; i++) {
+                JGitDiffProviderTest.write(directory, "src/main/java/File" + i + ".java", "class File" + i + " {", "int a" + i + ";", "}");
+            }
+            String[] movedLines = LINES.clone();
+            movedLines[3] = "int x;";
+            JGitDiffProviderTest.write(directory, "src/main/java/moved/Moved.java", movedLines);
+            git.rm().addFilepattern("src/main/java/Renamed.java").call();
+            git.add().addFilepattern("src/main/java/moved/Moved.java").call();
+            Files.move(directory.resolve("src/main/java/Pure.java"), directory.resolve("src/main/java/moved/Pure.java"));
+            git.rm().addFilepattern("src/main/java/Pure.java").call();
+            git.add().addFilepattern("src/main/java/moved/Pure.java").call();
+        }
+    }
+
+    @Test
+    public void testSameChangesAsSingleDiff(@TempDir Path directory) throws IOException, GitAPIException, InterruptedException {
+        createRepository(directory);
+        File workTree = directory.toFile();
+        List<String> pathspecs = List.of("*.java");
+
+        ChangeSet expected = GitInteractor.getChanges("base", workTree, pathspecs);
+        ChangeSet changes = new ShardedDiff(4, 1, new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT)).getChanges("base", workTree, pathspecs);
+
+        Assertions.assertEquals(31, changes.getChangedFiles().size());
+        Assertions.assertEquals(expected.getChangedFiles(), changes.getChangedFiles());
+        Assertions.assertEquals(expected.getChangedLines(), changes.getChangedLines());
+        //the rename is detected within its batch, so only the modified line is changed
+        Assertions.assertEquals(ChangedLines.of(4), changes.getChangedLines().get("src/main/java/moved/Moved.java"));
+        //the file that was only moved is not a change
+        Assertions.assertFalse(changes.getChangedFiles().contains(new File("src/main/java/moved/Pure.java")));
+    }
+
+    @Test
+    public void testSmallChangesetIsDiffedOnce(@TempDir Path directory) throws IOException, GitAPIException, InterruptedException {
+        createRepository(directory);
+        File workTree = directory.toFile();
+        List<String> pathspecs = List.of("*.java");
+
+        //a single thread does not list the files at all
+        ProcessRunner singleThread = new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT);
+        new ShardedDiff(1, 1, singleThread).getChanges("base", workTree, pathspecs);
+        Assertions.assertEquals(1, singleThread.getProcesses());
+
+        //with more threads the files are listed first, a changeset below the threshold is then diffed at once
+        ProcessRunner smallChangeset = new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT);
+        ChangeSet changes = new ShardedDiff(4, 1000, smallChangeset).getChanges("base", workTree, pathspecs);
+        Assertions.assertEquals(2, smallChangeset.getProcesses());
+        Assertions.assertEquals(GitInteractor.getChanges("base", workTree, pathspecs).getChangedLines(), changes.getChangedLines());
+    }
+
+    @Test
+    public void testCreateBatches() {
+        List<List<String>> changedPaths = List.of(List.of("A.java"), List.of("Old.java", "New.java"), List.of("B.java"), List.of("C.java"));
+
+        List<List<String>> batches = ShardedDiff.createBatches(changedPaths, 2);
+
+        Assertions.assertEquals(List.of(
+                List.of(":(top,literal)A.java", ":(top,literal)Old.java", ":(top,literal)New.java"),
+                List.of(":(top,literal)B.java", ":(top,literal)C.java")), batches);
+        Assertions.assertTrue(ShardedDiff.createBatches(List.of(), 2).isEmpty());
+    }
+
+    @Test
+    public void testInvalidThreads() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ShardedDiff(0));
+    }
+}
@@ -0,0 +1,39 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+public class StagedDiffProviderTest {
+
+    @Test
+    public void testStagedChanges(@TempDir Path directory) throws IOException, GitAPIException, InterruptedException {
+        JGitDiffProviderTest.createRepository(directory);
+        File moduleDirectory = directory.resolve("module").toFile();
+
+        //only the added file is staged, the modified files of the working tree are not
+        ChangeSet changes = new StagedDiffProvider(moduleDirectory, new String[]{"src/main/java"}).getChanges("base");
+        Assertions.assertEquals(Set.of(new File("module/src/main/java/Added.java")), changes.getChangedFiles());
+        Assertions.assertEquals(ChangedLines.of(1, 2), changes.getChangedLines().get("module/src/main/java/Added.java"));
+
+        //the staged version of a file is diffed, not the one in the working tree
+        try (Git git = Git.open(directory.toFile())) {
+            git.add().addFilepattern("module/src/main/java/Changed.java").call();
+        }
+        JGitDiffProviderTest.write(directory, "module/src/main/java/Changed.java", "class Changed {", "int e;", "int a;", "int c;", "int d;", "}");
+        StagedDiffProvider diffProvider = new StagedDiffProvider(moduleDirectory, new String[]{"src/main/java"});
+        changes = diffProvider.getChanges("base");
+        Assertions.assertEquals(Set.of(new File("module/src/main/java/Added.java"), new File("module/src/main/java/Changed.java")), changes.getChangedFiles());
+        Assertions.assertEquals(ChangedLines.of(4), changes.getChangedLines().get("module/src/main/java/Changed.java"));
+        Assertions.assertEquals(changes.getChangedFiles(), diffProvider.getOverviewOfChangedFiles("base"));
+    }
+}
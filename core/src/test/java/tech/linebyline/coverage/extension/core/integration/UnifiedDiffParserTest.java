@@ -0,0 +1,287 @@
+package tech.linebyline.coverage.extension.core.integration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.linebyline.coverage.extension.core.model.ChangeSet;
+import tech.linebyline.coverage.extension.core.model.ChangedLines;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+public class UnifiedDiffParserTest {
+
+    private static final String DIFF = String.join("\n",
+            "diff --git a/module/src/main/java/Foo.java b/module/src/main/java/Foo.java",
+            "new file mode 100644",
+            "index 0000000..1111111",
+            "--- /dev/null",
+            "+++ b/module/src/main/java/Foo.java",
+            "@@ -0,0 +1,3 @@",
+            "+public class Foo {",
+            "+    int a;",
+            "+}",
+            "diff --git a/module/src/main/java/Bar.java b/module/src/main/java/Bar.java",
+            "index 1111111..2222222 100644",
+            "--- a/module/src/main/java/Bar.java",
+            "+++ b/module/src/main/java/Bar.java",
+            "@@ -1,3 +1,4 @@",
+            " public class Bar {",
+            "     int a;",
+            "+    int b;",
+            " }",
+            "diff --git a/notes.txt b/notes.txt",
+            "deleted file mode 100644",
+            "--- a/notes.txt",
+            "+++ /dev/null",
+            "@@ -1 +0,0 @@",
+            "-note",
+            "");
+
+    private static ChangeSet parse(String diff) throws IOException {
+        return new UnifiedDiffParser().parse(new ByteArrayInputStream(diff.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void assertChanges(ChangeSet changes) {
+        Assertions.assertEquals(Set.of(new File("module/src/main/java/Foo.java"), new File("module/src/main/java/Bar.java"), new File("notes.txt")),
+                changes.getChangedFiles());
+        Assertions.assertEquals(Set.of("module/src/main/java/Foo.java", "module/src/main/java/Bar.java"), changes.getChangedLines().keySet());
+        Assertions.assertEquals(ChangedLines.of(1, 2, 3), changes.getChangedLines().get("module/src/main/java/Foo.java"));
+        Assertions.assertEquals(ChangedLines.of(3), changes.getChangedLines().get("module/src/main/java/Bar.java"));
+    }
+
+    @Test
+    public void testParse() throws IOException {
+        assertChanges(parse(DIFF));
+    }
+
+    @Test
+    public void testParseWindowsLineEndings() throws IOException {
+        assertChanges(parse(DIFF.replace("\n", "\r\n")));
+    }
+
+    @Test
+    public void testParseWithoutTrailingNewLine() throws IOException {
+        assertChanges(parse(DIFF.substring(0, DIFF.length() - 1)));
+    }
+
+    @Test
+    public void testParseLinesSplitOverReads() throws IOException {
+        //a stream that returns a single byte per read, so every line is split over several reads
+        InputStream inputStream = new FilterInputStream(new ByteArrayInputStream(DIFF.getBytes(StandardCharsets.UTF_8))) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        assertChanges(new UnifiedDiffParser().parse(inputStream));
+    }
+
+    @Test
+    public void testParseLongLines() throws IOException {
+        String longPath = "module/src/main/java/" + "a/".repeat(500) + "Foo.java";
+        ChangeSet changes = parse(DIFF.replace("module/src/main/java/Foo.java", longPath));
+        Assertions.assertEquals(ChangedLines.of(1, 2, 3), changes.getChangedLines().get(longPath));
+    }
+
+    @Test
+    public void testParserIsReusable() throws IOException {
+        UnifiedDiffParser parser = new UnifiedDiffParser();
+        parser.parse(new ByteArrayInputStream(DIFF.getBytes(StandardCharsets.UTF_8)));
+        assertChanges(parser.parse(new ByteArrayInputStream(DIFF.getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertTrue(parser.parse(new ByteArrayInputStream(new byte[0])).getChangedFiles().isEmpty());
+    }
+
+    @Test
+    public void testLineNumbersOfSeveralHunks() throws IOException {
+        String diff = String.join("\n",
+                "diff --git a/Foo.java b/Foo.java",
+                "index 1111111..2222222 100644",
+                "--- a/Foo.java",
+                "+++ b/Foo.java",
+                "@@ -10,4 +10,5 @@ public class Foo {",
+                "     int a;",
+                "-    int b;",
+                "-    int c;",
+                "+    int d;",
+                "+    int e;",
+                "+    int f;",
+                "     int g;",
+                "@@ -100,3 +101,2 @@ public class Foo {",
+                "     int x;",
+                "-    int y;",
+                "     int z;",
+                "@@ -200 +200,2 @@",
+                "-    int old;",
+                "+++i;",
+                "+--j;",
+                "\\ No newline at end of file",
+                "");
+
+        ChangeSet changes = parse(diff);
+
+        //the removed lines do not advance the line number and the later hunks start at the line of their header
+        Assertions.assertEquals(ChangedLines.of(11, 12, 13, 200, 201), changes.getChangedLines().get("Foo.java"));
+    }
+
+    @Test
+    public void testOnlyRemovedLines() throws IOException {
+        String diff = String.join("\n",
+                "diff --git a/Foo.java b/Foo.java",
+                "--- a/Foo.java",
+                "+++ b/Foo.java",
+                "@@ -1,2 +1 @@",
+                " class Foo {",
+                "-    int a;",
+                "");
+
+        ChangeSet changes = parse(diff);
+
+        Assertions.assertEquals(Set.of(new File("Foo.java")), changes.getChangedFiles());
+        Assertions.assertTrue(changes.getChangedLines().isEmpty());
+    }
+
+    @Test
+    public void testZeroContext() throws IOException {
+        //the same changes as in testLineNumbersOfSeveralHunks, as 'git diff -U0' reports them
+        String diff = String.join("\n",
+                "diff --git a/Foo.java b/Foo.java",
+                "index 1111111..2222222 100644",
+                "--- a/Foo.java",
+                "+++ b/Foo.java",
+                "@@ -11,2 +11,3 @@ public class Foo {",
+                "-    int b;",
+                "-    int c;",
+                "+    int d;",
+                "+    int e;",
+                "+    int f;",
+                "@@ -101 +101,0 @@ public class Foo {",
+                "-    int y;",
+                "@@ -200 +200,2 @@",
+                "-    int old;",
+                "+++i;",
+                "+--j;",
+                "\\ No newline at end of file",
+                "@@ -300,0 +301 @@",
+                "+    int added;",
+                "");
+
+        ChangeSet changes = parse(diff);
+
+        Assertions.assertEquals(ChangedLines.of(11, 12, 13, 200, 201, 301), changes.getChangedLines().get("Foo.java"));
+    }
+
+    @Test
+    public void testRenames() throws IOException {
+        String diff = String.join("\n",
+                "diff --git a/src/main/java/a/Moved.java b/src/main/java/b/Moved.java",
+                "similarity index 100%",
+                "rename from src/main/java/a/Moved.java",
+                "rename to src/main/java/b/Moved.java",
+                "diff --git a/src/main/java/a/Edited.java b/src/main/java/b/Edited.java",
+                "similarity index 87%",
+                "rename from src/main/java/a/Edited.java",
+                "rename to src/main/java/b/Edited.java",
+                "index 1111111..2222222 100644",
+                "--- a/src/main/java/a/Edited.java",
+                "+++ b/src/main/java/b/Edited.java",
+                "@@ -1 +1 @@",
+                "-package a;",
+                "+package b;",
+                "");
+
+        ChangeSet changes = parse(diff);
+
+        //a file that was only moved is left out, a moved file with edits has its new path
+        Assertions.assertEquals(Set.of(new File("src/main/java/b/Edited.java")), changes.getChangedFiles());
+        UnifiedDiffParser parser = new UnifiedDiffParser();
+        parser.parse(new ByteArrayInputStream(diff.getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertEquals(Set.of(new File("src/main/java/b/Moved.java"), new File("src/main/java/b/Edited.java")), parser.getRenamedFiles());
+        Assertions.assertEquals(ChangedLines.of(1), changes.getChangedLines().get("src/main/java/b/Edited.java"));
+    }
+
+    @Test
+    public void testDeletedFiles() throws IOException {
+        UnifiedDiffParser parser = new UnifiedDiffParser();
+        parser.parse(new ByteArrayInputStream(DIFF.getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals(Set.of(new File("notes.txt")), parser.getDeletedFiles());
+        Assertions.assertEquals(Set.of(new File("module/src/main/java/Foo.java")), parser.getAddedFiles());
+        Assertions.assertTrue(parser.getRenamedFiles().isEmpty());
+    }
+
+    @Test
+    public void testQuotedPaths() throws IOException {
+        String diff = String.join("\n",
+                "diff --git a/src/A.java b/src/A.java",
+                "--- a/src/A.java",
+                "+++ b/src/A.java",
+                "@@ -1,0 +2 @@",
+                "+int a;",
+                "diff --git \"a/src/caf\\303\\251/B.java\" \"b/src/caf\\303\\251/B.java\"",
+                "--- \"a/src/caf\\303\\251/B.java\"",
+                "+++ \"b/src/caf\\303\\251/B.java\"",
+                "@@ -10,0 +11,3 @@",
+                "+int a;",
+                "+int b;",
+                "+int c;",
+                "diff --git \"a/src/tab\\there.bin\" \"b/src/tab\\there.bin\"",
+                "new file mode 100644",
+                "Binary files /dev/null and \"b/src/tab\\there.bin\" differ",
+                "");
+        UnifiedDiffParser parser = new UnifiedDiffParser();
+        ChangeSet changes = parser.parse(new ByteArrayInputStream(diff.getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals(Set.of(new File("src/A.java"), new File("src/café/B.java"), new File("src/tab\there.bin")), changes.getChangedFiles());
+        Assertions.assertEquals(ChangedLines.of(2), changes.getChangedLines().get("src/A.java"));
+        Assertions.assertEquals(ChangedLines.of(11, 12, 13), changes.getChangedLines().get("src/café/B.java"));
+        Assertions.assertEquals(Set.of(new File("src/tab\there.bin")), parser.getAddedFiles());
+    }
+
+    @Test
+    public void testPathsContainingNewPathMarker() throws IOException {
+        String diff = String.join("\n",
+                "diff --git a/src/a b/Foo.java b/src/a b/Foo.java",
+                "--- a/src/a b/Foo.java\t",
+                "+++ b/src/a b/Foo.java\t",
+                "@@ -1,0 +2 @@",
+                "+int a;",
+                "diff --git a/src/x b/Old.java b/src/y b/New.java",
+                "similarity index 90%",
+                "rename from src/x b/Old.java",
+                "rename to src/y b/New.java",
+                "--- a/src/x b/Old.java\t",
+                "+++ b/src/y b/New.java\t",
+                "@@ -3,0 +4 @@",
+                "+int b;",
+                "");
+        UnifiedDiffParser parser = new UnifiedDiffParser();
+        ChangeSet changes = parser.parse(new ByteArrayInputStream(diff.getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals(Set.of(new File("src/a b/Foo.java"), new File("src/y b/New.java")), changes.getChangedFiles());
+        Assertions.assertEquals(ChangedLines.of(2), changes.getChangedLines().get("src/a b/Foo.java"));
+        Assertions.assertEquals(ChangedLines.of(4), changes.getChangedLines().get("src/y b/New.java"));
+        Assertions.assertEquals(Set.of(new File("src/y b/New.java")), parser.getRenamedFiles());
+    }
+
+    @Test
+    public void testUnknownPathDropsHunks() throws IOException {
+        //a header without a readable path does not credit its hunks to the previous file
+        String diff = String.join("\n",
+                "diff --git a/A.java b/A.java",
+                "@@ -1,0 +2 @@",
+                "+int a;",
+                "diff --git \"a/broken",
+                "@@ -10,0 +11 @@",
+                "+int b;",
+                "");
+        ChangeSet changes = parse(diff);
+
+        Assertions.assertEquals(Set.of(new File("A.java")), changes.getChangedFiles());
+        Assertions.assertEquals(ChangedLines.of(2), changes.getChangedLines().get("A.java"));
+    }
+}
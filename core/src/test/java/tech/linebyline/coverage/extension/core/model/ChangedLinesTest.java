@@ -0,0 +1,62 @@
+package tech.linebyline.coverage.extension.core.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ChangedLinesTest {
+
+    @Test
+    public void testOfMergesAdjacentLines() {
+        ChangedLines changedLines = ChangedLines.of(7, 3, 4, 5, 10, 4, 6);
+
+        Assertions.assertEquals(2, changedLines.getNumberOfIntervals());
+        Assertions.assertEquals("[3-7, 10-10]", changedLines.toString());
+        Assertions.assertEquals(6, changedLines.getNumberOfLines());
+        Assertions.assertArrayEquals(new int[]{3, 4, 5, 6, 7, 10}, changedLines.toArray());
+    }
+
+    @Test
+    public void testBuilderMergesOverlappingIntervals() {
+        ChangedLines.Builder builder = new ChangedLines.Builder();
+        ChangedLines changedLines = builder.add(20, 30).add(1, 5).add(25, 40).add(6, 6).add(50, 49).build();
+
+        Assertions.assertEquals("[1-6, 20-40]", changedLines.toString());
+        //the builder is reset
+        Assertions.assertTrue(builder.isEmpty());
+        Assertions.assertTrue(builder.build().isEmpty());
+    }
+
+    @Test
+    public void testContains() {
+        ChangedLines changedLines = new ChangedLines.Builder().add(3, 5).add(10, 1000000).build();
+
+        Assertions.assertFalse(changedLines.contains(2));
+        Assertions.assertTrue(changedLines.contains(3));
+        Assertions.assertTrue(changedLines.contains(5));
+        Assertions.assertFalse(changedLines.contains(6));
+        Assertions.assertTrue(changedLines.contains(500000));
+        Assertions.assertFalse(changedLines.contains(1000001));
+        Assertions.assertFalse(ChangedLines.empty().contains(1));
+    }
+
+    @Test
+    public void testIntersects() {
+        ChangedLines changedLines = new ChangedLines.Builder().add(3, 5).add(10, 12).build();
+
+        Assertions.assertTrue(changedLines.intersects(1, 3));
+        Assertions.assertTrue(changedLines.intersects(5, 9));
+        Assertions.assertTrue(changedLines.intersects(4, 4));
+        Assertions.assertTrue(changedLines.intersects(1, 100));
+        Assertions.assertFalse(changedLines.intersects(6, 9));
+        Assertions.assertFalse(changedLines.intersects(13, 20));
+        Assertions.assertFalse(changedLines.intersects(1, 2));
+        Assertions.assertFalse(changedLines.intersects(5, 3));
+    }
+
+    @Test
+    public void testEquals() {
+        Assertions.assertEquals(ChangedLines.of(1, 2, 3), new ChangedLines.Builder().add(1, 3).build());
+        Assertions.assertEquals(ChangedLines.of(1, 2, 3).hashCode(), new ChangedLines.Builder().add(1, 3).build().hashCode());
+        Assertions.assertNotEquals(ChangedLines.of(1, 2, 3), ChangedLines.of(1, 3));
+    }
+}
@@ -2,9 +2,14 @@ package tech.linebyline.coverage.extension.core.util;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -130,4 +135,25 @@ public class FileUtilTest {
         assertEquals(fileSet.size(), result.size());
         assertTrue(result.containsAll(fileSet));
     }
+
+    @Test
+    public void testResolveGlob(@TempDir Path baseDir) throws IOException {
+        Files.createDirectories(baseDir.resolve("target/fork-1"));
+        Files.createDirectories(baseDir.resolve("target/fork-2"));
+        Files.createFile(baseDir.resolve("target/jacoco.exec"));
+        Files.createFile(baseDir.resolve("target/jacoco-it.exec"));
+        Files.createFile(baseDir.resolve("target/fork-1/jacoco.exec"));
+        Files.createFile(baseDir.resolve("target/fork-2/jacoco.exec"));
+        Files.createFile(baseDir.resolve("target/fork-2/jacoco.txt"));
+
+        assertEquals(List.of(baseDir.resolve("target/jacoco-it.exec").toFile(), baseDir.resolve("target/jacoco.exec").toFile()),
+                FileUtil.resolveGlob(baseDir.toFile(), "target/*.exec"));
+        assertEquals(List.of(baseDir.resolve("target/fork-1/jacoco.exec").toFile(), baseDir.resolve("target/fork-2/jacoco.exec").toFile()),
+                FileUtil.resolveGlob(baseDir.toFile(), "target/fork-*/*.exec"));
+        assertEquals(4, FileUtil.resolveGlob(baseDir.toFile(), "target/**.exec").size());
+        assertEquals(List.of(baseDir.resolve("target/jacoco-it.exec").toFile()),
+                FileUtil.resolveGlob(new File("/does/not/matter"), baseDir.resolve("target").toString() + "/jacoco-it.e?ec"));
+        assertEquals(List.of(baseDir.resolve("target/missing.exec").toFile()), FileUtil.resolveGlob(baseDir.toFile(), "target/missing.exec"));
+        assertTrue(FileUtil.resolveGlob(baseDir.toFile(), "missing/*.exec").isEmpty());
+    }
 }
@@ -3,6 +3,9 @@ package tech.linebyline;
 
 import tech.linebyline.coverage.extension.core.CoverageChecker;
 import tech.linebyline.coverage.extension.core.configuration.ConfigurationManager;
+import tech.linebyline.coverage.extension.core.integration.ExecutionDataLoader;
+import tech.linebyline.coverage.extension.core.integration.JaCoCoInteractor;
+import tech.linebyline.coverage.extension.core.integration.ProcessRunner;
 import tech.linebyline.coverage.extension.core.model.Rule;
 import tech.linebyline.coverage.extension.core.model.RuleValidationResult;
 import tech.linebyline.coverage.extension.core.services.RuleManager;
@@ -18,6 +21,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Mojo(name = "report", defaultPhase = LifecyclePhase.PREPARE_PACKAGE)
 public class CoverageCheckMojo extends AbstractMojo {
@@ -31,12 +35,18 @@ public class CoverageCheckMojo extends AbstractMojo {
     @Parameter(defaultValue = "${project.build.outputDirectory}")
     private File classpath;
 
+    @Parameter(alias = "additionalClasspaths")
+    private List<File> additionalClasspaths;
+
     @Parameter
     private List<String> sourcepaths;
 
     @Parameter(defaultValue = "${project.build.directory}/jacoco.exec", alias = "jacocoExecFile")
     private File jacocoExecFile;
 
+    @Parameter(alias = "jacocoExecFilePatterns")
+    private List<String> jacocoExecFilePatterns;
+
     @Parameter(defaultValue = "develop", alias = "branchToCompare")
     private String branchToCompare;
 
@@ -46,13 +56,55 @@ public class CoverageCheckMojo extends AbstractMojo {
     @Parameter(defaultValue = "false", alias = "failOnError")
     private boolean failOnError = false;
 
+    @Parameter(defaultValue = "0", alias = "analysisThreads")
+    private int analysisThreads;
+
+    @Parameter(defaultValue = "${project.build.directory}", readonly = true)
+    private File buildDirectory;
+
+    @Parameter(defaultValue = "true", alias = "useAnalysisCache")
+    private boolean useAnalysisCache = true;
+
+    @Parameter(defaultValue = "false", alias = "useDiffCache")
+    private boolean useDiffCache = false;
+
+    @Parameter(defaultValue = "false", alias = "incrementalDiff")
+    private boolean incrementalDiff = false;
+
+    @Parameter(defaultValue = "1", alias = "diffThreads")
+    private int diffThreads = 1;
+
+    @Parameter(defaultValue = "300", alias = "gitTimeout")
+    private int gitTimeout = 300;
+
+    @Parameter(defaultValue = "false", alias = "stagedChanges")
+    private boolean stagedChanges = false;
+
+    @Parameter(alias = "patchFile")
+    private String patchFile;
+
+    @Parameter(defaultValue = "GIT_PROCESS", alias = "diffEngine")
+    private ConfigurationManager.DiffEngine diffEngine = ConfigurationManager.DiffEngine.GIT_PROCESS;
+
     public void execute() throws MojoExecutionException, MojoFailureException {
         getLog().debug("Project Base Directory: " + basedir);
         getLog().debug("Classpath: " + classpath);
+        getLog().debug("Additional Classpaths: " + additionalClasspaths);
         getLog().debug("Source Paths: " + sourcepaths);
         getLog().debug("JaCoCo Execution File: " + jacocoExecFile);
+        getLog().debug("JaCoCo Execution File Patterns: " + jacocoExecFilePatterns);
         getLog().debug("Branch to Compare: " + branchToCompare);
         getLog().debug("Fail on Error: " + failOnError);
+        getLog().debug("Analysis Threads: " + analysisThreads);
+        getLog().debug("Build Directory: " + buildDirectory);
+        getLog().debug("Use Analysis Cache: " + useAnalysisCache);
+        getLog().debug("Diff Engine: " + diffEngine);
+        getLog().debug("Use Diff Cache: " + useDiffCache);
+        getLog().debug("Incremental Diff: " + incrementalDiff);
+        getLog().debug("Diff Threads: " + diffThreads);
+        getLog().debug("Git Timeout: " + gitTimeout);
+        getLog().debug("Staged Changes: " + stagedChanges);
+        getLog().debug("Patch File: " + patchFile);
 
         for (Rule rule : rules) {
             getLog().debug("Rule Type: " + rule.getType() + ", Threshold: " + rule.getThreshold());
@@ -62,11 +114,27 @@ public class CoverageCheckMojo extends AbstractMojo {
 
         ConfigurationManager configurationManager = new ConfigurationManager();
         configurationManager.setClassPath(classpath);
+        if (additionalClasspaths != null) {
+            configurationManager.setAdditionalClassPaths(additionalClasspaths.toArray(new File[0]));
+        }
         configurationManager.setSourcePaths(sourcepaths.toArray(new String[0]));
         configurationManager.setJacocoExecFile(jacocoExecFile);
+        if (jacocoExecFilePatterns != null) {
+            configurationManager.setJacocoExecFilePatterns(jacocoExecFilePatterns.toArray(new String[0]));
+        }
         configurationManager.setBranchToCompare(branchToCompare);
         configurationManager.setProjectBaseDir(project.getBasedir());
         configurationManager.setFailOnError(failOnError);
+        configurationManager.setAnalysisThreads(analysisThreads);
+        configurationManager.setBuildDirectory(buildDirectory);
+        configurationManager.setUseAnalysisCache(useAnalysisCache);
+        configurationManager.setDiffEngine(diffEngine);
+        configurationManager.setUseDiffCache(useDiffCache);
+        configurationManager.setIncrementalDiff(incrementalDiff);
+        configurationManager.setDiffThreads(diffThreads);
+        configurationManager.setGitTimeout(gitTimeout);
+        configurationManager.setStagedChanges(stagedChanges);
+        configurationManager.setPatchFile(patchFile);
 
         RuleManager ruleManager = new RuleManager();
         ruleManager.setRules(rules);
@@ -76,6 +144,17 @@ public class CoverageCheckMojo extends AbstractMojo {
         try {
             HashMap<Rule, RuleValidationResult> ruleRuleValidationResultHashMap = coverageChecker.runChecks();
 
+            JaCoCoInteractor jaCoCoInteractor = coverageChecker.getJaCoCoInteractor();
+            ExecutionDataLoader executionDataLoader = jaCoCoInteractor.getExecutionDataLoader();
+            getLog().debug(String.format("Read %d bytes of execution data in %d ms (%.1f MB/s), skipped %d records of classes that are not analyzed",
+                    executionDataLoader.getBytesRead(), executionDataLoader.getLoadTimeNanos() / 1_000_000,
+                    executionDataLoader.getBytesPerSecond() / (1024 * 1024), executionDataLoader.getSkippedRecords()));
+            ProcessRunner processRunner = coverageChecker.getProcessRunner();
+            getLog().debug(String.format("Ran %d git processes in %d ms", processRunner.getProcesses(), processRunner.getWallTimeNanos() / 1_000_000));
+            for (Map.Entry<String, List<String>> duplicateClass : jaCoCoInteractor.getDuplicateClasses().entrySet()) {
+                getLog().warn("Class " + duplicateClass.getKey() + " is found more than once on the classpath, only the first one is analyzed: " + duplicateClass.getValue());
+            }
+
             StringBuilder totalMessage = new StringBuilder();
 
             totalMessage.append("\n");